@@ -12,10 +12,13 @@
 #   public *;
 #}
 
-# Uncomment this to preserve the line number information for
-# debugging stack traces.
-#-keepattributes SourceFile,LineNumberTable
+# Preserve the line number information for debugging stack traces.
+-keepattributes SourceFile,LineNumberTable
+
+# Hide the original source file name.
+-renamesourcefileattribute SourceFile
+
+# The calculator does not use reflection: MainActivity is kept through the
+# manifest, views are looked up by generated ids and all click handlers are
+# set in code, so everything else may be renamed, inlined or removed.
 
-# If you keep the line number information, uncomment this to
-# hide the original source file name.
-#-renamesourcefileattribute SourceFile
\ No newline at end of file
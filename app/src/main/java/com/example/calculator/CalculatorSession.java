@@ -0,0 +1,39 @@
+package com.example.calculator;
+
+import java.util.ArrayList;
+
+/**
+ * CalculatorSession - one calculator tab: its input state with undo/redo,
+ * its calculation history and its memory registers
+ *
+ * Sessions are independent of each other. What they share is
+ * ExpressionCache.SHARED, so an expression evaluated in one tab is neither
+ * parsed nor computed again in another.
+ */
+final class CalculatorSession {
+
+    static final int MAX_HISTORY = 50; // Limit history to 50 items
+
+    final int number;                  // Shown as "Tab <number>"
+    StateHistory history = StateHistory.of(CalculatorState.EMPTY);
+    final ArrayList<String> calculationHistory = new ArrayList<>();
+    final MemoryRegisters registers = new MemoryRegisters();
+
+    CalculatorSession(int number) {
+        this.number = number;
+    }
+
+    /**
+     * Records a calculation to history, dropping the oldest entry when full
+     */
+    void addToHistory(String calculation) {
+        if (calculationHistory.size() >= MAX_HISTORY) {
+            calculationHistory.remove(0);
+        }
+        calculationHistory.add(calculation);
+    }
+
+    String name() {
+        return "Tab " + number;
+    }
+}
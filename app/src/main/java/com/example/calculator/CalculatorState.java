@@ -0,0 +1,265 @@
+package com.example.calculator;
+
+/**
+ * CalculatorState - immutable snapshot of everything being typed
+ *
+ * Every key press turns one state into the next through the methods below
+ * instead of changing fields in place. A new state shares its expression
+ * TokenList with the old one, so keeping the old state around (for undo,
+ * or across rotation) costs a few object headers, not a copy.
+ *
+ * The expression has a cursor: a token index where new input goes. It
+ * normally sits at the end, but can be moved to edit earlier parts of the
+ * expression. The number being typed belongs at the cursor and becomes a
+ * token once an operator or parenthesis follows it.
+ *
+ * MainActivity only decides which transition to apply and how to show the
+ * result; the rules for building the expression live here.
+ */
+final class CalculatorState {
+
+    static final CalculatorState EMPTY = new CalculatorState(TokenList.EMPTY, 0, "", "", 0, true, false);
+
+    final TokenList expression;        // Tokens entered, without the number being typed
+    final int cursor;                  // Token index where new input is inserted
+    final String currentNumber;        // Number being entered, or the last result
+    final String operator;             // Last operator pressed (+, -, ×, ÷, ^), "" if none
+    final int openParenthesisCount;    // Unmatched opening parentheses in expression
+    final boolean isNewOperation;      // Next digit starts a new number
+    final boolean lastInputWasOperator; // Last key was an operator
+
+    CalculatorState(TokenList expression, int cursor, String currentNumber, String operator,
+            int openParenthesisCount, boolean isNewOperation, boolean lastInputWasOperator) {
+        this.expression = expression;
+        this.cursor = cursor;
+        this.currentNumber = currentNumber;
+        this.operator = operator;
+        this.openParenthesisCount = openParenthesisCount;
+        this.isNewOperation = isNewOperation;
+        this.lastInputWasOperator = lastInputWasOperator;
+    }
+
+    /**
+     * All tokens including the number being typed, ready for TokenEvaluator
+     */
+    TokenList tokens() {
+        return currentNumber.isEmpty() ? expression : expression.insert(cursor, Token.of(currentNumber));
+    }
+
+    /**
+     * The expression including the number being entered, e.g. "12 + 5";
+     * fraction and negative results are parenthesized (see
+     * Token.inExpression)
+     */
+    String completeExpression() {
+        if (cursor == expression.size) {
+            return expression + Token.inExpression(currentNumber);
+        }
+        StringBuilder sb = new StringBuilder();
+        expression.appendTo(sb, 0, cursor);
+        if (!currentNumber.isEmpty()) {
+            sb.append(Token.inExpression(currentNumber)).append(' ');
+        }
+        expression.appendTo(sb, cursor, expression.size);
+        return sb.toString().trim();
+    }
+
+    /**
+     * The expression as shown on the secondary display; a ‸ marks the
+     * cursor when it is not at the end
+     */
+    String expressionText() {
+        if (cursor == expression.size) {
+            return expression.toString();
+        }
+        StringBuilder sb = new StringBuilder();
+        expression.appendTo(sb, 0, cursor);
+        sb.append("‸ ");
+        expression.appendTo(sb, cursor, expression.size);
+        return sb.toString();
+    }
+
+    // ===== Input Transitions =====
+    /**
+     * Appends a digit or decimal point to the current number
+     *
+     * Starts a new number after an operation, ignores a second decimal point
+     * and replaces a leading zero. A new number never lands next to a number
+     * already in the expression: right after one (cursor moved back), the
+     * digit extends it, and right before one the digit is put in front of it;
+     * either way that number becomes the current number, as after backspace.
+     */
+    CalculatorState enterDigit(String digit) {
+        String number = isNewOperation ? "" : currentNumber;
+        TokenList tokens = expression;
+        int at = cursor;
+        if (number.isEmpty()) {
+            Token before = at > 0 ? tokens.get(at - 1) : null;
+            Token after = at < tokens.size ? tokens.get(at) : null;
+            if (before != null && before.type == Token.NUMBER) {
+                if (!isPlainNumber(before.text)) {
+                    return this;
+                }
+                number = before.text;
+                tokens = tokens.remove(--at);
+            } else if (after != null && after.type == Token.NUMBER) {
+                if (!isPlainNumber(after.text) || (digit.equals(".") && after.text.contains("."))
+                        || (digit.equals("0") && !after.text.startsWith("."))) {
+                    return this; // Would not be a number, or the zero would add nothing
+                }
+                return new CalculatorState(tokens.remove(at), at, digit + after.text, operator,
+                        openParenthesisCount, false, false);
+            }
+        }
+        if (digit.equals(".") && number.contains(".")) {
+            return this;
+        }
+        if (number.equals("0") && !digit.equals(".")) {
+            number = digit;
+        } else {
+            number += digit;
+        }
+        return new CalculatorState(tokens, at, number, operator, openParenthesisCount, false, false);
+    }
+
+    /**
+     * Whether a number token can take more digits: digits and a decimal
+     * point only, not a fraction or negative result
+     */
+    private static boolean isPlainNumber(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if ((c < '0' || c > '9') && c != '.') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds a binary operator after the current number, or replaces the
+     * operator just entered when a different one is pressed
+     */
+    CalculatorState enterOperator(String op) {
+        Token token = Token.of(op);
+        if (!currentNumber.isEmpty() && !lastInputWasOperator) {
+            TokenList tokens = expression.insert(cursor, Token.of(currentNumber)).insert(cursor + 1, token);
+            return new CalculatorState(tokens, cursor + 2, "", op, openParenthesisCount, true, true);
+        }
+        Token before = cursor > 0 ? expression.get(cursor - 1) : null;
+        if (before != null && before.isOperator()) {
+            return new CalculatorState(expression.set(cursor - 1, token), cursor, currentNumber, op,
+                    openParenthesisCount, isNewOperation, true);
+        }
+        if (before != null && before.type == Token.CLOSE) {
+            // Operator directly after a closing parenthesis: "(1 + 2) ×"
+            return new CalculatorState(expression.insert(cursor, token), cursor + 1, "", op,
+                    openParenthesisCount, true, true);
+        }
+        return new CalculatorState(expression, cursor, currentNumber, op,
+                openParenthesisCount, isNewOperation, lastInputWasOperator);
+    }
+
+    /**
+     * Opens a group when none is open or right after an operator, otherwise
+     * closes the innermost open group
+     */
+    CalculatorState enterParenthesis() {
+        TokenList tokens = tokens();
+        int at = currentNumber.isEmpty() ? cursor : cursor + 1;
+        if (openParenthesisCount == 0 || lastInputWasOperator) {
+            return new CalculatorState(tokens.insert(at, Token.OPEN_PARENTHESIS), at + 1, "", operator,
+                    openParenthesisCount + 1, isNewOperation, false);
+        }
+        return new CalculatorState(tokens.insert(at, Token.CLOSE_PARENTHESIS), at + 1, "", operator,
+                openParenthesisCount - 1, isNewOperation, false);
+    }
+
+    /**
+     * Removes the last character of the current number, or else the token
+     * before the cursor
+     *
+     * When that leaves a number right before the cursor, the number becomes
+     * the current number again so it can be edited.
+     */
+    CalculatorState backspace() {
+        if (!currentNumber.isEmpty()) {
+            return new CalculatorState(expression, cursor, currentNumber.substring(0, currentNumber.length() - 1),
+                    operator, openParenthesisCount, false, false);
+        }
+        if (cursor == 0) {
+            return this;
+        }
+
+        Token removed = expression.get(cursor - 1);
+        int open = openParenthesisCount;
+        if (removed.type == Token.OPEN) {
+            open--;
+        } else if (removed.type == Token.CLOSE) {
+            open++;
+        }
+        TokenList tokens = expression.remove(cursor - 1);
+        int at = cursor - 1;
+
+        Token before = at > 0 ? tokens.get(at - 1) : null;
+        if (before != null && before.type == Token.NUMBER) {
+            return new CalculatorState(tokens.remove(at - 1), at - 1, before.text, operator, open, false, false);
+        }
+        return new CalculatorState(tokens, at, "", operator, open, true, before != null && before.isOperator());
+    }
+
+    /**
+     * Moves the cursor by the given number of tokens; the number being typed
+     * is first put into the expression at the old position
+     */
+    CalculatorState moveCursor(int delta) {
+        TokenList tokens = tokens();
+        int from = currentNumber.isEmpty() ? cursor : cursor + 1;
+        int to = Math.max(0, Math.min(tokens.size, from + delta));
+        if (to == cursor && currentNumber.isEmpty()) {
+            return this;
+        }
+        boolean afterOperator = to > 0 && tokens.get(to - 1).isOperator();
+        return new CalculatorState(tokens, to, "", operator, openParenthesisCount, true, afterOperator);
+    }
+
+    // ===== Value Transitions =====
+    /**
+     * Replaces the current number, keeping the rest of the state
+     */
+    CalculatorState withCurrentNumber(String number) {
+        return new CalculatorState(expression, cursor, number, operator,
+                openParenthesisCount, isNewOperation, lastInputWasOperator);
+    }
+
+    /**
+     * Puts a value (constant) into the current number that later digits
+     * extend
+     */
+    CalculatorState withEntry(String number) {
+        return new CalculatorState(expression, cursor, number, operator, openParenthesisCount, false, false);
+    }
+
+    /**
+     * Puts a computed value into the current number; the next digit starts a
+     * new number
+     */
+    CalculatorState withValue(String number) {
+        return new CalculatorState(expression, cursor, number, operator, openParenthesisCount, true, false);
+    }
+
+    /**
+     * The state after a completed calculation: only the result is kept
+     */
+    CalculatorState withResult(String result) {
+        return new CalculatorState(TokenList.EMPTY, 0, result, "", 0, true, false);
+    }
+
+    /**
+     * The state after a failed calculation: the expression is dropped
+     */
+    CalculatorState withError() {
+        return new CalculatorState(TokenList.EMPTY, 0, currentNumber, operator, 0,
+                isNewOperation, lastInputWasOperator);
+    }
+}
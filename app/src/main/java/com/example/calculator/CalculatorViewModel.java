@@ -0,0 +1,93 @@
+package com.example.calculator;
+
+import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.ViewModel;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * CalculatorViewModel - keeps the calculator sessions (tabs) across
+ * configuration changes such as rotation
+ *
+ * Each session's history is immutable, so handing it to the new activity is
+ * a single reference. After process death only each session's present
+ * state survives, through the activity's saved instance state; calculation
+ * history and memory are reloaded from storage.
+ *
+ * Pastes are evaluated on the ViewModel's own thread, so one that is still
+ * running when the activity is recreated is not lost: its result is posted
+ * to a LiveData and shown by whichever activity is started at the time.
+ * The statistics accumulators live here too, so values pasted into them
+ * reach the new activity and are saved from there.
+ */
+public class CalculatorViewModel extends ViewModel {
+
+    final ArrayList<CalculatorSession> sessions = new ArrayList<>();
+    int current = 0;                   // Index of the session on screen
+    boolean isStorageLoaded = false;   // Set once history/memory/statistics have been read in
+
+    // Pastes run here rather than on the activity's thread, which stops with the activity
+    final ExecutorService pasteExecutor = Executors.newSingleThreadExecutor();
+    final MutableLiveData<BulkPaste> bulkResult = new MutableLiveData<>(); // Set until shown
+    final MutableLiveData<VectorPaste> vectorResult = new MutableLiveData<>();
+
+    // Statistics mode accumulators; a paste adds to them on pasteExecutor
+    final StreamingStatistics statistics = new StreamingStatistics();
+    volatile boolean isStatisticsPasting = false;
+    final MutableLiveData<BulkEvaluator.StatisticsResult> statisticsPasteResult = new MutableLiveData<>();
+
+    public CalculatorViewModel() {
+        sessions.add(new CalculatorSession(1));
+    }
+
+    @Override
+    protected void onCleared() {
+        pasteExecutor.shutdownNow();
+    }
+
+    CalculatorSession session() {
+        return sessions.get(current);
+    }
+
+    /**
+     * Adds an empty session after the others and returns it
+     */
+    CalculatorSession addSession() {
+        int number = 0;
+        for (CalculatorSession session : sessions) {
+            number = Math.max(number, session.number);
+        }
+        CalculatorSession session = new CalculatorSession(number + 1);
+        sessions.add(session);
+        return session;
+    }
+
+    /**
+     * A multi-line paste and its evaluation, waiting to be shown
+     */
+    static final class BulkPaste {
+        final CharSequence text;
+        final BulkEvaluator.Result result;
+
+        BulkPaste(CharSequence text, BulkEvaluator.Result result) {
+            this.text = text;
+            this.result = result;
+        }
+    }
+
+    /**
+     * A vector expression and its value (null if it failed), waiting to be
+     * shown
+     */
+    static final class VectorPaste {
+        final String expression;
+        final Matrix result;
+
+        VectorPaste(String expression, Matrix result) {
+            this.expression = expression;
+            this.result = result;
+        }
+    }
+}
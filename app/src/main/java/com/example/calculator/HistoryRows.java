@@ -0,0 +1,93 @@
+package com.example.calculator;
+
+import android.content.SharedPreferences;
+
+/**
+ * HistoryRows - the stored calculation history of every session as
+ * ResultArchive rows, for exporting it
+ *
+ * Entries are read one at a time straight from the history store, so an
+ * export never builds a list of the history or one String holding all of
+ * it. An entry "12 + 5 = 17" becomes the row ("12 + 5", 17); a result that
+ * is not a number ("Error") becomes NaN, and entries without " = " are
+ * skipped.
+ */
+final class HistoryRows implements ResultArchive.Rows {
+
+    private final SharedPreferences prefs;
+    private final int sessionCount;
+    private int session = 0;
+    private int index = -1;        // Entry of the session last read
+    private int count;             // Entries of the session
+    private String expression;
+    private double result;
+
+    HistoryRows(SharedPreferences prefs) {
+        this.prefs = prefs;
+        this.sessionCount = Math.max(1, prefs.getInt("session_count", 1));
+        this.count = prefs.getInt(MainActivity.sessionKey(0, "history_count"), 0);
+    }
+
+    @Override
+    public boolean next() {
+        while (session < sessionCount) {
+            if (++index >= count) {
+                if (++session < sessionCount) {
+                    index = -1;
+                    count = prefs.getInt(MainActivity.sessionKey(session, "history_count"), 0);
+                }
+                continue;
+            }
+            String entry = prefs.getString(MainActivity.sessionKey(session, "history_" + index), "");
+            int split = entry.lastIndexOf(" = ");
+            if (split < 0) {
+                continue;
+            }
+            expression = entry.substring(0, split);
+            result = parseResult(entry.substring(split + 3));
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public CharSequence expression() {
+        return expression;
+    }
+
+    @Override
+    public double result() {
+        return result;
+    }
+
+    /**
+     * Value of a result as shown on the display: a decimal (with either
+     * decimal separator), a fraction such as "7/3" or a programmer mode
+     * integer such as "0xFF" or "-0b101", or ∞; NaN otherwise (units,
+     * errors)
+     */
+    static double parseResult(String text) {
+        String number = text.trim().replace(',', '.');
+        try {
+            return Double.parseDouble(number);
+        } catch (NumberFormatException e) {
+            // Not a plain decimal
+        }
+        int start = number.startsWith("-") ? 1 : 0;
+        if (number.startsWith("∞", start) && number.length() == start + 1) {
+            return start == 0 ? Double.POSITIVE_INFINITY : Double.NEGATIVE_INFINITY;
+        }
+        try {
+            if (number.startsWith("0x", start) || number.startsWith("0b", start)
+                    || number.startsWith("0o", start)) {
+                return new ProgrammerEvaluator(number, 10).evaluate();
+            }
+            ExpressionEvaluator evaluator = new ExpressionEvaluator(number);
+            double value = evaluator.evaluate();
+            evaluator.requireEnd();
+            return value;
+        } catch (Exception e) {
+            return Double.NaN;
+        }
+    }
+}
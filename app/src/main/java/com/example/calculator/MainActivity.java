@@ -1,8 +1,17 @@
 package com.example.calculator;
 
 import android.os.Bundle;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.os.SystemClock;
 import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewStub;
+import android.view.ViewTreeObserver;
+import android.widget.BaseAdapter;
 import android.widget.Button;
+import android.widget.EditText;
 import android.widget.HorizontalScrollView;
 import android.widget.TextView;
 import android.widget.Toast;
@@ -13,10 +22,18 @@ import android.content.SharedPreferences;
 import android.app.AlertDialog;
 
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.lifecycle.ViewModelProvider;
 
-import java.text.DecimalFormat;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
 import java.util.*;
+import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
 
 /**
  * MainActivity - Samsung-style Calculator Application
@@ -32,30 +49,44 @@ public class MainActivity extends AppCompatActivity {
     // UI Components
     private TextView tvDisplay;           // Main display showing current number/result
     private TextView tvSecondary;         // Secondary display showing previous operation
-    private HorizontalScrollView scientificPanel; // Panel containing scientific function buttons
+    private HorizontalScrollView scientificPanel; // Panel containing scientific function buttons (null until first shown)
 
-    // Calculator state variables
-    private String currentNumber = "";    // Current number being entered by user
-    private String operator = "";         // Current operator (+, -, ×, ÷, ^)
-    private double firstOperand = 0;      // First operand for binary operations
-    private boolean isNewOperation = true; // Flag to clear display on next number input
+    // Calculator sessions (tabs), each with its immutable input state, undo/redo
+    // history, calculation history and memory (survive rotation in the ViewModel)
+    private CalculatorViewModel viewModel;
     private boolean isScientificMode = false; // Flag indicating if scientific mode is active
-    private boolean lastInputWasOperator = false; // Tracks if last button pressed was an operator
-    private int openParenthesisCount = 0; // Counter for unmatched parentheses
-    private String fullExpression = "";   // Full expression for precedence evaluation
     private boolean isDegrees = true;      // Angle unit toggle: true for degrees, false for radians
+    private boolean isFractionMode = false; // Exact fraction arithmetic instead of double
+    private boolean showMixedFraction = false; // Show fraction results as "2 1/3" instead of "7/3"
+    private int programmerRadix = 0;       // Programmer mode radix (2, 8, 10, 16), 0 when off
 
     // Formatter for displaying numbers with proper decimal places
-    private final DecimalFormat decimalFormat = new DecimalFormat("#.##########");
+    private final NumberFormatter numberFormatter = new NumberFormatter();
 
-    // History Manangment
-    private ArrayList<String> calculationHistory;  // Store all calculations
-    private static final int MAX_HISTORY = 50;     // Limit history to 50 items
+    private static final int MAX_VECTOR_PREVIEW = 100; // Max vector elements/characters shown on screen
 
-    // Memory Management
-    private double memoryValue = 0;                // Store value in memory
-    private boolean hasMemory = false;             // Flag indicating if memory contains a value
+    // Storage
+    private boolean isStorageLoaded = false;       // Set once history/memory/statistics have been read from storage
+    private static final long MEMORY_SAVE_DELAY_MS = 500; // Register changes within this time are saved together
+    private static final String HISTORY_EXPORT = "history";   // Export file name, + ".csv" or ".calc"
+    private static final String RESULTS_EXPORT = "results";   // Bulk paste export file name
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final Runnable memorySaver = this::saveMemoryToStorage;
     private Button btnMemoryIndicator;             // Button to show memory status
+    private Button btnSession;                     // Shows the current tab; opens the tab list
+
+    // Statistics Mode (separate accumulator set from memory), kept by the ViewModel
+    private StreamingStatistics statistics;
+
+    // Startup measurement: true once the process's first frame was recorded
+    private static boolean isFirstFrameRecorded = false;
+
+    // Background work (storage loading, bulk paste evaluation) runs here, off the UI thread
+    private final ExecutorService backgroundExecutor = Executors.newSingleThreadExecutor();
+
+    // Batched storage writes run here; it outlives the activity, so a save
+    // queued in onPause is not dropped when the activity is destroyed
+    private static final ExecutorService STORAGE_EXECUTOR = Executors.newSingleThreadExecutor();
 
     /**
      * Called when the activity is first created Initializes UI components and
@@ -63,28 +94,119 @@ public class MainActivity extends AppCompatActivity {
      */
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        long startupStart = EngineMetrics.start();
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
 
         // Initialize UI components
         tvDisplay = findViewById(R.id.tvDisplay);
         tvSecondary = findViewById(R.id.tvSecondary);
-        scientificPanel = findViewById(R.id.scientificPanel);
-        calculationHistory = new ArrayList<>();
 
-        // Load history and memory from storage
-        loadHistoryFromStorage();
-        loadMemoryFromStorage();
+        // Sessions: kept by the ViewModel across rotation, their input states
+        // restored from the saved snapshot after process death
+        viewModel = new ViewModelProvider(this).get(CalculatorViewModel.class);
+        statistics = viewModel.statistics;
+        if (savedInstanceState != null && viewModel.sessions.size() == 1
+                && !session().history.canUndo() && session().history.present == CalculatorState.EMPTY) {
+            restoreSessions(savedInstanceState);
+        }
+        renderState();
+
+        // Load history, memory and statistics off the main thread
+        loadStorageAsync();
+        observePasteResults();
 
-        // Set up all button click listeners
+        // Set up all button click listeners; the scientific panel buttons are
+        // wired when the panel is first inflated
         setupNumberButtons();
         setupOperatorButtons();
         setupFunctionButtons();
-        setupScientificButtons();
         setupMemoryButtons();
         setupLandscapeButtons();
         setupCopyPasteGestures();
+        setupMetricsOverlay();
+        recordFirstFrame();
+
+        EngineMetrics.STARTUP.stop(startupStart);
+    }
+
+    /**
+     * Loads history, memory and statistics on the background thread so
+     * SharedPreferences disk reads do not delay the first frame
+     *
+     * Entries made before loading finishes are merged: older history goes
+     * in front, and a memory value stored in the meantime is added to the
+     * saved one. Statistics cannot be entered until loading is done (see
+     * isStatisticsReady), so the stored accumulators are simply restored.
+     * Nothing is saved until loading is done, so a quick pause
+     * cannot overwrite stored data with an empty state. The sessions'
+     * history and memory and the statistics are read once per ViewModel;
+     * after rotation the ViewModel already holds newer ones.
+     */
+    private void loadStorageAsync() {
+        boolean loadSessions = !viewModel.isStorageLoaded;
+        backgroundExecutor.execute(() -> {
+            SharedPreferences prefs = getSharedPreferences("calculator_prefs", MODE_PRIVATE);
+            List<CalculatorSession> stored = new ArrayList<>();
+            if (loadSessions) {
+                loadSessionsFromStorage(prefs, stored);
+            }
+            double[] savedStatistics = loadSessions ? readStatisticsState(prefs) : null;
+
+            runOnUiThread(() -> {
+                if (!viewModel.isStorageLoaded) {
+                    mergeStoredSessions(stored);
+                    if (savedStatistics != null) {
+                        statistics.restore(savedStatistics); // Input waits for loading (see isStatisticsReady)
+                    }
+                    viewModel.isStorageLoaded = true;
+                }
+                isStorageLoaded = true;
+                updateSessionButton();
+                reportFullyDrawn();
+            });
+        });
+    }
+
+    /**
+     * Adds the stored history and memory of each session to the session at
+     * the same position, creating sessions as needed
+     */
+    private void mergeStoredSessions(List<CalculatorSession> stored) {
+        for (int i = 0; i < stored.size(); i++) {
+            CalculatorSession from = stored.get(i);
+            CalculatorSession session = i < viewModel.sessions.size()
+                    ? viewModel.sessions.get(i) : viewModel.addSession();
+            session.calculationHistory.addAll(0, from.calculationHistory);
+            while (session.calculationHistory.size() > CalculatorSession.MAX_HISTORY) {
+                session.calculationHistory.remove(0);
+            }
+            session.registers.merge(from.registers);
+        }
+    }
 
+    /**
+     * Records the time from process start to the first drawn frame in
+     * EngineMetrics (startup.firstFrame); only the first activity of a
+     * process counts, not recreations after rotation
+     */
+    private void recordFirstFrame() {
+        if (isFirstFrameRecorded) {
+            return;
+        }
+        isFirstFrameRecorded = true;
+        View content = findViewById(android.R.id.content);
+        content.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                content.getViewTreeObserver().removeOnPreDrawListener(this);
+                if (EngineMetrics.enabled) {
+                    long sinceStartMs = SystemClock.uptimeMillis() - Process.getStartUptimeMillis();
+                    EngineMetrics.FIRST_FRAME.record(sinceStartMs * 1_000_000L);
+                }
+                return true;
+            }
+        });
     }
 
     /**
@@ -95,6 +217,78 @@ public class MainActivity extends AppCompatActivity {
         super.onPause();
         saveHistoryToStorage();
         saveMemoryToStorage();
+        saveStatisticsToStorage();
+    }
+
+    /**
+     * Saves a snapshot of each session's input state in case the process is
+     * killed
+     */
+    @Override
+    protected void onSaveInstanceState(Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putInt("session_count", viewModel.sessions.size());
+        outState.putInt("session_current", viewModel.current);
+        for (int i = 0; i < viewModel.sessions.size(); i++) {
+            CalculatorState state = viewModel.sessions.get(i).history.present;
+            outState.putStringArray(sessionKey(i, "state_expression"), state.expression.texts());
+            outState.putInt(sessionKey(i, "state_cursor"), state.cursor);
+            outState.putString(sessionKey(i, "state_number"), state.currentNumber);
+            outState.putString(sessionKey(i, "state_operator"), state.operator);
+            outState.putInt(sessionKey(i, "state_parentheses"), state.openParenthesisCount);
+            outState.putBoolean(sessionKey(i, "state_new_operation"), state.isNewOperation);
+            outState.putBoolean(sessionKey(i, "state_after_operator"), state.lastInputWasOperator);
+        }
+    }
+
+    /**
+     * Recreates the sessions saved by onSaveInstanceState
+     */
+    private void restoreSessions(Bundle savedState) {
+        int count = Math.max(1, savedState.getInt("session_count", 1));
+        for (int i = 0; i < count; i++) {
+            CalculatorSession session = i < viewModel.sessions.size()
+                    ? viewModel.sessions.get(i) : viewModel.addSession();
+            session.history = StateHistory.of(restoreState(savedState, i));
+        }
+        viewModel.current = Math.min(savedState.getInt("session_current", 0), count - 1);
+    }
+
+    /**
+     * Rebuilds a session's input state saved by onSaveInstanceState
+     */
+    private CalculatorState restoreState(Bundle savedState, int session) {
+        String[] tokens = savedState.getStringArray(sessionKey(session, "state_expression"));
+        if (tokens == null) {
+            return CalculatorState.EMPTY;
+        }
+        TokenList expression = TokenList.of(tokens);
+        int cursor = Math.min(savedState.getInt(sessionKey(session, "state_cursor"), expression.size),
+                expression.size);
+        return new CalculatorState(expression, cursor,
+                savedState.getString(sessionKey(session, "state_number"), ""),
+                savedState.getString(sessionKey(session, "state_operator"), ""),
+                savedState.getInt(sessionKey(session, "state_parentheses"), 0),
+                savedState.getBoolean(sessionKey(session, "state_new_operation"), true),
+                savedState.getBoolean(sessionKey(session, "state_after_operator"), false));
+    }
+
+    /**
+     * Key under which a session's value is saved; the first session uses the
+     * plain key, so data saved before tabs existed still loads
+     */
+    static String sessionKey(int session, String key) {
+        return session == 0 ? key : "session_" + session + "_" + key;
+    }
+
+    /**
+     * Called when activity is destroyed - stops pending background work
+     */
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        mainHandler.removeCallbacks(memorySaver);
+        backgroundExecutor.shutdownNow();
     }
 
     /**
@@ -172,6 +366,40 @@ public class MainActivity extends AppCompatActivity {
                 Toast.makeText(this, isDegrees ? "Degrees" : "Radians", Toast.LENGTH_SHORT).show();
             });
         }
+
+        // Fraction mode toggle (DEC → a/b → MIX) if present in layout
+        Button btnFraction = findViewById(R.id.btnFraction);
+        if (btnFraction != null) {
+            btnFraction.setOnClickListener(v -> toggleFractionMode(btnFraction));
+        }
+
+        // Programmer mode toggle (PRG → DEC → HEX → BIN → OCT) if present in layout
+        Button btnProgrammer = findViewById(R.id.btnProgrammer);
+        if (btnProgrammer != null) {
+            btnProgrammer.setOnClickListener(v -> toggleProgrammerMode(btnProgrammer));
+        }
+
+        // Undo/redo of input steps if present in layout
+        Button btnUndo = findViewById(R.id.btnUndo);
+        if (btnUndo != null) {
+            btnUndo.setOnClickListener(v -> undo());
+        }
+
+        Button btnRedo = findViewById(R.id.btnRedo);
+        if (btnRedo != null) {
+            btnRedo.setOnClickListener(v -> redo());
+        }
+
+        // Cursor movement through the expression if present in layout
+        Button btnCursorLeft = findViewById(R.id.btnCursorLeft);
+        if (btnCursorLeft != null) {
+            btnCursorLeft.setOnClickListener(v -> moveCursor(-1));
+        }
+
+        Button btnCursorRight = findViewById(R.id.btnCursorRight);
+        if (btnCursorRight != null) {
+            btnCursorRight.setOnClickListener(v -> moveCursor(1));
+        }
     }
 
     /**
@@ -182,25 +410,44 @@ public class MainActivity extends AppCompatActivity {
         findViewById(R.id.btnMemoryAdd).setOnClickListener(v -> memoryAdd());
         findViewById(R.id.btnMemorySubtract).setOnClickListener(v -> memorySubtract());
         findViewById(R.id.btnMemoryRecall).setOnClickListener(v -> memoryRecall());
+        findViewById(R.id.btnMemoryRecall).setOnLongClickListener(v -> {
+            showRegisters();
+            return true;
+        });
         findViewById(R.id.btnMemoryClear).setOnClickListener(v -> memoryClear());
+
+        btnSession = findViewById(R.id.btnSession);
+        if (btnSession != null) {
+            btnSession.setOnClickListener(v -> showSessions());
+            btnSession.setOnLongClickListener(v -> {
+                switchSession((viewModel.current + 1) % viewModel.sessions.size());
+                return true;
+            });
+            updateSessionButton();
+        }
     }
 
     /**
-     * Sets up click listeners for additional landscape mode buttons Includes:
-     * Backspace, Negate, Reciprocal, Square, Cube, Absolute Value, and
-     * Parenthesis
+     * Sets up click listeners for statistics buttons Includes: Σ+ (add data
+     * point) and STAT (show summary); buttons live in the scientific panel
      */
-    private void setupLandscapeButtons() {
-        Button btnBackspace = findViewById(R.id.btnBackspace);
-        if (btnBackspace != null) {
-            btnBackspace.setOnClickListener(v -> handleBackspace());
+    private void setupStatisticsButtons() {
+        Button btnStatAdd = findViewById(R.id.btnStatAdd);
+        if (btnStatAdd != null) {
+            btnStatAdd.setOnClickListener(v -> statisticsAdd());
         }
 
-        Button btnNegate = findViewById(R.id.btnNegate);
-        if (btnNegate != null) {
-            btnNegate.setOnClickListener(v -> handleNegate());
+        Button btnStatistics = findViewById(R.id.btnStatistics);
+        if (btnStatistics != null) {
+            btnStatistics.setOnClickListener(v -> showStatistics());
         }
+    }
 
+    /**
+     * Sets up click listeners for the landscape-only buttons of the
+     * scientific panel Includes: Reciprocal, Square, Cube, Absolute Value
+     */
+    private void setupLandscapeScientificButtons() {
         Button btnReciprocal = findViewById(R.id.btnReciprocal);
         if (btnReciprocal != null) {
             btnReciprocal.setOnClickListener(v -> calculateReciprocal());
@@ -220,6 +467,22 @@ public class MainActivity extends AppCompatActivity {
         if (btnAbsolute != null) {
             btnAbsolute.setOnClickListener(v -> calculateAbsolute());
         }
+    }
+
+    /**
+     * Sets up click listeners for additional landscape mode buttons Includes:
+     * Backspace, Negate, and Parenthesis
+     */
+    private void setupLandscapeButtons() {
+        Button btnBackspace = findViewById(R.id.btnBackspace);
+        if (btnBackspace != null) {
+            btnBackspace.setOnClickListener(v -> handleBackspace());
+        }
+
+        Button btnNegate = findViewById(R.id.btnNegate);
+        if (btnNegate != null) {
+            btnNegate.setOnClickListener(v -> handleNegate());
+        }
 
         Button btnParenthesis = findViewById(R.id.btnParenthesis);
         if (btnParenthesis != null) {
@@ -227,6 +490,71 @@ public class MainActivity extends AppCompatActivity {
         }
     }
 
+    // ===== Input State and Undo/Redo =====
+    /**
+     * The session (tab) on screen
+     */
+    private CalculatorSession session() {
+        return viewModel.session();
+    }
+
+    /**
+     * The current input state
+     */
+    private CalculatorState state() {
+        return session().history.present;
+    }
+
+    /**
+     * Moves to a new input state; the previous one can be restored with undo
+     */
+    private void setState(CalculatorState next) {
+        session().history = session().history.push(next);
+    }
+
+    /**
+     * Steps back to the state before the last input
+     */
+    private void undo() {
+        if (!session().history.canUndo()) {
+            Toast.makeText(this, "Nothing to undo", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        session().history = session().history.undo();
+        renderState();
+    }
+
+    /**
+     * Re-applies the last undone input
+     */
+    private void redo() {
+        if (!session().history.canRedo()) {
+            Toast.makeText(this, "Nothing to redo", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        session().history = session().history.redo();
+        renderState();
+    }
+
+    /**
+     * Moves the expression cursor by the given number of tokens so earlier
+     * parts of the expression can be edited
+     */
+    private void moveCursor(int delta) {
+        setState(state().moveCursor(delta));
+        renderState();
+    }
+
+    /**
+     * Shows the current input state: the expression on the secondary display
+     * and the current number on the main display
+     */
+    private void renderState() {
+        CalculatorState state = state();
+        tvSecondary.setText(state.expressionText());
+        updateDisplay(state.currentNumber.isEmpty() ? "0" : state.currentNumber);
+    }
+
     /**
      * Appends a digit or decimal point to the current number
      *
@@ -236,26 +564,8 @@ public class MainActivity extends AppCompatActivity {
      * decimal points - Replacing leading zero with the new digit
      */
     private void appendNumber(String number) {
-        // If starting a new operation, clear the current number
-        if (isNewOperation) {
-            currentNumber = "";
-            isNewOperation = false;
-        }
-
-        // Prevent multiple decimal points in the same number
-        if (number.equals(".") && currentNumber.contains(".")) {
-            return;
-        }
-
-        // Replace leading zero with new digit (except for decimals like 0.5)
-        if (currentNumber.equals("0") && !number.equals(".")) {
-            currentNumber = number;
-        } else {
-            currentNumber += number;
-        }
-
-        updateDisplay(currentNumber);
-        lastInputWasOperator = false;
+        setState(state().enterDigit(number));
+        updateDisplay(state().currentNumber);
     }
 
     /**
@@ -263,23 +573,13 @@ public class MainActivity extends AppCompatActivity {
      *
      * @param op The operator symbol (+, -, ×, ÷, ^)
      *
-     * Behavior: - Build expression with proper precedence handling - Display
-     * the expression so far
+     * Behavior: - Build expression with proper precedence handling - Pressing
+     * another operator right away replaces the previous one - Display the
+     * expression so far
      */
     private void setOperator(String op) {
-        if (!currentNumber.isEmpty() && !lastInputWasOperator) {
-            // Add current number to expression
-            fullExpression += currentNumber + " " + op + " ";
-            tvSecondary.setText(fullExpression);
-            currentNumber = "";
-            isNewOperation = true;
-            lastInputWasOperator = true;
-        } else if (!operator.isEmpty() && lastInputWasOperator) {
-            // Allow changing operator if user presses different operator button
-            fullExpression = fullExpression.substring(0, fullExpression.lastIndexOf(op)) + op + " ";
-            tvSecondary.setText(fullExpression);
-        }
-        operator = op;
+        setState(state().enterOperator(op));
+        tvSecondary.setText(state().expressionText());
     }
 
     /**
@@ -292,16 +592,25 @@ public class MainActivity extends AppCompatActivity {
      */
     private void calculateResult() {
         // Ensure we have an expression to evaluate
-        if (currentNumber.isEmpty() && operator.isEmpty()) {
+        if (state().currentNumber.isEmpty() && state().expression.isEmpty()) {
+            return;
+        }
+
+        if (programmerRadix != 0) {
+            calculateProgrammerResult(state().completeExpression(), true);
+            return;
+        }
+        if (isFractionMode) {
+            calculateFractionResult();
             return;
         }
 
         try {
             // Complete the expression with the current number
-            String completeExpression = fullExpression + currentNumber;
+            String completeExpression = state().completeExpression();
 
-            // Evaluate with proper precedence
-            double result = evaluateExpression(completeExpression);
+            // Evaluate the tokens directly with proper precedence
+            double result = evaluateExpression(state().tokens());
 
             // Format and display the result
             String resultStr = formatNumber(result);
@@ -313,14 +622,202 @@ public class MainActivity extends AppCompatActivity {
             addToHistory(historyEntry);
 
             // Reset for next calculation
-            currentNumber = resultStr;
-            fullExpression = "";
-            operator = "";
-            isNewOperation = true;
-            lastInputWasOperator = false;
+            setState(state().withResult(resultStr));
+        } catch (Exception e) {
+            updateDisplay("Error");
+            setState(state().withError());
+        }
+    }
+
+    /**
+     * Calculates the current expression exactly in fraction mode
+     *
+     * The display shows the fraction (mixed or improper) and the secondary
+     * display the decimal value. currentNumber and history keep the improper
+     * form, which can be evaluated again by later operations.
+     */
+    private void calculateFractionResult() {
+        try {
+            String completeExpression = state().completeExpression();
+            Rational result = new FractionEvaluator(expressionWithRegisterValues(0)).evaluate();
+
+            String exactStr = result.toString();
+            String shownStr = showMixedFraction ? result.toMixedString() : exactStr;
+            if (result.isInteger()) {
+                tvSecondary.setText(completeExpression);
+            } else {
+                tvSecondary.setText(completeExpression + " ≈ " + result.toDecimalString());
+            }
+            updateDisplay(shownStr);
+            addToHistory(completeExpression + " = " + exactStr);
+
+            // Reset for next calculation
+            setState(state().withResult(exactStr));
+        } catch (Exception e) {
+            updateDisplay("Error");
+            setState(state().withError());
+        }
+    }
+
+    /**
+     * The current expression in evaluator syntax with each memory register
+     * replaced by its value, for the fraction and programmer modes, whose
+     * parsers read text and know no registers; in programmer mode ^ (the
+     * xʸ key) becomes the power operator **
+     *
+     * @param radix Programmer radix to write register values in, or 0 for
+     * fraction mode, where a value is written as its exact decimal text
+     * @throws Exception If a register is empty, or in programmer mode holds
+     * a value that is not a 64-bit integer
+     */
+    private String expressionWithRegisterValues(int radix) throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (Token token : state().tokens().toArray()) {
+            if (token.type == Token.NUMBER) {
+                sb.append(Token.inExpression(token.text));
+            } else if (radix != 0 && token.symbol == '^') {
+                sb.append("**"); // The xʸ key is a power, not ProgrammerEvaluator's XOR
+            } else if (token.type != Token.REGISTER) {
+                sb.append(token.symbol);
+            } else {
+                double value = session().registers.get(token.register);
+                if (radix == 0) {
+                    sb.append('(').append(BigDecimal.valueOf(value).toPlainString()).append(')');
+                } else if (value != Math.rint(value) || value < -0x1p63 || value >= 0x1p63) {
+                    throw new Exception(MemoryRegisters.label(token.register) + " is not an integer");
+                } else {
+                    sb.append('(').append(RadixFormatter.format((long) value, radix)).append(')');
+                }
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Cycles the fraction mode: off (DEC) → improper fractions (a/b) → mixed
+     * fractions (MIX) → off
+     */
+    private void toggleFractionMode(Button button) {
+        if (!isFractionMode) {
+            isFractionMode = true;
+            showMixedFraction = false;
+        } else if (!showMixedFraction) {
+            showMixedFraction = true;
+        } else {
+            isFractionMode = false;
+            showMixedFraction = false;
+        }
+        button.setText(!isFractionMode ? "DEC" : showMixedFraction ? "MIX" : "a/b");
+        Toast.makeText(this, !isFractionMode ? "Decimal mode"
+                : showMixedFraction ? "Mixed fractions" : "Fractions", Toast.LENGTH_SHORT).show();
+    }
+
+    /**
+     * Evaluates an expression with 64-bit integer arithmetic and bitwise
+     * operators, showing the result in the programmer radix
+     *
+     * @param completeExpression The expression; unprefixed literals are read
+     * in the current radix
+     * @param fromState Whether it is the current expression, whose memory
+     * registers are replaced by their values (see
+     * expressionWithRegisterValues), rather than pasted text
+     */
+    private void calculateProgrammerResult(String completeExpression, boolean fromState) {
+        try {
+            String normalized = fromState ? expressionWithRegisterValues(programmerRadix)
+                    : completeExpression.replaceAll("\\s+", "").replace("×", "*").replace("÷", "/");
+            long result = new ProgrammerEvaluator(normalized, programmerRadix).evaluate();
+
+            String resultStr = RadixFormatter.format(result, programmerRadix);
+            if (programmerRadix == 10) {
+                tvSecondary.setText(completeExpression);
+            } else {
+                tvSecondary.setText(completeExpression + " = " + result);
+            }
+            updateDisplay(resultStr);
+            addToHistory(completeExpression + " = " + resultStr);
+
+            // Reset for next calculation
+            setState(state().withResult(resultStr));
         } catch (Exception e) {
             updateDisplay("Error");
-            fullExpression = "";
+            setState(state().withError());
+        }
+    }
+
+    /**
+     * Cycles the programmer mode: off (PRG) → DEC → HEX → BIN → OCT → off
+     *
+     * The current integer value, if any, is shown again in the new radix; a
+     * value that is not a 64-bit integer (2.5, 1e30) is left as it is.
+     */
+    private void toggleProgrammerMode(Button button) {
+        switch (programmerRadix) {
+            case 0:
+                programmerRadix = 10;
+                break;
+            case 10:
+                programmerRadix = 16;
+                break;
+            case 16:
+                programmerRadix = 2;
+                break;
+            case 2:
+                programmerRadix = 8;
+                break;
+            default:
+                programmerRadix = 0;
+                break;
+        }
+        button.setText(programmerRadix == 0 ? "PRG" : RadixFormatter.label(programmerRadix));
+
+        String currentNumber = state().currentNumber;
+        if (!currentNumber.isEmpty() && state().expression.isEmpty()) {
+            try {
+                long value;
+                if (currentNumber.startsWith("0x") || currentNumber.startsWith("0b")
+                        || currentNumber.startsWith("0o")) {
+                    value = new ProgrammerEvaluator(currentNumber, 10).evaluate();
+                } else {
+                    double number = parseCurrentNumber();
+                    if (number != Math.rint(number) || number < -0x1p63 || number >= 0x1p63) {
+                        return; // Not an integer, or out of the long range: casting would change it
+                    }
+                    value = (long) number;
+                }
+                setState(state().withValue(programmerRadix == 0 ? formatNumber(value)
+                        : RadixFormatter.format(value, programmerRadix)));
+                updateDisplay(state().currentNumber);
+            } catch (Exception e) {
+                // Leave a value that is not an integer as it is
+            }
+        }
+    }
+
+    /**
+     * Evaluates a unit-aware expression and shows the value with its unit
+     *
+     * @param expression Expression such as "5 km + 300 m in mi" or "20 °C in F"
+     * @return false if the expression could not be evaluated
+     *
+     * The number (without its unit) becomes the current number so it can be
+     * used in further calculations.
+     */
+    private boolean calculateUnitResult(String expression) {
+        try {
+            Quantity result = new UnitEvaluator(expression.replace("×", "*").replace("÷", "/")).evaluate();
+            String valueStr = formatNumber(result.value);
+            String resultStr = result.hasUnit()
+                    ? valueStr + " " + UnitRegistry.symbol(result.unit) : valueStr;
+
+            tvSecondary.setText(expression);
+            updateDisplay(resultStr);
+            addToHistory(expression + " = " + resultStr);
+
+            setState(state().withResult(valueStr));
+            return true;
+        } catch (Exception e) {
+            return false;
         }
     }
 
@@ -329,13 +826,13 @@ public class MainActivity extends AppCompatActivity {
      * 100
      */
     private void calculatePercent() {
-        if (!currentNumber.isEmpty()) {
+        if (!state().currentNumber.isEmpty()) {
             try {
-                double value = Double.parseDouble(currentNumber);
+                double value = parseCurrentNumber();
                 double result = value / 100;
                 String resultStr = formatNumber(result);
                 updateDisplay(resultStr);
-                currentNumber = resultStr;
+                setState(state().withCurrentNumber(resultStr));
             } catch (Exception e) {
                 updateDisplay("Error");
             }
@@ -350,9 +847,9 @@ public class MainActivity extends AppCompatActivity {
      * Note: Input is in degrees, converted to radians for calculation
      */
     private void calculateTrigonometric(String function) {
-        if (!currentNumber.isEmpty()) {
+        if (!state().currentNumber.isEmpty()) {
             try {
-                double input = Double.parseDouble(currentNumber);
+                double input = parseCurrentNumber();
                 double angleRad = isDegrees ? Math.toRadians(input) : input;
                 double result = 0;
 
@@ -372,8 +869,7 @@ public class MainActivity extends AppCompatActivity {
                 String unitSuffix = isDegrees ? "°" : " rad";
                 tvSecondary.setText(function + "(" + formatNumber(input) + unitSuffix + ")");
                 updateDisplay(resultStr);
-                currentNumber = resultStr;
-                isNewOperation = true;
+                setState(state().withValue(resultStr));
             } catch (Exception e) {
                 updateDisplay("Error");
             }
@@ -390,9 +886,9 @@ public class MainActivity extends AppCompatActivity {
      * error)
      */
     private void calculateLogarithm(String type) {
-        if (!currentNumber.isEmpty()) {
+        if (!state().currentNumber.isEmpty()) {
             try {
-                double value = Double.parseDouble(currentNumber);
+                double value = parseCurrentNumber();
                 // Logarithm is only defined for positive numbers
                 if (value <= 0) {
                     updateDisplay("Error");
@@ -404,8 +900,7 @@ public class MainActivity extends AppCompatActivity {
                 String resultStr = formatNumber(result);
                 tvSecondary.setText(type + "(" + formatNumber(value) + ")");
                 updateDisplay(resultStr);
-                currentNumber = resultStr;
-                isNewOperation = true;
+                setState(state().withValue(resultStr));
             } catch (Exception e) {
                 updateDisplay("Error");
             }
@@ -418,9 +913,9 @@ public class MainActivity extends AppCompatActivity {
      * Error handling: Displays error for negative numbers (imaginary result)
      */
     private void calculateSquareRoot() {
-        if (!currentNumber.isEmpty()) {
+        if (!state().currentNumber.isEmpty()) {
             try {
-                double value = Double.parseDouble(currentNumber);
+                double value = parseCurrentNumber();
                 // Square root is not defined for negative numbers in real numbers
                 if (value < 0) {
                     updateDisplay("Error");
@@ -431,8 +926,7 @@ public class MainActivity extends AppCompatActivity {
                 String resultStr = formatNumber(result);
                 tvSecondary.setText("√(" + formatNumber(value) + ")");
                 updateDisplay(resultStr);
-                currentNumber = resultStr;
-                isNewOperation = true;
+                setState(state().withValue(resultStr));
             } catch (Exception e) {
                 updateDisplay("Error");
             }
@@ -448,9 +942,9 @@ public class MainActivity extends AppCompatActivity {
      * to prevent overflow
      */
     private void calculateFactorial() {
-        if (!currentNumber.isEmpty()) {
+        if (!state().currentNumber.isEmpty()) {
             try {
-                double dval = Double.parseDouble(currentNumber);
+                double dval = parseCurrentNumber();
                 // Only allow non-negative integers
                 if (dval < 0 || dval != Math.floor(dval)) {
                     updateDisplay("Error");
@@ -463,16 +957,17 @@ public class MainActivity extends AppCompatActivity {
                     return;
                 }
 
+                long start = EngineMetrics.start();
                 BigInteger result = BigInteger.ONE;
                 for (int i = 2; i <= value; i++) {
                     result = result.multiply(BigInteger.valueOf(i));
                 }
+                EngineMetrics.FACTORIAL.stop(start);
 
                 String resultStr = result.toString();
                 tvSecondary.setText(value + "!");
                 updateDisplay(resultStr);
-                currentNumber = resultStr;
-                isNewOperation = true;
+                setState(state().withValue(resultStr));
             } catch (Exception e) {
                 updateDisplay("Error");
             }
@@ -486,13 +981,8 @@ public class MainActivity extends AppCompatActivity {
      */
     private void insertConstant(double constant) {
         String constantStr = formatNumber(constant);
-        if (isNewOperation) {
-            currentNumber = constantStr;
-            isNewOperation = false;
-        } else {
-            currentNumber = constantStr;
-        }
-        updateDisplay(currentNumber);
+        setState(state().withEntry(constantStr));
+        updateDisplay(constantStr);
     }
 
     /**
@@ -503,6 +993,9 @@ public class MainActivity extends AppCompatActivity {
      */
     private void toggleScientificMode() {
         isScientificMode = !isScientificMode;
+        if (scientificPanel == null) {
+            inflateScientificPanel();
+        }
         // Show or hide the scientific functions panel
         scientificPanel.setVisibility(isScientificMode ? View.VISIBLE : View.GONE);
         // Update button text to indicate current mode
@@ -510,20 +1003,29 @@ public class MainActivity extends AppCompatActivity {
         btn.setText(isScientificMode ? "BSC" : "SCI");
     }
 
+    /**
+     * Inflates the scientific panel from its ViewStub and wires its buttons
+     *
+     * Deferred until the panel is first shown so it costs nothing at startup.
+     */
+    private void inflateScientificPanel() {
+        ViewStub stub = findViewById(R.id.scientificPanelStub);
+        scientificPanel = (HorizontalScrollView) stub.inflate();
+        setupScientificButtons();
+        setupStatisticsButtons();
+        setupLandscapeScientificButtons();
+    }
+
     /**
      * Clears all calculator state and resets to initial values
      *
-     * Resets: - Current number and operator - First operand - All state flags -
+     * Resets: - Current number, operator and expression - All state flags -
      * Display (shows "0") - Secondary display (empty)
+     *
+     * The cleared input can be brought back with undo.
      */
     private void clearAll() {
-        currentNumber = "";
-        operator = "";
-        firstOperand = 0;
-        fullExpression = "";
-        isNewOperation = true;
-        lastInputWasOperator = false;
-        openParenthesisCount = 0;
+        setState(CalculatorState.EMPTY);
         updateDisplay("0");
         tvSecondary.setText("");
     }
@@ -536,17 +1038,37 @@ public class MainActivity extends AppCompatActivity {
      *
      * Behavior: - If the number is a whole number, display without decimal
      * point - Otherwise, display with appropriate decimal places (up to 10
-     * digits)
+     * digits); the rules live in NumberFormatter, shared with the CLI
      */
     private String formatNumber(double number) {
-        // Check if number is a whole number (integer)
-        if (number == (long) number) {
-            return String.format("%d", (long) number);
-        } else {
-            // Format with decimal places, removing trailing zeros
-            String formatted = decimalFormat.format(number);
-            return formatted;
+        long start = EngineMetrics.start();
+        String formatted = numberFormatter.format(number);
+        EngineMetrics.FORMAT.stop(start);
+        return formatted;
+    }
+
+    /**
+     * Parses the current number, which may be a fraction such as "7/3" or
+     * "-1/2" left behind by the fraction mode, a prefixed integer such as
+     * "0xFF" left behind by the programmer mode, or a register reference
+     * such as "M1"
+     *
+     * @return The numeric value of currentNumber
+     */
+    private double parseCurrentNumber() throws Exception {
+        String currentNumber = state().currentNumber;
+        int register = MemoryRegisters.parse(currentNumber);
+        if (register >= 0) {
+            return session().registers.get(register);
         }
+        if (currentNumber.startsWith("0x") || currentNumber.startsWith("0b")
+                || currentNumber.startsWith("0o")) {
+            return new ProgrammerEvaluator(currentNumber, 10).evaluate();
+        }
+        if (currentNumber.indexOf('/') >= 0) {
+            return new ExpressionEvaluator(currentNumber).evaluate();
+        }
+        return Double.parseDouble(currentNumber);
     }
 
     /**
@@ -566,11 +1088,18 @@ public class MainActivity extends AppCompatActivity {
         tvDisplay.setOnLongClickListener(v -> {
             AlertDialog.Builder builder = new AlertDialog.Builder(MainActivity.this);
             builder.setTitle("Display Actions")
-                    .setItems(new CharSequence[]{"Copy", "Paste"}, (dialog, which) -> {
+                    .setItems(new CharSequence[]{"Copy", "Paste", "Paste to Statistics",
+                            "Export History", "Import History"}, (dialog, which) -> {
                 if (which == 0) {
                     copyToClipboard();
                 } else if (which == 1) {
                     pasteFromClipboard();
+                } else if (which == 2) {
+                    pasteToStatistics();
+                } else if (which == 3) {
+                    exportHistory();
+                } else if (which == 4) {
+                    importHistory();
                 }
             })
                     .show();
@@ -578,6 +1107,40 @@ public class MainActivity extends AppCompatActivity {
         });
     }
 
+    /**
+     * Sets up the engine metrics debug overlay, opened by long-pressing the
+     * secondary display
+     */
+    private void setupMetricsOverlay() {
+        tvSecondary.setOnLongClickListener(v -> {
+            showMetrics();
+            return true;
+        });
+    }
+
+    /**
+     * Shows engine counters and latency percentiles with actions to dump
+     * them to a file, reset them, or switch collection on/off
+     */
+    private void showMetrics() {
+        AlertDialog.Builder builder = new AlertDialog.Builder(this);
+        builder.setTitle("Engine Metrics" + (EngineMetrics.enabled ? "" : " (off)"))
+                .setMessage(EngineMetrics.summary())
+                .setPositiveButton("Dump to file", (dialog, which) -> {
+                    File file = new File(getFilesDir(), "engine_metrics.txt");
+                    try {
+                        EngineMetrics.dumpToFile(file);
+                        Toast.makeText(this, "Saved: " + file.getAbsolutePath(), Toast.LENGTH_LONG).show();
+                    } catch (IOException e) {
+                        Toast.makeText(this, "Could not write metrics", Toast.LENGTH_SHORT).show();
+                    }
+                })
+                .setNegativeButton("Reset", (dialog, which) -> EngineMetrics.reset())
+                .setNeutralButton(EngineMetrics.enabled ? "Disable" : "Enable",
+                        (dialog, which) -> EngineMetrics.enabled = !EngineMetrics.enabled)
+                .show();
+    }
+
     /**
      * Copies the current display value to clipboard
      */
@@ -599,40 +1162,196 @@ public class MainActivity extends AppCompatActivity {
 
         if (clipboard != null && clipboard.hasPrimaryClip()) {
             ClipData.Item item = clipboard.getPrimaryClip().getItemAt(0);
-            String pastedText = item.getText().toString().trim();
+            CharSequence clipText = item.getText();
+            if (clipText == null) {
+                Toast.makeText(this, "Invalid number in clipboard", Toast.LENGTH_SHORT).show();
+                return;
+            }
 
-            // Validate that pasted text is a valid number
-            try {
+            // Several lines: evaluate them all in the background
+            if (BulkEvaluator.isMultiLine(clipText)) {
+                pasteBulk(clipText);
+                return;
+            }
+
+            String pastedText = clipText.toString().trim();
+
+            // Programmer mode takes whole integer expressions (0xFF & 0b1010)
+            if (programmerRadix != 0) {
+                calculateProgrammerResult(pastedText, false);
+                return;
+            }
+
+            // Vector/matrix expressions such as [1,2,3]*2 or sum([4,5,6])
+            if (pastedText.indexOf('[') >= 0) {
+                calculateVectorResult(pastedText);
+                return;
+            }
+
+            // Validate that pasted text is a valid number
+            try {
                 Double.parseDouble(pastedText);
                 // If it's a valid number, set it to display
-                currentNumber = pastedText;
-                isNewOperation = true;
-                updateDisplay(currentNumber);
+                setState(state().withValue(pastedText));
+                updateDisplay(state().currentNumber);
                 Toast.makeText(this, "Pasted: " + pastedText, Toast.LENGTH_SHORT).show();
             } catch (NumberFormatException e) {
-                Toast.makeText(this, "Invalid number in clipboard", Toast.LENGTH_SHORT).show();
+                // Not a plain number: try it as a unit expression ("5 km + 300 m in mi")
+                if (!calculateUnitResult(pastedText)) {
+                    Toast.makeText(this, "Invalid number in clipboard", Toast.LENGTH_SHORT).show();
+                }
             }
         } else {
             Toast.makeText(this, "Clipboard is empty", Toast.LENGTH_SHORT).show();
         }
     }
 
+    /**
+     * Evaluates every line of a multi-line paste on a background thread and
+     * shows the totals and per-line results when done, even if the activity
+     * has been recreated meanwhile (see observePasteResults)
+     *
+     * @param text The clipboard text, read in place without copying
+     */
+    private void pasteBulk(CharSequence text) {
+        tvSecondary.setText("Evaluating…");
+        viewModel.pasteExecutor.execute(() -> viewModel.bulkResult.postValue(
+                new CalculatorViewModel.BulkPaste(text, BulkEvaluator.evaluate(text))));
+    }
+
+    /**
+     * Shows paste results once they are posted, in this activity or the one
+     * that replaces it after rotation; a result is shown only once
+     */
+    private void observePasteResults() {
+        viewModel.bulkResult.observe(this, paste -> {
+            if (paste != null) {
+                viewModel.bulkResult.setValue(null);
+                showBulkResult(paste.text, paste.result);
+            }
+        });
+        viewModel.vectorResult.observe(this, paste -> {
+            if (paste != null) {
+                viewModel.vectorResult.setValue(null);
+                showVectorResult(paste.expression, paste.result);
+            }
+        });
+        viewModel.statisticsPasteResult.observe(this, result -> {
+            if (result != null) {
+                viewModel.statisticsPasteResult.setValue(null);
+                showStatisticsPasteResult(result);
+            }
+        });
+    }
+
+    /**
+     * Shows the result of a bulk paste: the grand total goes to the display
+     * and a dialog lists column totals and per-line results
+     *
+     * List rows are formatted on demand by the adapter, so only the visible
+     * lines are ever turned into Strings.
+     */
+    private void showBulkResult(CharSequence text, BulkEvaluator.Result result) {
+        String totalStr = formatNumber(result.total);
+        tvSecondary.setText("Σ " + result.lineCount + " lines");
+        updateDisplay(totalStr);
+        setState(state().withResult(totalStr));
+
+        // Column totals are only worth listing when there is more than one
+        int summaryRows = result.columnCount > 1 ? result.columnCount : 0;
+
+        BaseAdapter adapter = new BaseAdapter() {
+            @Override
+            public int getCount() {
+                return summaryRows + result.lineCount;
+            }
+
+            @Override
+            public Object getItem(int position) {
+                if (position < summaryRows) {
+                    return "Column " + (position + 1) + " Σ = " + formatNumber(result.columnTotals[position]);
+                }
+                int line = position - summaryRows;
+                CharSequence source = text.subSequence(result.lineStarts[line], result.lineEnds[line]);
+                String value = result.isError(line) ? "Error" : formatNumber(result.results[line]);
+                return source + " = " + value;
+            }
+
+            @Override
+            public long getItemId(int position) {
+                return position;
+            }
+
+            @Override
+            public View getView(int position, View convertView, ViewGroup parent) {
+                TextView row = (TextView) (convertView != null ? convertView
+                        : getLayoutInflater().inflate(android.R.layout.simple_list_item_1, parent, false));
+                row.setText((String) getItem(position));
+                return row;
+            }
+        };
+
+        String title = "Total = " + totalStr + " (" + result.lineCount + " lines";
+        if (result.errorCount > 0) {
+            title += ", " + result.errorCount + " errors";
+        }
+        title += ")";
+
+        AlertDialog.Builder builder = new AlertDialog.Builder(this);
+        builder.setTitle(title)
+                .setAdapter(adapter, (dialog, which) -> {
+                    // Click a line to load its result into the display
+                    double value = which < summaryRows
+                            ? result.columnTotals[which] : result.results[which - summaryRows];
+                    if (!Double.isNaN(value)) {
+                        setState(state().withValue(formatNumber(value)));
+                        updateDisplay(state().currentNumber);
+                    }
+                })
+                .setNeutralButton("Export", (dialog, which) ->
+                        chooseExportFormat(RESULTS_EXPORT, () -> bulkRows(text, result)))
+                .setPositiveButton("Close", null)
+                .show();
+    }
+
+    /**
+     * The lines of a bulk paste with their results as export rows
+     */
+    private static ResultArchive.Rows bulkRows(CharSequence text, BulkEvaluator.Result result) {
+        return new ResultArchive.Rows() {
+            private int line = -1;
+
+            @Override
+            public boolean next() {
+                return ++line < result.lineCount;
+            }
+
+            @Override
+            public CharSequence expression() {
+                return text.subSequence(result.lineStarts[line], result.lineEnds[line]);
+            }
+
+            @Override
+            public double result() {
+                return result.isError(line) ? Double.NaN : result.results[line];
+            }
+        };
+    }
+
     /**
      * Records a calculation to history
      *
      * @param calculation The calculation string (e.g., "12 + 5 = 17")
      */
     private void addToHistory(String calculation) {
-        if (calculationHistory.size() >= MAX_HISTORY) {
-            calculationHistory.remove(0); // Remove oldest entry to maintain size
-        }
-        calculationHistory.add(calculation);
+        session().addToHistory(calculation);
     }
 
     /**
      * Shows calculation history in a dialog
      */
     private void showHistory() {
+        List<String> calculationHistory = session().calculationHistory;
         if (calculationHistory.isEmpty()) {
             Toast.makeText(this, "No history yet", Toast.LENGTH_SHORT).show();
             return;
@@ -648,9 +1367,8 @@ public class MainActivity extends AppCompatActivity {
                     String selectedEntry = historyArray[which];
                     // Extract the result (after "=")
                     String result = selectedEntry.substring(selectedEntry.lastIndexOf("=") + 1).trim();
-                    currentNumber = result;
-                    isNewOperation = true;
-                    updateDisplay(currentNumber);
+                    setState(state().withValue(result));
+                    updateDisplay(state().currentNumber);
                     Toast.makeText(MainActivity.this, "Loaded: " + result, Toast.LENGTH_SHORT).show();
                 })
                 .setNegativeButton("Clear History", (dialog, which) -> {
@@ -663,51 +1381,265 @@ public class MainActivity extends AppCompatActivity {
     }
 
     /**
-     * Saves history to SharedPreferences storage
+     * Saves every session's history to SharedPreferences storage
+     *
+     * Sessions are stored by position (see sessionKey); keys of sessions
+     * that were closed since the last save are removed.
      */
     private void saveHistoryToStorage() {
+        if (!isStorageLoaded) {
+            return; // Saving now would overwrite history that has not been read yet
+        }
+        long start = EngineMetrics.start();
         SharedPreferences prefs = getSharedPreferences("calculator_prefs", MODE_PRIVATE);
         SharedPreferences.Editor editor = prefs.edit();
-        editor.putInt("history_count", calculationHistory.size());
-
-        for (int i = 0; i < calculationHistory.size(); i++) {
-            editor.putString("history_" + i, calculationHistory.get(i));
+        int sessionCount = viewModel.sessions.size();
+        int storedCount = prefs.getInt("session_count", 1);
+        editor.putInt("session_count", sessionCount);
+
+        for (int s = 0; s < sessionCount; s++) {
+            List<String> calculationHistory = viewModel.sessions.get(s).calculationHistory;
+            editor.putInt(sessionKey(s, "history_count"), calculationHistory.size());
+            for (int i = 0; i < calculationHistory.size(); i++) {
+                editor.putString(sessionKey(s, "history_" + i), calculationHistory.get(i));
+            }
+        }
+        for (int s = sessionCount; s < storedCount; s++) {
+            int count = prefs.getInt(sessionKey(s, "history_count"), 0);
+            for (int i = 0; i < count; i++) {
+                editor.remove(sessionKey(s, "history_" + i));
+            }
+            editor.remove(sessionKey(s, "history_count"));
+            editor.remove(sessionKey(s, "memory_value"));
+            editor.remove(sessionKey(s, "has_memory"));
+            editor.remove(sessionKey(s, "memory_registers"));
+            for (int i = 0; i < MemoryRegisters.COUNT; i++) {
+                editor.remove(sessionKey(s, "memory_name_" + i));
+            }
         }
         editor.apply();
+        EngineMetrics.HISTORY_SAVE.stop(start);
     }
 
     /**
-     * Loads history from SharedPreferences storage
+     * Loads every session's history and memory from SharedPreferences storage
+     *
+     * @param into List receiving one session per stored session, history
+     * oldest first (safe to call off the main thread)
      */
-    private void loadHistoryFromStorage() {
+    private void loadSessionsFromStorage(SharedPreferences prefs, List<CalculatorSession> into) {
+        long start = EngineMetrics.start();
+        int sessionCount = Math.max(1, prefs.getInt("session_count", 1));
+
+        for (int s = 0; s < sessionCount; s++) {
+            CalculatorSession session = new CalculatorSession(s + 1);
+            int count = prefs.getInt(sessionKey(s, "history_count"), 0);
+            for (int i = 0; i < count; i++) {
+                String entry = prefs.getString(sessionKey(s, "history_" + i), "");
+                if (!entry.isEmpty()) {
+                    session.calculationHistory.add(entry);
+                }
+            }
+            readRegisters(prefs, s, session.registers);
+            into.add(session);
+        }
+        EngineMetrics.HISTORY_LOAD.stop(start);
+    }
+
+    // ===== History Export and Import =====
+    /**
+     * Exports the stored history of every session, streamed from storage
+     * (see HistoryRows), after saving the current one
+     */
+    private void exportHistory() {
+        if (!isStorageLoaded) {
+            Toast.makeText(this, "History is still loading", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        saveHistoryToStorage();
         SharedPreferences prefs = getSharedPreferences("calculator_prefs", MODE_PRIVATE);
-        int count = prefs.getInt("history_count", 0);
+        chooseExportFormat(HISTORY_EXPORT, () -> new HistoryRows(prefs));
+    }
 
-        for (int i = 0; i < count; i++) {
-            String entry = prefs.getString("history_" + i, "");
-            if (!entry.isEmpty()) {
-                calculationHistory.add(entry);
+    /**
+     * Asks for CSV or the binary columnar format and exports the rows to
+     * name.csv or name.calc in the app's files directory
+     */
+    private void chooseExportFormat(String name, Supplier<ResultArchive.Rows> rows) {
+        AlertDialog.Builder builder = new AlertDialog.Builder(this);
+        builder.setTitle("Export Format")
+                .setItems(new CharSequence[]{"CSV", "Binary (columnar)"}, (dialog, which) -> {
+                    boolean columnar = which == 1;
+                    exportRows(rows.get(), new File(getFilesDir(), name + (columnar ? ".calc" : ".csv")), columnar);
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    /**
+     * Writes rows to a file on the background thread, one row at a time,
+     * and reports the path and row count
+     */
+    private void exportRows(ResultArchive.Rows rows, File file, boolean columnar) {
+        backgroundExecutor.execute(() -> {
+            String message;
+            try (RandomAccessFile access = new RandomAccessFile(file, "rw")) {
+                access.setLength(0);
+                FileChannel out = access.getChannel();
+                long count = columnar
+                        ? ResultArchive.writeColumnar(rows, out, getCacheDir())
+                        : ResultArchive.writeCsv(rows, out);
+                message = "Exported " + count + " rows: " + file.getAbsolutePath();
+            } catch (IOException e) {
+                message = "Could not export: " + e.getMessage();
             }
+            String toast = message;
+            runOnUiThread(() -> Toast.makeText(this, toast, Toast.LENGTH_LONG).show());
+        });
+    }
+
+    /**
+     * Imports the newest exported history file (CSV or columnar) into the
+     * current session
+     *
+     * Only the last MAX_HISTORY rows can be kept, so rows are streamed
+     * through a window of that size; a columnar file is mapped and read from
+     * its last rows directly.
+     */
+    private void importHistory() {
+        if (!isStorageLoaded) {
+            Toast.makeText(this, "History is still loading", Toast.LENGTH_SHORT).show();
+            return;
         }
+        File csv = new File(getFilesDir(), HISTORY_EXPORT + ".csv");
+        File columnar = new File(getFilesDir(), HISTORY_EXPORT + ".calc");
+        File file = columnar.lastModified() > csv.lastModified() ? columnar : csv;
+        if (!file.exists()) {
+            Toast.makeText(this, "No exported history to import", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        CalculatorSession session = session();
+        backgroundExecutor.execute(() -> {
+            NumberFormatter formatter = new NumberFormatter(); // Not thread-safe: one for this thread
+            ArrayDeque<String> entries = new ArrayDeque<>();
+            String error = null;
+            try (RandomAccessFile access = new RandomAccessFile(file, "r")) {
+                FileChannel in = access.getChannel();
+                ResultArchive.Rows rows;
+                if (ResultArchive.isColumnar(in)) {
+                    ResultArchive.Columns columns = ResultArchive.readColumnar(in);
+                    rows = columns.rows(Math.max(0, columns.size() - CalculatorSession.MAX_HISTORY));
+                } else {
+                    rows = ResultArchive.readCsv(in);
+                }
+                while (rows.next()) {
+                    if (entries.size() == CalculatorSession.MAX_HISTORY) {
+                        entries.removeFirst();
+                    }
+                    double value = rows.result();
+                    entries.add(rows.expression() + " = "
+                            + (Double.isNaN(value) ? "Error" : formatter.format(value)));
+                }
+            } catch (IOException e) {
+                error = "Could not import: " + e.getMessage();
+            }
+            String failure = error;
+            runOnUiThread(() -> {
+                if (failure != null) {
+                    Toast.makeText(this, failure, Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                for (String entry : entries) {
+                    session.addToHistory(entry);
+                }
+                saveHistoryToStorage();
+                Toast.makeText(this, "Imported " + entries.size() + " entries from " + file.getName(),
+                        Toast.LENGTH_SHORT).show();
+            });
+        });
     }
 
-    // ===== Expression Evaluation with Proper Operator Precedence =====
+    // ===== Sessions (Tabs) =====
+    /**
+     * Shows the sessions in a dialog: tap one to switch to it, or open a new
+     * one or close the current one
+     */
+    private void showSessions() {
+        String[] names = new String[viewModel.sessions.size()];
+        for (int i = 0; i < names.length; i++) {
+            CalculatorSession session = viewModel.sessions.get(i);
+            String display = session.history.present.currentNumber;
+            names[i] = display.isEmpty() ? session.name() : session.name() + "  ·  " + display;
+        }
+
+        AlertDialog.Builder builder = new AlertDialog.Builder(this);
+        builder.setTitle("Tabs")
+                .setSingleChoiceItems(names, viewModel.current, (dialog, which) -> {
+                    switchSession(which);
+                    dialog.dismiss();
+                })
+                .setPositiveButton("New Tab", (dialog, which) -> {
+                    viewModel.addSession();
+                    switchSession(viewModel.sessions.size() - 1);
+                })
+                .setNegativeButton("Close Tab", (dialog, which) -> closeSession())
+                .setNeutralButton("Cancel", null)
+                .show();
+    }
+
+    /**
+     * Shows another session's input state, history and memory
+     */
+    private void switchSession(int index) {
+        viewModel.current = index;
+        renderState();
+        updateSessionButton();
+    }
+
+    /**
+     * Closes the current session together with its history and memory; the
+     * last session cannot be closed
+     */
+    private void closeSession() {
+        if (viewModel.sessions.size() == 1) {
+            Toast.makeText(this, "Cannot close the last tab", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        String name = session().name();
+        viewModel.sessions.remove(viewModel.current);
+        switchSession(Math.min(viewModel.current, viewModel.sessions.size() - 1));
+        // Later sessions moved up a storage slot
+        for (CalculatorSession session : viewModel.sessions) {
+            session.registers.markDirty();
+        }
+        saveHistoryToStorage();
+        saveMemoryToStorage();
+        Toast.makeText(this, name + " closed", Toast.LENGTH_SHORT).show();
+    }
+
+    private void updateSessionButton() {
+        if (btnSession != null) {
+            btnSession.setText(session().name());
+        }
+    }
+
+    // ===== Memory Registers =====
     /**
      * Adds current display value to memory (M+) Stores the current display
      * value added to existing memory value
      */
     private void memoryAdd() {
-        if (!currentNumber.isEmpty()) {
+        if (!state().currentNumber.isEmpty()) {
             try {
-                double value = Double.parseDouble(currentNumber);
-                memoryValue += value;
-                hasMemory = true;
-                saveMemoryToStorage();
-                Toast.makeText(this, "M+ : " + formatNumber(memoryValue), Toast.LENGTH_SHORT).show();
+                double value = parseCurrentNumber();
+                MemoryRegisters registers = session().registers;
+                registers.add(0, value);
+                scheduleMemorySave();
+                Toast.makeText(this, "M+ : " + formatNumber(registers.get(0)), Toast.LENGTH_SHORT).show();
             } catch (Exception e) {
                 Toast.makeText(this, "Invalid number", Toast.LENGTH_SHORT).show();
             }
-        } else if (!operator.isEmpty()) {
+        } else if (!state().operator.isEmpty()) {
             // If in middle of calculation, use the result so far
             Toast.makeText(this, "Complete current calculation first", Toast.LENGTH_SHORT).show();
         }
@@ -718,17 +1650,17 @@ public class MainActivity extends AppCompatActivity {
      * display value subtracted from existing memory value
      */
     private void memorySubtract() {
-        if (!currentNumber.isEmpty()) {
+        if (!state().currentNumber.isEmpty()) {
             try {
-                double value = Double.parseDouble(currentNumber);
-                memoryValue -= value;
-                hasMemory = true;
-                saveMemoryToStorage();
-                Toast.makeText(this, "M− : " + formatNumber(memoryValue), Toast.LENGTH_SHORT).show();
+                double value = parseCurrentNumber();
+                MemoryRegisters registers = session().registers;
+                registers.add(0, -value);
+                scheduleMemorySave();
+                Toast.makeText(this, "M− : " + formatNumber(registers.get(0)), Toast.LENGTH_SHORT).show();
             } catch (Exception e) {
                 Toast.makeText(this, "Invalid number", Toast.LENGTH_SHORT).show();
             }
-        } else if (!operator.isEmpty()) {
+        } else if (!state().operator.isEmpty()) {
             // If in middle of calculation, use the result so far
             Toast.makeText(this, "Complete current calculation first", Toast.LENGTH_SHORT).show();
         }
@@ -738,24 +1670,17 @@ public class MainActivity extends AppCompatActivity {
      * Recalls value from memory (MR) Displays the stored memory value
      */
     private void memoryRecall() {
-        if (hasMemory) {
-            currentNumber = formatNumber(memoryValue);
-            isNewOperation = true;
-            updateDisplay(currentNumber);
-            Toast.makeText(this, "MR : " + currentNumber, Toast.LENGTH_SHORT).show();
-        } else {
-            Toast.makeText(this, "Memory is empty", Toast.LENGTH_SHORT).show();
-        }
+        recallRegister(0);
     }
 
     /**
      * Clears memory (MC) Resets memory value to 0 and clears the flag
      */
     private void memoryClear() {
-        if (hasMemory) {
-            memoryValue = 0;
-            hasMemory = false;
-            saveMemoryToStorage();
+        MemoryRegisters registers = session().registers;
+        if (registers.isSet(0)) {
+            registers.clear(0);
+            scheduleMemorySave();
             Toast.makeText(this, "Memory cleared", Toast.LENGTH_SHORT).show();
         } else {
             Toast.makeText(this, "Memory is already empty", Toast.LENGTH_SHORT).show();
@@ -763,52 +1688,434 @@ public class MainActivity extends AppCompatActivity {
     }
 
     /**
-     * Saves memory value to SharedPreferences storage
+     * Shows the registers of the current tab (M, M1..M9) with their names
+     * and values; tapping one offers what can be done with it
+     */
+    private void showRegisters() {
+        MemoryRegisters registers = session().registers;
+        String[] rows = new String[MemoryRegisters.COUNT];
+        for (int i = 0; i < rows.length; i++) {
+            String name = registers.name(i);
+            String label = name == null ? MemoryRegisters.label(i) : MemoryRegisters.label(i) + " " + name;
+            try {
+                rows[i] = label + " = " + formatNumber(registers.get(i));
+            } catch (Exception e) {
+                rows[i] = label + " (empty)";
+            }
+        }
+
+        AlertDialog.Builder builder = new AlertDialog.Builder(this);
+        builder.setTitle("Memory Registers")
+                .setItems(rows, (dialog, which) -> showRegisterActions(which))
+                .setPositiveButton("Close", null)
+                .show();
+    }
+
+    /**
+     * Offers the actions for one register: use it in the expression, recall
+     * its value, store the current number in it, clear or rename it
+     */
+    private void showRegisterActions(int register) {
+        String label = MemoryRegisters.label(register);
+        String[] actions = {"Use " + label + " in Expression", "Recall", "Store Current Number", "Clear", "Rename"};
+
+        AlertDialog.Builder builder = new AlertDialog.Builder(this);
+        builder.setTitle(label)
+                .setItems(actions, (dialog, which) -> {
+                    MemoryRegisters registers = session().registers;
+                    switch (which) {
+                        case 0:
+                            // A reference: the expression reads the register when evaluated
+                            setState(state().withValue(label));
+                            updateDisplay(label);
+                            break;
+                        case 1:
+                            recallRegister(register);
+                            break;
+                        case 2:
+                            storeRegister(register);
+                            break;
+                        case 3:
+                            registers.clear(register);
+                            scheduleMemorySave();
+                            Toast.makeText(this, label + " cleared", Toast.LENGTH_SHORT).show();
+                            break;
+                        default:
+                            renameRegister(register);
+                            break;
+                    }
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    /**
+     * Puts the value of a register into the display
+     */
+    private void recallRegister(int register) {
+        MemoryRegisters registers = session().registers;
+        if (registers.isSet(register)) {
+            try {
+                setState(state().withValue(formatNumber(registers.get(register))));
+                updateDisplay(state().currentNumber);
+                Toast.makeText(this, "MR : " + state().currentNumber, Toast.LENGTH_SHORT).show();
+            } catch (Exception e) {
+                Toast.makeText(this, e.getMessage(), Toast.LENGTH_SHORT).show();
+            }
+        } else {
+            Toast.makeText(this, "Memory is empty", Toast.LENGTH_SHORT).show();
+        }
+    }
+
+    /**
+     * Stores the current display value in a register
+     */
+    private void storeRegister(int register) {
+        try {
+            double value = parseCurrentNumber();
+            session().registers.set(register, value);
+            scheduleMemorySave();
+            Toast.makeText(this, MemoryRegisters.label(register) + " = " + formatNumber(value),
+                    Toast.LENGTH_SHORT).show();
+        } catch (Exception e) {
+            Toast.makeText(this, "Invalid number", Toast.LENGTH_SHORT).show();
+        }
+    }
+
+    /**
+     * Asks for a name for a register; an empty name removes it
+     */
+    private void renameRegister(int register) {
+        EditText input = new EditText(this);
+        input.setSingleLine(true);
+        String name = session().registers.name(register);
+        input.setText(name == null ? "" : name);
+
+        AlertDialog.Builder builder = new AlertDialog.Builder(this);
+        builder.setTitle("Name for " + MemoryRegisters.label(register))
+                .setView(input)
+                .setPositiveButton("OK", (dialog, which) -> {
+                    session().registers.setName(register, input.getText().toString());
+                    scheduleMemorySave();
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    /**
+     * Saves the registers a little later, so a burst of changes (M+ pressed
+     * repeatedly) is written to storage once
+     */
+    private void scheduleMemorySave() {
+        mainHandler.removeCallbacks(memorySaver);
+        mainHandler.postDelayed(memorySaver, MEMORY_SAVE_DELAY_MS);
+    }
+
+    /**
+     * Saves the register banks that changed since the last save to
+     * SharedPreferences storage
+     *
+     * The banks are copied here on the UI thread; encoding and the editor
+     * commit happen on the storage thread, in one batch for all tabs.
      */
     private void saveMemoryToStorage() {
+        mainHandler.removeCallbacks(memorySaver);
+        if (!isStorageLoaded) {
+            return; // Merged with the stored value once loading finishes
+        }
+        List<Integer> changed = new ArrayList<>();
+        List<double[]> values = new ArrayList<>();
+        List<String[]> names = new ArrayList<>();
+        for (int s = 0; s < viewModel.sessions.size(); s++) {
+            MemoryRegisters registers = viewModel.sessions.get(s).registers;
+            if (registers.takeDirty()) {
+                changed.add(s);
+                values.add(registers.toArray());
+                String[] registerNames = new String[MemoryRegisters.COUNT];
+                for (int i = 0; i < registerNames.length; i++) {
+                    registerNames[i] = registers.name(i);
+                }
+                names.add(registerNames);
+            }
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+
         SharedPreferences prefs = getSharedPreferences("calculator_prefs", MODE_PRIVATE);
-        SharedPreferences.Editor editor = prefs.edit();
-        editor.putFloat("memory_value", (float) memoryValue);
-        editor.putBoolean("has_memory", hasMemory);
-        editor.apply();
+        STORAGE_EXECUTOR.execute(() -> {
+            long start = EngineMetrics.start();
+            SharedPreferences.Editor editor = prefs.edit();
+            for (int c = 0; c < changed.size(); c++) {
+                int s = changed.get(c);
+                editor.putString(sessionKey(s, "memory_registers"), encodeDoubles(values.get(c)));
+                for (int i = 0; i < MemoryRegisters.COUNT; i++) {
+                    String name = names.get(c)[i];
+                    if (name == null) {
+                        editor.remove(sessionKey(s, "memory_name_" + i));
+                    } else {
+                        editor.putString(sessionKey(s, "memory_name_" + i), name);
+                    }
+                }
+                // Replaced by memory_registers
+                editor.remove(sessionKey(s, "memory_value"));
+                editor.remove(sessionKey(s, "has_memory"));
+            }
+            editor.apply();
+            EngineMetrics.MEMORY_SAVE.stop(start);
+        });
+    }
+
+    /**
+     * Reads one session's registers from storage, including the single
+     * memory value saved before registers existed
+     */
+    private static void readRegisters(SharedPreferences prefs, int session, MemoryRegisters into) {
+        String encoded = prefs.getString(sessionKey(session, "memory_registers"), null);
+        if (encoded != null) {
+            double[] state = decodeDoubles(encoded);
+            if (state != null) {
+                into.restore(state);
+            }
+        } else if (prefs.getBoolean(sessionKey(session, "has_memory"), false)) {
+            into.set(0, prefs.getFloat(sessionKey(session, "memory_value"), 0));
+        }
+        for (int i = 0; i < MemoryRegisters.COUNT; i++) {
+            into.setName(i, prefs.getString(sessionKey(session, "memory_name_" + i), null));
+        }
+        into.takeDirty();
+    }
+
+    // ===== Statistics Functions =====
+    /**
+     * Whether statistics can be used: not before the stored statistics have
+     * been loaded, as restoring them would drop new values, and not while a
+     * paste adds values on the background thread
+     */
+    private boolean isStatisticsReady() {
+        if (!isStorageLoaded) {
+            Toast.makeText(this, "Statistics are still loading", Toast.LENGTH_SHORT).show();
+            return false;
+        }
+        if (viewModel.isStatisticsPasting) {
+            Toast.makeText(this, "Still adding pasted values", Toast.LENGTH_SHORT).show();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Adds the current display value to the statistics accumulators (Σ+)
+     */
+    private void statisticsAdd() {
+        if (!isStatisticsReady()) {
+            return;
+        }
+        if (!state().currentNumber.isEmpty()) {
+            try {
+                double value = parseCurrentNumber();
+                statistics.add(value);
+                setState(state().withValue(state().currentNumber));
+                Toast.makeText(this, "n = " + statistics.getCount(), Toast.LENGTH_SHORT).show();
+            } catch (Exception e) {
+                Toast.makeText(this, "Invalid number", Toast.LENGTH_SHORT).show();
+            }
+        } else if (!state().operator.isEmpty()) {
+            Toast.makeText(this, "Complete current calculation first", Toast.LENGTH_SHORT).show();
+        }
+    }
+
+    /**
+     * Shows the statistics summary in a dialog
+     */
+    private void showStatistics() {
+        if (!isStatisticsReady()) {
+            return;
+        }
+        if (statistics.getCount() == 0) {
+            Toast.makeText(this, "No data yet", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        String[] labels = {
+            "n = ", "Σx = ", "Mean = ", "Variance = ", "Std dev = ", "Min = ", "Max = ",
+            "Q1 ≈ ", "Median ≈ ", "Q3 ≈ ", "Slope = ", "Intercept = ", "r = "
+        };
+        double[] values = {
+            statistics.getCount(),
+            statistics.getSum(),
+            statistics.getMean(),
+            statistics.getVariance(),
+            statistics.getStandardDeviation(),
+            statistics.getMin(),
+            statistics.getMax(),
+            statistics.getQuantile(0),
+            statistics.getQuantile(1),
+            statistics.getQuantile(2),
+            statistics.getSlope(),
+            statistics.getIntercept(),
+            statistics.getCorrelation()
+        };
+        String[] lines = new String[labels.length];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = labels[i] + formatNumber(values[i]);
+        }
+
+        AlertDialog.Builder builder = new AlertDialog.Builder(this);
+        builder.setTitle("Statistics")
+                .setItems(lines, (dialog, which) -> {
+                    // Click a line to load its value into the display
+                    if (Double.isNaN(values[which]) || Double.isInfinite(values[which])) {
+                        Toast.makeText(MainActivity.this, "Not enough data", Toast.LENGTH_SHORT).show();
+                        return;
+                    }
+                    setState(state().withValue(formatNumber(values[which])));
+                    updateDisplay(state().currentNumber);
+                })
+                .setNegativeButton("Clear Data", (dialog, which) -> {
+                    if (!isStatisticsReady()) {
+                        return;
+                    }
+                    statistics.clear();
+                    saveStatisticsToStorage();
+                    Toast.makeText(MainActivity.this, "Statistics cleared", Toast.LENGTH_SHORT).show();
+                })
+                .setPositiveButton("Close", null)
+                .show();
+    }
+
+    /**
+     * Adds every number found in the clipboard to the statistics accumulators
+     *
+     * The clipboard text is scanned in place on the background thread (see
+     * BulkEvaluator.addStatistics): several lines of two numbers each are
+     * (x, y) pairs for the regression, anything else a list of values.
+     * Other statistics input waits until the values are added. The paste
+     * runs on the ViewModel's thread into the ViewModel's accumulators, so
+     * it carries on across rotation and the new activity saves the result.
+     */
+    private void pasteToStatistics() {
+        if (!isStatisticsReady()) {
+            return;
+        }
+        ClipboardManager clipboard = (ClipboardManager) getSystemService(Context.CLIPBOARD_SERVICE);
+        if (clipboard == null || !clipboard.hasPrimaryClip()) {
+            Toast.makeText(this, "Clipboard is empty", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        CharSequence text = clipboard.getPrimaryClip().getItemAt(0).getText();
+        if (text == null) {
+            Toast.makeText(this, "Clipboard is empty", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        viewModel.isStatisticsPasting = true;
+        StreamingStatistics into = statistics;
+        viewModel.pasteExecutor.execute(() -> {
+            BulkEvaluator.StatisticsResult result;
+            try {
+                result = BulkEvaluator.addStatistics(text, into);
+            } finally {
+                viewModel.isStatisticsPasting = false; // The values are all in: saving is safe again
+            }
+            viewModel.statisticsPasteResult.postValue(result);
+        });
     }
 
     /**
-     * Loads memory value from SharedPreferences storage Called during app
-     * startup to restore previous memory state
+     * Saves the statistics and reports what a paste added, once it is done
+     * (see pasteToStatistics and observePasteResults)
      */
-    private void loadMemoryFromStorage() {
+    private void showStatisticsPasteResult(BulkEvaluator.StatisticsResult result) {
+        saveStatisticsToStorage();
+        String message = "Added " + result.added + (result.pairs ? " (x, y) pair" : " value")
+                + (result.added == 1 ? "" : "s");
+        if (result.rejected > 0) {
+            message += ", skipped " + result.rejected;
+        }
+        Toast.makeText(this, message, Toast.LENGTH_SHORT).show();
+    }
+
+    /**
+     * Saves the statistics accumulators to SharedPreferences storage
+     *
+     * The state has a fixed size, so it is stored as one comma separated
+     * string of raw double bits regardless of how many values were added.
+     */
+    private void saveStatisticsToStorage() {
+        if (!isStorageLoaded || viewModel.isStatisticsPasting) {
+            return; // A paste in progress saves when it is done
+        }
         SharedPreferences prefs = getSharedPreferences("calculator_prefs", MODE_PRIVATE);
-        memoryValue = prefs.getFloat("memory_value", 0);
-        hasMemory = prefs.getBoolean("has_memory", false);
+        prefs.edit().putString("statistics_state", encodeDoubles(statistics.toArray())).apply();
     }
 
-    // ===== Landscape-Specific Functions =====
     /**
-     * Handles backspace - removes the last digit from current number
+     * Reads the saved statistics accumulator state
+     *
+     * @return The state for StreamingStatistics.restore(), or null if none is
+     * saved (safe to call off the main thread)
      */
-    private void handleBackspace() {
-        if (!currentNumber.isEmpty()) {
-            currentNumber = currentNumber.substring(0, currentNumber.length() - 1);
-            if (currentNumber.isEmpty()) {
-                updateDisplay("0");
-            } else {
-                updateDisplay(currentNumber);
+    private double[] readStatisticsState(SharedPreferences prefs) {
+        String saved = prefs.getString("statistics_state", "");
+        if (saved.isEmpty()) {
+            return null;
+        }
+        return decodeDoubles(saved);
+    }
+
+    /**
+     * Stores doubles as one comma separated string of their raw bits in hex,
+     * so they come back exactly
+     */
+    private static String encodeDoubles(double[] values) {
+        StringBuilder sb = new StringBuilder(values.length * 17);
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                sb.append(',');
             }
+            sb.append(Long.toHexString(Double.doubleToRawLongBits(values[i])));
         }
+        return sb.toString();
+    }
+
+    /**
+     * Reads doubles written by encodeDoubles(); null if the text is damaged
+     */
+    private static double[] decodeDoubles(String encoded) {
+        try {
+            String[] parts = encoded.split(",");
+            double[] values = new double[parts.length];
+            for (int i = 0; i < parts.length; i++) {
+                values[i] = Double.longBitsToDouble(Long.parseUnsignedLong(parts[i], 16));
+            }
+            return values;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // ===== Landscape-Specific Functions =====
+    /**
+     * Handles backspace - removes the last digit from current number, or the
+     * token before the cursor when no number is being typed
+     */
+    private void handleBackspace() {
+        setState(state().backspace());
+        renderState();
     }
 
     /**
      * Toggles the sign of the current number (positive/negative)
      */
     private void handleNegate() {
-        if (!currentNumber.isEmpty()) {
+        if (!state().currentNumber.isEmpty()) {
             try {
-                double value = Double.parseDouble(currentNumber);
+                double value = parseCurrentNumber();
                 value = -value;
-                currentNumber = formatNumber(value);
-                updateDisplay(currentNumber);
-                isNewOperation = true;
+                setState(state().withValue(formatNumber(value)));
+                updateDisplay(state().currentNumber);
             } catch (Exception e) {
                 Toast.makeText(this, "Invalid number", Toast.LENGTH_SHORT).show();
             }
@@ -819,9 +2126,9 @@ public class MainActivity extends AppCompatActivity {
      * Calculates reciprocal (1/x) of the current number
      */
     private void calculateReciprocal() {
-        if (!currentNumber.isEmpty()) {
+        if (!state().currentNumber.isEmpty()) {
             try {
-                double value = Double.parseDouble(currentNumber);
+                double value = parseCurrentNumber();
                 if (value == 0) {
                     updateDisplay("Error");
                     return;
@@ -830,8 +2137,7 @@ public class MainActivity extends AppCompatActivity {
                 String resultStr = formatNumber(result);
                 tvSecondary.setText("1/(" + formatNumber(value) + ")");
                 updateDisplay(resultStr);
-                currentNumber = resultStr;
-                isNewOperation = true;
+                setState(state().withValue(resultStr));
             } catch (Exception e) {
                 updateDisplay("Error");
             }
@@ -842,15 +2148,14 @@ public class MainActivity extends AppCompatActivity {
      * Calculates square of the current number (x²)
      */
     private void calculateSquare() {
-        if (!currentNumber.isEmpty()) {
+        if (!state().currentNumber.isEmpty()) {
             try {
-                double value = Double.parseDouble(currentNumber);
+                double value = parseCurrentNumber();
                 double result = value * value;
                 String resultStr = formatNumber(result);
                 tvSecondary.setText("(" + formatNumber(value) + ")²");
                 updateDisplay(resultStr);
-                currentNumber = resultStr;
-                isNewOperation = true;
+                setState(state().withValue(resultStr));
             } catch (Exception e) {
                 updateDisplay("Error");
             }
@@ -861,15 +2166,14 @@ public class MainActivity extends AppCompatActivity {
      * Calculates cube of the current number (x³)
      */
     private void calculateCube() {
-        if (!currentNumber.isEmpty()) {
+        if (!state().currentNumber.isEmpty()) {
             try {
-                double value = Double.parseDouble(currentNumber);
+                double value = parseCurrentNumber();
                 double result = value * value * value;
                 String resultStr = formatNumber(result);
                 tvSecondary.setText("(" + formatNumber(value) + ")³");
                 updateDisplay(resultStr);
-                currentNumber = resultStr;
-                isNewOperation = true;
+                setState(state().withValue(resultStr));
             } catch (Exception e) {
                 updateDisplay("Error");
             }
@@ -880,15 +2184,14 @@ public class MainActivity extends AppCompatActivity {
      * Calculates absolute value of the current number (|x|)
      */
     private void calculateAbsolute() {
-        if (!currentNumber.isEmpty()) {
+        if (!state().currentNumber.isEmpty()) {
             try {
-                double value = Double.parseDouble(currentNumber);
+                double value = parseCurrentNumber();
                 double result = Math.abs(value);
                 String resultStr = formatNumber(result);
                 tvSecondary.setText("|" + formatNumber(value) + "|");
                 updateDisplay(resultStr);
-                currentNumber = resultStr;
-                isNewOperation = true;
+                setState(state().withValue(resultStr));
             } catch (Exception e) {
                 updateDisplay("Error");
             }
@@ -904,30 +2207,10 @@ public class MainActivity extends AppCompatActivity {
      * and evaluated properly
      */
     private void handleParenthesis() {
-        if (openParenthesisCount == 0 || lastInputWasOperator) {
-            // Add opening parenthesis
-            if (!currentNumber.isEmpty()) {
-                fullExpression += currentNumber + " ( ";
-            } else {
-                fullExpression += "( ";
-            }
-            currentNumber = "";
-            openParenthesisCount++;
-            lastInputWasOperator = false;
-        } else if (openParenthesisCount > 0) {
-            // Add closing parenthesis
-            if (!currentNumber.isEmpty()) {
-                fullExpression += currentNumber + " ) ";
-            } else {
-                fullExpression += " ) ";
-            }
-            currentNumber = "";
-            openParenthesisCount--;
-            lastInputWasOperator = false;
-        }
+        setState(state().enterParenthesis());
 
         // Display the expression with parentheses
-        String displayText = fullExpression + currentNumber;
+        String displayText = state().completeExpression();
         tvSecondary.setText(displayText);
         updateDisplay(displayText);
     }
@@ -938,150 +2221,112 @@ public class MainActivity extends AppCompatActivity {
      * PEMDAS/BODMAS: Parentheses, Exponents, Multiplication/Division,
      * Addition/Subtraction
      *
-     * @param expression The mathematical expression to evaluate
+     * Goes through the cache shared by all sessions, so an expression
+     * already calculated in any tab is neither parsed nor computed again.
+     * Expressions that read memory registers are only kept compiled.
+     *
+     * @param expression The tokens of the expression, as entered
      * @return The result of the evaluation
      */
-    private double evaluateExpression(String expression) throws Exception {
-        expression = expression.replaceAll("\\s+", ""); // Remove spaces
-        expression = expression.replace("×", "*").replace("÷", "/"); // Normalize operators
-        ExpressionEvaluator evaluator = new ExpressionEvaluator(expression);
-        return evaluator.evaluate();
+    private double evaluateExpression(TokenList expression) throws Exception {
+        long start = EngineMetrics.start();
+        try {
+            return ExpressionCache.SHARED.evaluate(expression, session().registers);
+        } catch (Exception e) {
+            EngineMetrics.EVALUATION_ERRORS.increment();
+            throw e;
+        } finally {
+            EngineMetrics.EVALUATE.stop(start);
+        }
     }
 
+    // ===== Vector/Matrix Evaluation =====
     /**
-     * Expression parser and evaluator using recursive descent parsing
-     * Implements proper operator precedence
+     * Evaluates a vector/matrix expression on a background thread and shows
+     * the result, also after the activity has been recreated (see
+     * observePasteResults)
+     *
+     * @param expression Expression using [..] literals, element-wise
+     * operators and vector functions (sum, mean, dot, matmul, ...)
+     *
+     * A scalar result becomes the current number so it can be used in further
+     * calculations; a vector or matrix result is only displayed.
      */
-    private class ExpressionEvaluator {
-
-        private String expression;
-        private int position = 0;
-
-        ExpressionEvaluator(String expr) {
-            this.expression = expr;
-        }
-
-        /**
-         * Main evaluation method - starts with lowest precedence
-         * (addition/subtraction)
-         */
-        double evaluate() throws Exception {
-            return parseAdditionSubtraction();
-        }
-
-        /**
-         * Handles addition and subtraction (lowest precedence)
-         */
-        private double parseAdditionSubtraction() throws Exception {
-            double result = parseMultiplicationDivision();
-
-            while (position < expression.length() && (peek() == '+' || peek() == '-')) {
-                char operator = expression.charAt(position++);
-                double right = parseMultiplicationDivision();
-
-                if (operator == '+') {
-                    result += right;
-                } else {
-                    result -= right;
-                }
+    private void calculateVectorResult(String expression) {
+        tvSecondary.setText("Evaluating…");
+        viewModel.pasteExecutor.execute(() -> {
+            Matrix result;
+            try {
+                String normalized = expression.replaceAll("\\s+", "")
+                        .replace("×", "*").replace("÷", "/");
+                result = new VectorEvaluator(normalized).evaluate();
+            } catch (Exception e) {
+                result = null;
             }
-            return result;
-        }
-
-        /**
-         * Handles multiplication and division (medium precedence)
-         */
-        private double parseMultiplicationDivision() throws Exception {
-            double result = parseExponentiation();
-
-            while (position < expression.length() && (peek() == '*' || peek() == '/')) {
-                char operator = expression.charAt(position++);
-                double right = parseExponentiation();
+            viewModel.vectorResult.postValue(new CalculatorViewModel.VectorPaste(expression, result));
+        });
+    }
 
-                if (operator == '*') {
-                    result *= right;
-                } else {
-                    if (right == 0) {
-                        throw new Exception("Division by zero");
-                    }
-                    result /= right;
-                }
-            }
-            return result;
+    /**
+     * Shows the result of calculateVectorResult(), or "Error" when it is null
+     */
+    private void showVectorResult(String expression, Matrix result) {
+        tvSecondary.setText(expression.length() > MAX_VECTOR_PREVIEW
+                ? expression.substring(0, MAX_VECTOR_PREVIEW) + "…" : expression);
+        if (result == null) {
+            updateDisplay("Error");
+            return;
         }
+        String resultStr = formatMatrix(result);
+        updateDisplay(resultStr);
+        addToHistory(tvSecondary.getText() + " = " + resultStr);
 
-        /**
-         * Handles exponentiation (higher precedence, right-associative)
-         */
-        private double parseExponentiation() throws Exception {
-            double result = parseUnary();
+        // Only a scalar can feed the regular scalar operators
+        setState(state().withResult(result.isScalar() ? resultStr : ""));
+    }
 
-            if (position < expression.length() && peek() == '^') {
-                position++; // consume '^'
-                double right = parseExponentiation(); // Right-associative
-                result = Math.pow(result, right);
-            }
-            return result;
+    /**
+     * Formats a vector as [a, b, c] and a matrix as [[a, b], [c, d]]
+     *
+     * Long vectors are cut after MAX_VECTOR_PREVIEW elements, ending in "…",
+     * so the display never has to lay out a huge string.
+     */
+    private String formatMatrix(Matrix matrix) {
+        if (matrix.isScalar()) {
+            return formatNumber(matrix.data[0]);
         }
-
-        /**
-         * Handles unary operations (negative numbers)
-         */
-        private double parseUnary() throws Exception {
-            if (position < expression.length() && peek() == '-') {
-                position++;
-                return -parseUnary();
+        StringBuilder sb = new StringBuilder();
+        boolean nested = matrix.rows > 1;
+        int shown = 0;
+        if (nested) {
+            sb.append('[');
+        }
+        for (int r = 0; r < matrix.rows; r++) {
+            if (r > 0) {
+                sb.append(", ");
             }
-            if (position < expression.length() && peek() == '+') {
-                position++;
-                return parseUnary();
+            if (shown == MAX_VECTOR_PREVIEW) {
+                sb.append("…"); // Rows left out
+                break;
             }
-            return parsePrimary();
-        }
-
-        /**
-         * Handles parentheses and numbers (highest precedence)
-         */
-        private double parsePrimary() throws Exception {
-            if (position < expression.length() && peek() == '(') {
-                position++; // consume '('
-                double result = parseAdditionSubtraction();
-                if (position >= expression.length() || peek() != ')') {
-                    throw new Exception("Mismatched parentheses");
+            sb.append('[');
+            for (int c = 0; c < matrix.cols; c++) {
+                if (c > 0) {
+                    sb.append(", ");
                 }
-                position++; // consume ')'
-                return result;
-            }
-            return parseNumber();
-        }
-
-        /**
-         * Parses a number (integer or decimal)
-         */
-        private double parseNumber() throws Exception {
-            StringBuilder number = new StringBuilder();
-
-            while (position < expression.length()
-                    && (Character.isDigit(peek()) || peek() == '.')) {
-                number.append(expression.charAt(position++));
-            }
-
-            if (number.length() == 0) {
-                throw new Exception("Invalid expression");
+                if (shown == MAX_VECTOR_PREVIEW) {
+                    sb.append("…"); // Rest of the row left out
+                    break;
+                }
+                sb.append(formatNumber(matrix.data[r * matrix.cols + c]));
+                shown++;
             }
-
-            return Double.parseDouble(number.toString());
+            sb.append(']');
         }
-
-        /**
-         * Peeks at the current character without consuming it
-         */
-        private char peek() {
-            if (position >= expression.length()) {
-                return '\0';
-            }
-            return expression.charAt(position);
+        if (nested) {
+            sb.append(']');
         }
+        return sb.toString();
     }
 
 }
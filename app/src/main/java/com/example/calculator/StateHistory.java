@@ -0,0 +1,73 @@
+package com.example.calculator;
+
+/**
+ * StateHistory - unlimited undo/redo over immutable CalculatorStates
+ *
+ * The present state plus two persistent stacks: past states (most recent
+ * first) and undone states that can be redone. Pushing, undoing and redoing
+ * each allocate one stack node and return a new StateHistory, so every
+ * operation is O(1) and the whole history is one reference that can be
+ * handed over as it is.
+ */
+final class StateHistory {
+
+    final CalculatorState present;
+    private final Node past;    // States before present, most recent first
+    private final Node future;  // Undone states, next redo first
+
+    private StateHistory(CalculatorState present, Node past, Node future) {
+        this.present = present;
+        this.past = past;
+        this.future = future;
+    }
+
+    static StateHistory of(CalculatorState state) {
+        return new StateHistory(state, null, null);
+    }
+
+    /**
+     * Moves to a new state; anything that could be redone is dropped
+     */
+    StateHistory push(CalculatorState next) {
+        if (next == present) {
+            return this;
+        }
+        return new StateHistory(next, new Node(present, past), null);
+    }
+
+    boolean canUndo() {
+        return past != null;
+    }
+
+    boolean canRedo() {
+        return future != null;
+    }
+
+    StateHistory undo() {
+        if (past == null) {
+            return this;
+        }
+        return new StateHistory(past.state, past.next, new Node(present, future));
+    }
+
+    StateHistory redo() {
+        if (future == null) {
+            return this;
+        }
+        return new StateHistory(future.state, new Node(present, past), future.next);
+    }
+
+    /**
+     * Immutable stack node
+     */
+    private static final class Node {
+
+        final CalculatorState state;
+        final Node next;
+
+        Node(CalculatorState state, Node next) {
+            this.state = state;
+            this.next = next;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.calculator.benchmark;
+
+import androidx.benchmark.macro.junit4.BaselineProfileRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.uiautomator.By;
+import androidx.test.uiautomator.UiDevice;
+import androidx.test.uiautomator.UiObject2;
+import androidx.test.uiautomator.Until;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import kotlin.Unit;
+
+/**
+ * BaselineProfileGenerator - records the classes and methods used by a
+ * typical session so they are AOT-compiled from the first launch
+ *
+ * The journey covers startup, digit and operator presses, evaluation and
+ * the scientific panel. Run with:
+ *   ./gradlew :app:generateBaselineProfile
+ */
+@RunWith(AndroidJUnit4.class)
+public class BaselineProfileGenerator {
+
+    private static final String PACKAGE_NAME = "com.example.calculator";
+    private static final long TIMEOUT_MS = 5000;
+
+    @Rule
+    public BaselineProfileRule baselineProfileRule = new BaselineProfileRule();
+
+    @Test
+    public void generate() {
+        baselineProfileRule.collect(PACKAGE_NAME, scope -> {
+            scope.pressHome();
+            scope.startActivityAndWait();
+            UiDevice device = scope.getDevice();
+
+            // Basic arithmetic: 12 + 34 × 5 =
+            press(device, "btn1", "btn2", "btnPlus", "btn3", "btn4",
+                    "btnMultiply", "btn5", "btnEquals");
+            // Division and decimals: 7.5 ÷ 3 − 1 =
+            press(device, "btn7", "btnDot", "btn5", "btnDivide", "btn3",
+                    "btnMinus", "btn1", "btnEquals", "btnPercent", "btnAC");
+
+            // First toggle inflates the scientific panel
+            press(device, "btnToggleScientific");
+            press(device, "btn9", "btnSqrt", "btn5", "btnFactorial",
+                    "btn2", "btnPower", "btn8", "btnEquals", "btnSin", "btnAC");
+            press(device, "btnToggleScientific");
+            return Unit.INSTANCE;
+        });
+    }
+
+    /**
+     * Clicks the buttons with the given view ids in order, skipping any that
+     * are not on screen in the current orientation
+     */
+    private static void press(UiDevice device, String... ids) {
+        for (String id : ids) {
+            UiObject2 button = device.wait(Until.findObject(By.res(PACKAGE_NAME, id)), TIMEOUT_MS);
+            if (button != null) {
+                button.click();
+                device.waitForIdle();
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.calculator.benchmark;
+
+import androidx.benchmark.macro.CompilationMode;
+import androidx.benchmark.macro.StartupMode;
+import androidx.benchmark.macro.StartupTimingMetric;
+import androidx.benchmark.macro.junit4.MacrobenchmarkRule;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Collections;
+
+import kotlin.Unit;
+
+/**
+ * StartupBenchmark - measures cold start time of the calculator
+ *
+ * Reports timeToInitialDisplay (first frame) and timeToFullDisplay (history,
+ * memory and statistics loaded; MainActivity calls reportFullyDrawn()).
+ *
+ * Run on a device or emulator with:
+ *   ./gradlew :benchmark:connectedBenchmarkReleaseAndroidTest
+ */
+@RunWith(AndroidJUnit4.class)
+public class StartupBenchmark {
+
+    private static final String PACKAGE_NAME = "com.example.calculator";
+    private static final int ITERATIONS = 10;
+
+    @Rule
+    public MacrobenchmarkRule benchmarkRule = new MacrobenchmarkRule();
+
+    @Test
+    public void coldStartNoCompilation() {
+        measureColdStart(new CompilationMode.None());
+    }
+
+    @Test
+    public void coldStartDefaultCompilation() {
+        measureColdStart(CompilationMode.DEFAULT);
+    }
+
+    private void measureColdStart(CompilationMode compilationMode) {
+        benchmarkRule.measureRepeated(
+                PACKAGE_NAME,
+                Collections.singletonList(new StartupTimingMetric()),
+                compilationMode,
+                StartupMode.COLD,
+                ITERATIONS,
+                scope -> Unit.INSTANCE,
+                scope -> {
+                    scope.pressHome();
+                    scope.startActivityAndWait();
+                    return Unit.INSTANCE;
+                });
+    }
+}
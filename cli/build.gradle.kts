@@ -0,0 +1,26 @@
+plugins {
+    application
+}
+
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+application {
+    mainClass = "com.example.calculator.CalculatorCli"
+    applicationName = "calc"
+}
+
+dependencies {
+    implementation(project(":engine"))
+    testImplementation(libs.junit)
+}
+
+// Throughput of the evaluation server: ./gradlew :cli:loadTest --args="--clients 8 --handles"
+tasks.register<JavaExec>("loadTest") {
+    group = "verification"
+    description = "Runs the evaluation server load generator"
+    classpath = sourceSets["main"].runtimeClasspath
+    mainClass = "com.example.calculator.LoadGenerator"
+}
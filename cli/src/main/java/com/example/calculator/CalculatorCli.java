@@ -0,0 +1,418 @@
+package com.example.calculator;
+
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * CalculatorCli - evaluates calculator expressions line by line
+ *
+ * Usage:
+ *   calc [-j threads] [-o output] [file ...]
+ *   calc < formulas.txt > results.txt
+ *   calc --serve port [-j threads]
+ *   calc --export csv|columnar [-o output] [file ...]
+ *   calc --import archive [--export csv|columnar] [-o output]
+ *
+ * Reads the files in order, or standard input when no file (or "-") is
+ * given, and writes one result per input line (see LineEvaluator).
+ *
+ * Input is read in blocks that end on a line boundary. Regular files,
+ * including a file redirected to standard input, are memory-mapped in
+ * windows so the bytes are evaluated in place; pipes are read through a
+ * reused buffer. Results go to the output channel in large writes.
+ *
+ * With -j the blocks are evaluated on a thread pool and written in input
+ * order. At most a few blocks per thread are in flight, so memory stays
+ * bounded however large the input is.
+ *
+ * With --serve it runs an EvaluationServer on the loopback port instead,
+ * with -j worker threads (default: all cores).
+ *
+ * With --export the results are written as a ResultArchive instead of
+ * text: a CSV of expression and result, or the binary columnar format
+ * (which needs -o, as it is assembled in place). Lines stream through
+ * LineRows one at a time on this thread, blank lines are left out.
+ * --import reads such an archive, CSV or columnar, and writes it out again
+ * in the export format (default: CSV).
+ */
+public class CalculatorCli {
+
+    private static final int BLOCK_SIZE = 1 << 20;       // Bytes per evaluation block
+    private static final long MAP_WINDOW = 64L << 20;    // Bytes mapped at a time
+    private static final int IN_FLIGHT_PER_THREAD = 4;   // Parallel blocks queued per thread
+
+    private final WritableByteChannel out;
+    private final ExecutorService executor;              // null when evaluating on this thread
+    private final int maxInFlight;
+    private final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+    private final LineEvaluator evaluator = new LineEvaluator();
+    private final ThreadLocal<LineEvaluator> workerEvaluators = ThreadLocal.withInitial(LineEvaluator::new);
+
+    CalculatorCli(WritableByteChannel out, int threads) {
+        this.out = out;
+        this.executor = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+        this.maxInFlight = threads * IN_FLIGHT_PER_THREAD;
+    }
+
+    public static void main(String[] args) {
+        int threads = 0; // Not given: one for files, all cores when serving
+        int servePort = -1;
+        String outputPath = null;
+        String exportFormat = null;
+        String importPath = null;
+        List<String> inputs = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-j":
+                case "--parallel":
+                    threads = i + 1 < args.length && args[i + 1].matches("\\d+")
+                            ? Integer.parseInt(args[++i]) : 0;
+                    if (threads == 0) {
+                        threads = Runtime.getRuntime().availableProcessors();
+                    }
+                    break;
+                case "-o":
+                case "--output":
+                    if (i + 1 == args.length) {
+                        usage("Missing output file");
+                        return;
+                    }
+                    outputPath = args[++i];
+                    break;
+                case "--serve":
+                    if (i + 1 == args.length || !args[i + 1].matches("\\d+")) {
+                        usage("Missing port");
+                        return;
+                    }
+                    servePort = Integer.parseInt(args[++i]);
+                    break;
+                case "--export":
+                    if (i + 1 == args.length || !args[i + 1].matches("csv|columnar")) {
+                        usage("Export format must be csv or columnar");
+                        return;
+                    }
+                    exportFormat = args[++i];
+                    break;
+                case "--import":
+                    if (i + 1 == args.length) {
+                        usage("Missing archive to import");
+                        return;
+                    }
+                    importPath = args[++i];
+                    break;
+                case "-h":
+                case "--help":
+                    usage(null);
+                    return;
+                default:
+                    if (args[i].startsWith("-") && !args[i].equals("-")) {
+                        usage("Unknown option: " + args[i]);
+                        return;
+                    }
+                    inputs.add(args[i]);
+                    break;
+            }
+        }
+        if (servePort >= 0) {
+            serve(servePort, threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+            return;
+        }
+        if (importPath != null && !inputs.isEmpty()) {
+            usage("--import takes no input files");
+            return;
+        }
+        if (inputs.isEmpty()) {
+            inputs.add("-");
+        }
+        if (exportFormat != null || importPath != null) {
+            export(inputs, importPath, exportFormat == null ? "csv" : exportFormat, outputPath);
+            return;
+        }
+
+        try (WritableByteChannel out = openOutput(outputPath)) {
+            CalculatorCli cli = new CalculatorCli(out, Math.max(1, threads));
+            try {
+                for (String input : inputs) {
+                    cli.evaluate(input);
+                }
+                cli.finish();
+            } finally {
+                cli.shutdown();
+            }
+        } catch (IOException e) {
+            System.err.println("calc: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static WritableByteChannel openOutput(String outputPath) throws IOException {
+        if (outputPath == null) {
+            return new FileOutputStream(FileDescriptor.out).getChannel();
+        }
+        return FileChannel.open(Paths.get(outputPath), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Writes the inputs' results, or the rows of an imported archive, as a
+     * ResultArchive in the given format
+     */
+    private static void export(List<String> inputs, String importPath, String format, String outputPath) {
+        boolean columnar = format.equals("columnar");
+        if (columnar && outputPath == null) {
+            usage("Columnar export needs -o file");
+            return;
+        }
+        LineRows lines = null;
+        try (FileChannel archive = importPath == null ? null
+                : FileChannel.open(Paths.get(importPath), StandardOpenOption.READ);
+                WritableByteChannel out = openOutput(outputPath)) {
+            ResultArchive.Rows rows;
+            if (archive != null) {
+                rows = ResultArchive.read(archive);
+            } else {
+                rows = lines = new LineRows(inputs, new LineEvaluator());
+            }
+            if (columnar) {
+                ResultArchive.writeColumnar(rows, (FileChannel) out,
+                        new File(outputPath).getAbsoluteFile().getParentFile());
+            } else {
+                ResultArchive.writeCsv(rows, out);
+            }
+        } catch (IOException e) {
+            System.err.println("calc: " + e.getMessage());
+            System.exit(1);
+        } finally {
+            if (lines != null) {
+                try {
+                    lines.close();
+                } catch (IOException e) {
+                    // Reading is done
+                }
+            }
+        }
+    }
+
+    private static void serve(int port, int threads) {
+        try {
+            EvaluationServer server = new EvaluationServer(port, threads);
+            System.err.println("calc: serving on 127.0.0.1:" + server.getPort() + " with " + threads + " workers");
+            server.serve();
+        } catch (IOException e) {
+            System.err.println("calc: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private static void usage(String error) {
+        if (error != null) {
+            System.err.println("calc: " + error);
+        }
+        System.err.println("Usage: calc [-j threads] [-o output] [file ...]");
+        System.err.println("       calc --serve port [-j threads]");
+        System.err.println("       calc --export csv|columnar [-o output] [file ...]");
+        System.err.println("       calc --import archive [--export csv|columnar] [-o output]");
+        System.err.println("  Evaluates one expression per line from the files or standard input");
+        System.err.println("  -j, --parallel [n]  evaluate on n threads (default: all cores), output stays in order");
+        System.err.println("  -o, --output file   write results to file instead of standard output");
+        System.err.println("  --serve port        evaluate batches for local clients on a loopback port");
+        System.err.println("  --export format     write expressions and results as csv or columnar (needs -o)");
+        System.err.println("  --import archive    read a csv or columnar archive and write it in the export format");
+        if (error != null) {
+            System.exit(2);
+        }
+    }
+
+    // ===== Input =====
+    /**
+     * Evaluates one input: a file path, or "-" for standard input
+     */
+    void evaluate(String input) throws IOException {
+        if (input.equals("-")) {
+            FileChannel stdin = new FileInputStream(FileDescriptor.in).getChannel();
+            long size;
+            try {
+                size = stdin.size(); // Only a redirected regular file has a size
+            } catch (IOException e) {
+                size = 0;
+            }
+            if (size > 0) {
+                evaluateMapped(stdin, stdin.position(), size);
+            } else {
+                evaluateStream(stdin);
+            }
+            return;
+        }
+        try (FileChannel file = FileChannel.open(Paths.get(input), StandardOpenOption.READ)) {
+            evaluateMapped(file, 0, file.size());
+        }
+    }
+
+    /**
+     * Maps the channel window by window and evaluates it in place; each
+     * window ends after its last complete line
+     */
+    private void evaluateMapped(FileChannel channel, long position, long size) throws IOException {
+        while (position < size) {
+            long length = Math.min(MAP_WINDOW, size - position);
+            ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+            boolean last = position + length == size;
+
+            int end = last ? (int) length : lastNewline(window, 0, (int) length) + 1;
+            if (end == 0) {
+                throw new IOException("Line longer than " + (MAP_WINDOW >> 20) + " MB at byte " + position);
+            }
+            evaluateBlocks(window, 0, end, false);
+            position += end;
+        }
+    }
+
+    /**
+     * Reads a pipe through a reused buffer; an incomplete last line is
+     * moved to the front and completed by the next read
+     */
+    private void evaluateStream(ReadableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(4 * BLOCK_SIZE);
+        while (true) {
+            int read = channel.read(buffer);
+            if (read < 0) {
+                break;
+            }
+            if (buffer.hasRemaining() && read > 0) {
+                continue; // Fill the buffer before evaluating
+            }
+            int end = lastNewline(buffer, 0, buffer.position()) + 1;
+            if (end == 0) {
+                // One line fills the whole buffer: make room for it
+                ByteBuffer larger = ByteBuffer.allocateDirect(buffer.capacity() * 2);
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+                continue;
+            }
+            evaluateBlocks(buffer, 0, end, true);
+            buffer.limit(buffer.position()).position(end);
+            buffer.compact();
+        }
+        if (buffer.position() > 0) {
+            evaluateBlocks(buffer, 0, buffer.position(), true);
+        }
+    }
+
+    /**
+     * Splits [from, to) into blocks of about BLOCK_SIZE bytes on line
+     * boundaries and evaluates them
+     *
+     * @param copy Whether the bytes must be copied before handing them to
+     * another thread (the buffer is reused)
+     */
+    private void evaluateBlocks(ByteBuffer buffer, int from, int to, boolean copy) throws IOException {
+        while (from < to) {
+            int end = to;
+            if (to - from > BLOCK_SIZE) {
+                int newline = lastNewline(buffer, from, from + BLOCK_SIZE);
+                end = newline >= from ? newline + 1 : to;
+            }
+            ByteBuffer block = slice(buffer, from, end);
+            if (executor == null) {
+                evaluator.evaluateLines(block);
+                if (evaluator.outputLength() >= BLOCK_SIZE) {
+                    writeFully(evaluator.output());
+                    evaluator.clearOutput();
+                }
+            } else {
+                submit(copy ? ByteBuffer.allocate(end - from).put(block).flip() : block);
+            }
+            from = end;
+        }
+    }
+
+    // ===== Output =====
+    /**
+     * Queues a block for a worker thread; when too many blocks are queued,
+     * the oldest result is written first
+     */
+    private void submit(ByteBuffer block) throws IOException {
+        if (pending.size() >= maxInFlight) {
+            writeFully(ByteBuffer.wrap(await(pending.poll())));
+        }
+        pending.add(executor.submit(() -> {
+            LineEvaluator worker = workerEvaluators.get();
+            worker.evaluateLines(block);
+            return worker.takeOutput();
+        }));
+    }
+
+    /**
+     * Writes every result still buffered or pending
+     */
+    void finish() throws IOException {
+        while (!pending.isEmpty()) {
+            writeFully(ByteBuffer.wrap(await(pending.poll())));
+        }
+        writeFully(evaluator.output());
+        evaluator.clearOutput();
+    }
+
+    void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    private static byte[] await(Future<byte[]> result) throws IOException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Evaluation failed", e.getCause());
+        }
+    }
+
+    // ===== Buffer Helpers =====
+    /**
+     * Index of the last '\n' in [from, to), or from - 1 if there is none
+     */
+    private static int lastNewline(ByteBuffer buffer, int from, int to) {
+        for (int i = to - 1; i >= from; i--) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return from - 1;
+    }
+
+    /**
+     * Independent view of [from, to) that does not disturb the buffer
+     */
+    private static ByteBuffer slice(ByteBuffer buffer, int from, int to) {
+        ByteBuffer view = buffer.duplicate();
+        view.limit(to).position(from);
+        return view.slice();
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.calculator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+
+/**
+ * EvaluationClient - client side of the EvaluationServer protocol
+ *
+ * Usage:
+ *   EvaluationClient.Batch batch = new EvaluationClient.Batch();
+ *   batch.evaluate("2 + 3 × 4");
+ *   batch.compile("1.08 ^ 12");
+ *   EvaluationClient.Result[] results = client.send(batch);
+ *   ... later batches can use batch.handle(results[1].handle) ...
+ *
+ * Not thread-safe; use one client per thread.
+ */
+final class EvaluationClient implements Closeable {
+
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+
+    EvaluationClient(int port) throws IOException {
+        socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        socket.setTcpNoDelay(true);
+        in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+    }
+
+    /**
+     * Sends one batch and waits for its results, one per entry in order
+     */
+    Result[] send(Batch batch) throws IOException {
+        EvaluationServer.writeFrame(out, batch.toFrame());
+        out.flush();
+
+        DataInputStream response = new DataInputStream(
+                new ByteArrayInputStream(EvaluationServer.readFrame(in)));
+        Result[] results = new Result[response.readInt()];
+        for (int i = 0; i < results.length; i++) {
+            byte status = response.readByte();
+            int handle = response.readInt();
+            double value = response.readDouble();
+            results[i] = new Result(status, handle, value, response.readUTF());
+        }
+        return results;
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+
+    /**
+     * Entries of one request
+     */
+    static final class Batch {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        private final DataOutputStream entries = new DataOutputStream(bytes);
+        private int count = 0;
+
+        Batch evaluate(String expression) throws IOException {
+            entries.writeByte(EvaluationServer.EVALUATE);
+            entries.writeUTF(expression);
+            count++;
+            return this;
+        }
+
+        Batch compile(String expression) throws IOException {
+            entries.writeByte(EvaluationServer.COMPILE);
+            entries.writeUTF(expression);
+            count++;
+            return this;
+        }
+
+        Batch handle(int handle) throws IOException {
+            entries.writeByte(EvaluationServer.HANDLE);
+            entries.writeInt(handle);
+            count++;
+            return this;
+        }
+
+        int size() {
+            return count;
+        }
+
+        byte[] toFrame() throws IOException {
+            ByteArrayOutputStream frame = new ByteArrayOutputStream(bytes.size() + 4);
+            new DataOutputStream(frame).writeInt(count);
+            bytes.writeTo(frame);
+            return frame.toByteArray();
+        }
+    }
+
+    /**
+     * Result of one entry
+     */
+    static final class Result {
+
+        final byte status;     // EvaluationServer.OK, ERROR or UNKNOWN_HANDLE
+        final int handle;      // New handle for a COMPILE entry, otherwise -1
+        final double value;    // NaN unless status is OK
+        final String text;     // Formatted like the display, "Error" on failure
+
+        Result(byte status, int handle, double value, String text) {
+            this.status = status;
+            this.handle = handle;
+            this.value = value;
+            this.text = text;
+        }
+    }
+}
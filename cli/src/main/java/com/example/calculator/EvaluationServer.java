@@ -0,0 +1,298 @@
+package com.example.calculator;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * EvaluationServer - evaluates batches of expressions for other local
+ * processes over a loopback socket
+ *
+ * Results are computed and formatted exactly like the calculator display.
+ * The server only listens on the loopback interface.
+ *
+ * Protocol (all integers big-endian, strings as DataOutput.writeUTF):
+ *
+ *   request:  int length, then length bytes:
+ *             int count, then count entries of
+ *               byte EVALUATE, utf expression   - evaluate text
+ *               byte COMPILE,  utf expression   - evaluate and return a handle
+ *               byte HANDLE,   int handle       - evaluate a compiled handle
+ *   response: int length, then length bytes:
+ *             int count, then one result per entry, in order:
+ *               byte status, int handle, double value, utf text
+ *
+ * status is OK, ERROR (text "Error", value NaN) or UNKNOWN_HANDLE. An
+ * expression must parse completely: input left after it ("2)3") is an
+ * ERROR, not the value of the part before it. handle is the new handle for
+ * COMPILE entries and -1 otherwise (or when the connection already holds
+ * MAX_HANDLES). Handles belong to the connection and stay valid until it
+ * closes. A frame longer than MAX_FRAME or an unknown entry kind is a
+ * protocol error and closes the connection.
+ *
+ * Each connection has one batch in flight. Batches run on a fixed pool of
+ * workers with a short queue; when the queue is full the connection's own
+ * thread evaluates its batch, so it stops reading and the client is slowed
+ * down by TCP flow control instead of the server queueing without bound.
+ * Compiled expressions and their results are shared by all connections
+ * through the shared ExpressionCache, so a formula that is sent again is
+ * neither parsed nor computed again.
+ */
+final class EvaluationServer {
+
+    // Entry kinds
+    static final byte EVALUATE = 1;
+    static final byte COMPILE = 2;
+    static final byte HANDLE = 3;
+
+    // Result status
+    static final byte OK = 0;
+    static final byte ERROR = 1;
+    static final byte UNKNOWN_HANDLE = 2;
+
+    static final int MAX_FRAME = 16 << 20;             // Largest request or response, in bytes
+    private static final int MAX_HANDLES = 1 << 16;    // Compiled handles per connection
+    private static final int MAX_CONNECTIONS = 64;
+    private static final int QUEUED_BATCHES_PER_WORKER = 2;
+
+    private final ServerSocket serverSocket;
+    private final ThreadPoolExecutor workers;
+    private final Semaphore connectionSlots = new Semaphore(MAX_CONNECTIONS);
+    private final ExpressionCache cache = ExpressionCache.SHARED;
+    private final ThreadLocal<NumberFormatter> formatters =
+            ThreadLocal.withInitial(() -> new NumberFormatter(Locale.ROOT));
+    private volatile boolean running = true;
+
+    /**
+     * Binds to a loopback port; 0 picks a free port (see getPort())
+     */
+    EvaluationServer(int port, int threads) throws IOException {
+        serverSocket = new ServerSocket();
+        serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), MAX_CONNECTIONS);
+        workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * QUEUED_BATCHES_PER_WORKER),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "calc-worker");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Accepts connections until close() is called; each connection is
+     * served by its own thread
+     */
+    void serve() throws IOException {
+        while (running) {
+            connectionSlots.acquireUninterruptibly(); // Stop accepting while at the limit
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                connectionSlots.release();
+                if (!running) {
+                    return;
+                }
+                throw e;
+            }
+            Thread thread = new Thread(() -> handleConnection(socket), "calc-connection");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Starts serve() on a background thread
+     */
+    void start() {
+        Thread thread = new Thread(() -> {
+            try {
+                serve();
+            } catch (IOException e) {
+                System.err.println("calc: server stopped: " + e.getMessage());
+            }
+        }, "calc-acceptor");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void close() throws IOException {
+        running = false;
+        serverSocket.close();
+        workers.shutdownNow();
+    }
+
+    // ===== Connections =====
+    private void handleConnection(Socket socket) {
+        List<ExpressionCache.Entry> handles = new ArrayList<>();
+        try (Socket s = socket;
+                DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()))) {
+            s.setTcpNoDelay(true);
+            while (true) {
+                byte[] request;
+                try {
+                    request = readFrame(in);
+                } catch (EOFException e) {
+                    return; // Client closed the connection
+                }
+                Future<byte[]> response = workers.submit(() -> evaluateBatch(request, handles));
+                writeFrame(out, await(response));
+                out.flush();
+            }
+        } catch (IOException | RejectedExecutionException e) {
+            // Broken connection, protocol error or server closing: drop the client
+        } finally {
+            connectionSlots.release();
+        }
+    }
+
+    static byte[] readFrame(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_FRAME) {
+            throw new IOException("Bad frame length " + length);
+        }
+        byte[] frame = new byte[length];
+        in.readFully(frame);
+        return frame;
+    }
+
+    static void writeFrame(DataOutputStream out, byte[] frame) throws IOException {
+        out.writeInt(frame.length);
+        out.write(frame);
+    }
+
+    private static byte[] await(Future<byte[]> result) throws IOException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Batch failed", e.getCause());
+        }
+    }
+
+    // ===== Batch Evaluation =====
+    /**
+     * Decodes one request, evaluates every entry and encodes the response
+     *
+     * @param handles The connection's compiled handles; only one batch per
+     * connection runs at a time
+     */
+    private byte[] evaluateBatch(byte[] request, List<ExpressionCache.Entry> handles) throws IOException {
+        long start = EngineMetrics.start();
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(request));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(Math.max(64, request.length));
+        DataOutputStream out = new DataOutputStream(bytes);
+        NumberFormatter formatter = formatters.get();
+
+        int count = in.readInt();
+        out.writeInt(count);
+        for (int i = 0; i < count; i++) {
+            byte kind = in.readByte();
+            ExpressionCache.Entry cached = null;
+            int handle = -1;
+            byte status = OK;
+            try {
+                if (kind == EVALUATE || kind == COMPILE) {
+                    cached = cache.get(normalize(in.readUTF()));
+                    if (kind == COMPILE && handles.size() < MAX_HANDLES) {
+                        handle = handles.size();
+                        handles.add(cached);
+                    }
+                } else if (kind == HANDLE) {
+                    int index = in.readInt();
+                    if (index >= 0 && index < handles.size()) {
+                        cached = handles.get(index);
+                    } else {
+                        status = UNKNOWN_HANDLE;
+                    }
+                } else {
+                    throw new IOException("Unknown entry kind " + kind);
+                }
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                status = ERROR; // Does not parse
+            }
+
+            double value = Double.NaN;
+            String text = "Error";
+            if (cached != null) {
+                try {
+                    value = cached.value();
+                    text = formatter.format(value);
+                } catch (Exception e) {
+                    status = ERROR;
+                    value = Double.NaN;
+                }
+            }
+            if (status != OK) {
+                EngineMetrics.EVALUATION_ERRORS.increment();
+            }
+            out.writeByte(status);
+            out.writeInt(handle);
+            out.writeDouble(value);
+            out.writeUTF(text);
+        }
+        if (bytes.size() > MAX_FRAME) {
+            throw new IOException("Response too large");
+        }
+        EngineMetrics.SERVER_BATCH.stop(start);
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Brings an expression into evaluator syntax the way the display text
+     * is: whitespace removed and × ÷ − replaced by * / -
+     */
+    static String normalize(String expr) {
+        StringBuilder sb = new StringBuilder(expr.length());
+        for (int i = 0; i < expr.length(); i++) {
+            char c = expr.charAt(i);
+            if (Character.isWhitespace(c)) {
+                continue;
+            }
+            switch (c) {
+                case '×':
+                    sb.append('*');
+                    break;
+                case '÷':
+                    sb.append('/');
+                    break;
+                case '−':
+                    sb.append('-');
+                    break;
+                default:
+                    sb.append(c);
+                    break;
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,244 @@
+package com.example.calculator;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * LineEvaluator - evaluates a block of UTF-8 input lines into result lines
+ *
+ * Each line is evaluated the way the calculator evaluates its display:
+ * spaces are removed, × ÷ − become * / -, the expression goes through
+ * ExpressionEvaluator and the result is formatted with the display rules.
+ * A line that fails prints "Error"; an empty line prints an empty line, so
+ * output line n always belongs to input line n. The whole line must be one
+ * expression: "12abc", "1,000", "1e3", "2)3" and "2 3" (a space between
+ * digits) are errors, not the value of the part before them.
+ *
+ * The parser, formatter and buffers are reused for every line, so a line
+ * costs no allocation beyond number formatting. Not thread-safe; the CLI
+ * gives each worker thread its own instance.
+ */
+final class LineEvaluator {
+
+    private static final byte[] ERROR = "Error".getBytes(StandardCharsets.US_ASCII);
+
+    private final ExpressionEvaluator evaluator = new ExpressionEvaluator();
+    private final NumberFormatter formatter = new NumberFormatter(Locale.ROOT);
+    private final Line line = new Line();
+
+    private byte[] output = new byte[1 << 16];
+    private int outputLength = 0;
+
+    private long lineCount = 0;
+    private long errorCount = 0;
+
+    /**
+     * Evaluates every line between the buffer's position and limit; the last
+     * line does not need a trailing newline. The buffer's position is left
+     * unchanged.
+     */
+    void evaluateLines(ByteBuffer input) {
+        int end = input.limit();
+        int lineStart = input.position();
+        for (int i = lineStart; i < end; i++) {
+            if (input.get(i) == '\n') {
+                evaluateLine(input, lineStart, i);
+                lineStart = i + 1;
+            }
+        }
+        if (lineStart < end) {
+            evaluateLine(input, lineStart, end);
+        }
+    }
+
+    /**
+     * Results written so far, ready to be written to a channel
+     */
+    ByteBuffer output() {
+        return ByteBuffer.wrap(output, 0, outputLength);
+    }
+
+    /**
+     * Copy of the results written so far, for handing to another thread
+     */
+    byte[] takeOutput() {
+        byte[] copy = Arrays.copyOf(output, outputLength);
+        outputLength = 0;
+        return copy;
+    }
+
+    int outputLength() {
+        return outputLength;
+    }
+
+    void clearOutput() {
+        outputLength = 0;
+    }
+
+    long getLineCount() {
+        return lineCount;
+    }
+
+    long getErrorCount() {
+        return errorCount;
+    }
+
+    /**
+     * Evaluates the line [from, to) to its value instead of result text,
+     * for exporting results (see ResultArchive)
+     *
+     * @return The value, or NaN if the line fails or is empty
+     */
+    double evaluateValue(ByteBuffer input, int from, int to) {
+        lineCount++;
+        line.decode(input, from, to);
+        if (line.length() == 0) {
+            return Double.NaN;
+        }
+        try {
+            double value = evaluator.evaluate(line);
+            evaluator.requireEnd();
+            return value;
+        } catch (Exception e) {
+            errorCount++;
+            return Double.NaN;
+        }
+    }
+
+    /**
+     * The line last passed to evaluateValue() as it was evaluated; reused by
+     * the next call
+     */
+    CharSequence line() {
+        return line;
+    }
+
+    // ===== Line Evaluation =====
+    private void evaluateLine(ByteBuffer input, int from, int to) {
+        lineCount++;
+        line.decode(input, from, to);
+        if (line.length() > 0) {
+            try {
+                double value = evaluator.evaluate(line);
+                evaluator.requireEnd();
+                writeResult(formatter.format(value));
+            } catch (Exception e) {
+                errorCount++;
+                write(ERROR);
+            }
+        }
+        ensureCapacity(1);
+        output[outputLength++] = '\n';
+    }
+
+    private void writeResult(String result) {
+        int length = result.length();
+        ensureCapacity(length);
+        for (int i = 0; i < length; i++) {
+            char c = result.charAt(i);
+            if (c >= 0x80) {
+                // Non-ASCII result such as ∞: encode the whole string
+                write(result.substring(i).getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+            output[outputLength++] = (byte) c;
+        }
+    }
+
+    private void write(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, output, outputLength, bytes.length);
+        outputLength += bytes.length;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (outputLength + extra > output.length) {
+            output = Arrays.copyOf(output, Math.max(output.length * 2, outputLength + extra));
+        }
+    }
+
+    /**
+     * One input line as the evaluator sees it: whitespace removed and the
+     * display operators (× ÷ −) replaced, held in a reused char array
+     */
+    private static final class Line implements CharSequence {
+
+        private char[] chars = new char[256];
+        private int length = 0;
+
+        /**
+         * Decodes UTF-8 bytes [from, to); characters the evaluator does not
+         * know, and whitespace between two parts of a number ("2 3"),
+         * become U+FFFD so the line fails to parse
+         */
+        void decode(ByteBuffer input, int from, int to) {
+            if (chars.length < to - from) {
+                chars = new char[to - from];  // A U+FFFD for a space takes the space's place
+            }
+            length = 0;
+            boolean space = false;  // Whitespace since the last character kept
+            int i = from;
+            while (i < to) {
+                int b = input.get(i++) & 0xFF;
+                if (b < 0x80) {
+                    if (b == ' ' || b == '\t' || b == '\r' || b == '\f' || b == 0x0B) {
+                        space = length > 0;
+                        continue;
+                    }
+                    if (space && isNumberPart(b) && isNumberPart(chars[length - 1])) {
+                        chars[length++] = '�';
+                    }
+                    chars[length++] = (char) b;
+                    space = false;
+                    continue;
+                }
+                space = false;
+                if (b == 0xC3 && i < to && (input.get(i) & 0xFF) == 0x97) {
+                    chars[length++] = '*'; // ×
+                    i++;
+                } else if (b == 0xC3 && i < to && (input.get(i) & 0xFF) == 0xB7) {
+                    chars[length++] = '/'; // ÷
+                    i++;
+                } else if (b == 0xE2 && i + 1 < to && (input.get(i) & 0xFF) == 0x88
+                        && (input.get(i + 1) & 0xFF) == 0x92) {
+                    chars[length++] = '-'; // − (minus sign)
+                    i += 2;
+                } else if (b == 0xEF && i + 1 < to && (input.get(i) & 0xFF) == 0xBB
+                        && (input.get(i + 1) & 0xFF) == 0xBF) {
+                    i += 2; // Byte order mark
+                } else {
+                    chars[length++] = '�';
+                    while (i < to && (input.get(i) & 0xC0) == 0x80) {
+                        i++; // Skip the rest of the sequence
+                    }
+                }
+            }
+        }
+
+        private static boolean isNumberPart(int c) {
+            return (c >= '0' && c <= '9') || c == '.';
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return chars[index];
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new String(chars, start, end - start);
+        }
+
+        @Override
+        public String toString() {
+            return new String(chars, 0, length);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.calculator;
+
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * LineRows - evaluates input files line by line as ResultArchive rows, for
+ * exporting results as CSV or columnar files
+ *
+ * Inputs are read the way CalculatorCli reads them: regular files are
+ * memory-mapped window by window, pipes go through a reused buffer, so
+ * only the current window is held however many lines there are. Blank
+ * lines are skipped; every other line becomes one row with the expression
+ * as it was evaluated (see LineEvaluator) and its value, NaN if it failed.
+ */
+final class LineRows implements ResultArchive.Rows {
+
+    private static final long MAP_WINDOW = 64L << 20;  // Bytes mapped at a time
+    private static final int STREAM_BUFFER = 1 << 20;  // Initial pipe buffer
+
+    private final Iterator<String> inputs;
+    private final LineEvaluator evaluator;
+
+    private FileChannel channel;      // Current input, null before the first
+    private boolean mapped;           // Whether the input is mapped or read as a pipe
+    private long position;            // Next byte to map
+    private long size;
+    private boolean endOfInput;       // A pipe has been read to its end
+    private int streamEnd;            // Bytes read into the pipe buffer, complete lines or not
+
+    private ByteBuffer window = ByteBuffer.allocate(0); // Lines between position and limit
+    private double result;
+
+    LineRows(List<String> inputs, LineEvaluator evaluator) {
+        this.inputs = inputs.iterator();
+        this.evaluator = evaluator;
+    }
+
+    @Override
+    public boolean next() throws IOException {
+        while (true) {
+            while (window.hasRemaining()) {
+                int from = window.position();
+                int end = from;
+                while (end < window.limit() && window.get(end) != '\n') {
+                    end++;
+                }
+                window.position(end < window.limit() ? end + 1 : end);
+                if (!isBlank(from, end)) {
+                    result = evaluator.evaluateValue(window, from, end);
+                    return true;
+                }
+            }
+            if (!advance()) {
+                return false;
+            }
+        }
+    }
+
+    @Override
+    public CharSequence expression() {
+        return evaluator.line();
+    }
+
+    @Override
+    public double result() {
+        return result;
+    }
+
+    void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private boolean isBlank(int from, int to) {
+        for (int i = from; i < to; i++) {
+            byte b = window.get(i);
+            if (b != ' ' && b != '\t' && b != '\r' && b != '\f' && b != 0x0B) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ===== Input =====
+    /**
+     * Loads the next block of complete lines, opening the next input when
+     * the current one is done; false when all inputs are done
+     */
+    private boolean advance() throws IOException {
+        while (true) {
+            if (channel != null && mapped && position < size) {
+                mapWindow();
+                return true;
+            }
+            if (channel != null && !mapped && !endOfInput) {
+                readStream();
+                return true;
+            }
+            close();
+            if (!inputs.hasNext()) {
+                return false;
+            }
+            open(inputs.next());
+        }
+    }
+
+    private void open(String input) throws IOException {
+        if (input.equals("-")) {
+            channel = new FileInputStream(FileDescriptor.in).getChannel();
+            try {
+                size = channel.size(); // Only a redirected regular file has a size
+                position = channel.position();
+            } catch (IOException e) {
+                size = 0;
+            }
+        } else {
+            channel = FileChannel.open(Paths.get(input), StandardOpenOption.READ);
+            size = channel.size();
+            position = 0;
+        }
+        mapped = size > 0;
+        endOfInput = false;
+        streamEnd = 0;
+        window = mapped ? ByteBuffer.allocate(0) : ByteBuffer.allocateDirect(STREAM_BUFFER).limit(0);
+    }
+
+    /**
+     * Maps the next window of the file, ending after its last complete line
+     */
+    private void mapWindow() throws IOException {
+        long length = Math.min(MAP_WINDOW, size - position);
+        ByteBuffer next = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+        int end = (int) length;
+        if (position + length < size) {
+            while (end > 0 && next.get(end - 1) != '\n') {
+                end--;
+            }
+            if (end == 0) {
+                throw new IOException("Line longer than " + (MAP_WINDOW >> 20) + " MB at byte " + position);
+            }
+        }
+        window = next.limit(end);
+        position += end;
+    }
+
+    /**
+     * Reads more of a pipe: the unread part of the last line moves to the
+     * front, and the buffer grows when one line fills it
+     */
+    private void readStream() throws IOException {
+        window.limit(streamEnd);
+        window.compact();
+        if (!window.hasRemaining()) {
+            ByteBuffer larger = ByteBuffer.allocateDirect(window.capacity() * 2);
+            window.flip();
+            larger.put(window);
+            window = larger;
+        }
+        while (window.hasRemaining()) {
+            if (channel.read(window) < 0) {
+                endOfInput = true;
+                break;
+            }
+        }
+        window.flip();
+        streamEnd = window.limit();
+        if (!endOfInput) {
+            // Hold back the incomplete last line until it is complete
+            int end = window.limit();
+            while (end > 0 && window.get(end - 1) != '\n') {
+                end--;
+            }
+            window.limit(end);
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.calculator;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * LoadGenerator - measures EvaluationServer throughput from local clients
+ *
+ * Usage:
+ *   LoadGenerator [--port p] [--clients n] [--batch n] [--formulas n]
+ *                 [--seconds n] [--handles]
+ *
+ * Without --port an in-process server is started on a free port. Each
+ * client thread sends batches drawn from a pool of distinct formulas
+ * (fewer formulas means more cache hits) for the given time and records
+ * the round-trip time of every batch. With --handles the formulas are
+ * compiled once and the batches send handles instead of text.
+ *
+ * Prints expressions per second and batch latency percentiles.
+ */
+public final class LoadGenerator {
+
+    private static final String[] OPERATORS = {" + ", " - ", " × ", " ÷ "};
+
+    public static void main(String[] args) throws Exception {
+        int port = -1;
+        int clients = 4;
+        int batchSize = 256;
+        int formulaCount = 1000;
+        int seconds = 10;
+        boolean useHandles = false;
+
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port":
+                    port = Integer.parseInt(args[++i]);
+                    break;
+                case "--clients":
+                    clients = Integer.parseInt(args[++i]);
+                    break;
+                case "--batch":
+                    batchSize = Integer.parseInt(args[++i]);
+                    break;
+                case "--formulas":
+                    formulaCount = Integer.parseInt(args[++i]);
+                    break;
+                case "--seconds":
+                    seconds = Integer.parseInt(args[++i]);
+                    break;
+                case "--handles":
+                    useHandles = true;
+                    break;
+                default:
+                    System.err.println("Unknown option: " + args[i]);
+                    System.exit(2);
+                    return;
+            }
+        }
+
+        EvaluationServer server = null;
+        if (port < 0) {
+            server = new EvaluationServer(0, Runtime.getRuntime().availableProcessors());
+            server.start();
+            port = server.getPort();
+        }
+
+        String[] formulas = formulas(formulaCount, new Random(42));
+        long started = System.nanoTime();
+        long deadline = started + seconds * 1_000_000_000L;
+        long[][] latencies = new long[clients][];
+        Thread[] threads = new Thread[clients];
+        List<Exception> failures = new ArrayList<>();
+
+        for (int c = 0; c < clients; c++) {
+            int client = c;
+            int clientPort = port;
+            int clientBatchSize = batchSize;
+            boolean clientUsesHandles = useHandles;
+            threads[c] = new Thread(() -> {
+                try {
+                    latencies[client] = runClient(clientPort, formulas, clientBatchSize, clientUsesHandles,
+                            new Random(client), deadline);
+                } catch (IOException e) {
+                    latencies[client] = new long[0];
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            }, "load-client-" + c);
+            threads[c].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double elapsed = (System.nanoTime() - started) / 1e9;
+
+        if (!failures.isEmpty()) {
+            System.err.println("Client failed: " + failures.get(0));
+        }
+        report(clients, batchSize, formulaCount, useHandles, elapsed, latencies);
+        if (server != null) {
+            System.out.println("cache hits=" + EngineMetrics.EXPRESSION_CACHE_HITS.get()
+                    + " misses=" + EngineMetrics.EXPRESSION_CACHE_MISSES.get()
+                    + " evictions=" + EngineMetrics.EXPRESSION_CACHE_EVICTIONS.get());
+            server.close();
+        }
+    }
+
+    /**
+     * Sends batches until the deadline; returns the round-trip time of
+     * each batch in nanoseconds
+     */
+    private static long[] runClient(int port, String[] formulas, int batchSize, boolean useHandles,
+            Random random, long deadline) throws IOException {
+        try (EvaluationClient client = new EvaluationClient(port)) {
+            int[] handles = null;
+            if (useHandles) {
+                EvaluationClient.Batch compile = new EvaluationClient.Batch();
+                for (String formula : formulas) {
+                    compile.compile(formula);
+                }
+                EvaluationClient.Result[] results = client.send(compile);
+                handles = new int[results.length];
+                for (int i = 0; i < results.length; i++) {
+                    handles[i] = results[i].handle;
+                }
+            }
+
+            long[] latencies = new long[1024];
+            int batches = 0;
+            while (System.nanoTime() < deadline) {
+                EvaluationClient.Batch batch = new EvaluationClient.Batch();
+                for (int i = 0; i < batchSize; i++) {
+                    int pick = random.nextInt(formulas.length);
+                    if (handles != null) {
+                        batch.handle(handles[pick]);
+                    } else {
+                        batch.evaluate(formulas[pick]);
+                    }
+                }
+                long start = System.nanoTime();
+                client.send(batch);
+                if (batches == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, batches * 2);
+                }
+                latencies[batches++] = System.nanoTime() - start;
+            }
+            return Arrays.copyOf(latencies, batches);
+        }
+    }
+
+    /**
+     * Random display-style formulas such as "12.5 × (3 + 4)"
+     */
+    private static String[] formulas(int count, Random random) {
+        String[] formulas = new String[count];
+        for (int i = 0; i < count; i++) {
+            StringBuilder sb = new StringBuilder();
+            int terms = 2 + random.nextInt(6);
+            for (int t = 0; t < terms; t++) {
+                if (t > 0) {
+                    sb.append(OPERATORS[random.nextInt(OPERATORS.length)]);
+                }
+                if (random.nextInt(4) == 0) {
+                    sb.append('(').append(random.nextInt(100)).append(" + ")
+                            .append(random.nextInt(1000) / 10.0).append(')');
+                } else {
+                    sb.append(1 + random.nextInt(999));
+                }
+            }
+            formulas[i] = sb.toString();
+        }
+        return formulas;
+    }
+
+    private static void report(int clients, int batchSize, int formulaCount, boolean useHandles,
+            double elapsed, long[][] latencies) {
+        int count = 0;
+        for (long[] client : latencies) {
+            count += client.length;
+        }
+        long[] all = new long[count];
+        int at = 0;
+        for (long[] client : latencies) {
+            System.arraycopy(client, 0, all, at, client.length);
+            at += client.length;
+        }
+        Arrays.sort(all);
+
+        long expressions = (long) count * batchSize;
+        System.out.printf(Locale.ROOT, "clients=%d batch=%d formulas=%d mode=%s%n",
+                clients, batchSize, formulaCount, useHandles ? "handles" : "text");
+        System.out.printf(Locale.ROOT, "%d expressions in %.1f s: %.0f expressions/s, %d batches%n",
+                expressions, elapsed, expressions / elapsed, count);
+        if (count > 0) {
+            System.out.printf(Locale.ROOT, "batch latency: p50=%.3f ms p99=%.3f ms max=%.3f ms%n",
+                    percentile(all, 0.50) / 1e6, percentile(all, 0.99) / 1e6, all[count - 1] / 1e6);
+        }
+    }
+
+    private static long percentile(long[] sorted, double fraction) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * fraction))];
+    }
+}
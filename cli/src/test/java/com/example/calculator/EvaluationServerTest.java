@@ -0,0 +1,156 @@
+package com.example.calculator;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests for EvaluationServer: frames are read and written as specified,
+ * entries are evaluated in order, and oversize frames and unknown entry
+ * kinds close the connection
+ */
+public class EvaluationServerTest {
+
+    private EvaluationServer server;
+
+    @Before
+    public void startServer() throws IOException {
+        server = new EvaluationServer(0, 2);
+        server.start();
+    }
+
+    @After
+    public void stopServer() throws IOException {
+        server.close();
+    }
+
+    @Test
+    public void framesRoundTrip() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        EvaluationServer.writeFrame(out, new byte[] {1, 2, 3});
+        EvaluationServer.writeFrame(out, new byte[0]);
+
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        assertArrayEquals(new byte[] {1, 2, 3}, EvaluationServer.readFrame(in));
+        assertArrayEquals(new byte[0], EvaluationServer.readFrame(in));
+        try {
+            EvaluationServer.readFrame(in);
+            fail("no frame left");
+        } catch (EOFException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void badFrameLengthsAreRejected() throws IOException {
+        for (int length : new int[] {-1, EvaluationServer.MAX_FRAME + 1}) {
+            try {
+                EvaluationServer.readFrame(stream(length));
+                fail("length " + length + " should be rejected");
+            } catch (EOFException e) {
+                fail("length " + length + " should be rejected before reading the frame");
+            } catch (IOException e) {
+                assertEquals("Bad frame length " + length, e.getMessage());
+            }
+        }
+        try {
+            EvaluationServer.readFrame(stream(8, 1, 2));
+            fail("truncated frame");
+        } catch (EOFException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void entriesAreEvaluatedInOrder() throws IOException {
+        try (EvaluationClient client = new EvaluationClient(server.getPort())) {
+            EvaluationClient.Batch batch = new EvaluationClient.Batch()
+                    .evaluate("2 + 3 × 4")
+                    .evaluate("2)3")
+                    .evaluate("1 ÷ 0")
+                    .compile("1.5 × 4")
+                    .handle(7);
+            EvaluationClient.Result[] results = client.send(batch);
+            assertEquals(batch.size(), results.length);
+            assertResult(results[0], EvaluationServer.OK, 14, "14");
+            assertResult(results[1], EvaluationServer.ERROR, Double.NaN, "Error");
+            assertResult(results[2], EvaluationServer.ERROR, Double.NaN, "Error");
+            assertResult(results[3], EvaluationServer.OK, 6, "6");
+            assertEquals(0, results[3].handle);
+            assertEquals(EvaluationServer.UNKNOWN_HANDLE, results[4].status);
+
+            // Handles stay valid for later batches on the same connection
+            results = client.send(new EvaluationClient.Batch().handle(results[3].handle));
+            assertResult(results[0], EvaluationServer.OK, 6, "6");
+        }
+    }
+
+    @Test
+    public void oversizeFrameClosesConnection() throws IOException {
+        assertClosed(frameHeader(EvaluationServer.MAX_FRAME + 1));
+    }
+
+    @Test
+    public void unknownEntryKindClosesConnection() throws IOException {
+        ByteArrayOutputStream request = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(request);
+        out.writeInt(4 + 1);  // Frame length
+        out.writeInt(1);      // One entry
+        out.writeByte(9);     // Not EVALUATE, COMPILE or HANDLE
+        assertClosed(request.toByteArray());
+    }
+
+    private static void assertResult(EvaluationClient.Result result, byte status, double value, String text) {
+        assertEquals(status, result.status);
+        assertEquals(Double.doubleToLongBits(value), Double.doubleToLongBits(result.value));
+        assertEquals(text, result.text);
+    }
+
+    /**
+     * Sends raw bytes and checks that the server drops the connection
+     * without answering
+     */
+    private void assertClosed(byte[] request) throws IOException {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort())) {
+            socket.setSoTimeout(10_000);
+            socket.getOutputStream().write(request);
+            socket.getOutputStream().flush();
+            try {
+                assertEquals(-1, socket.getInputStream().read());
+            } catch (SocketException e) {
+                // Reset by the server: closed as well
+            }
+        }
+    }
+
+    private static byte[] frameHeader(int length) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new DataOutputStream(bytes).writeInt(length);
+        return bytes.toByteArray();
+    }
+
+    private static DataInputStream stream(int length, int... body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(length);
+        for (int b : body) {
+            out.writeByte(b);
+        }
+        return new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.calculator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+/**
+ * Tests for LineEvaluator: one output line per input line, and a line that
+ * only partly parses is an error rather than the value of its first part
+ */
+public class LineEvaluatorTest {
+
+    @Test
+    public void linesEvaluateLikeTheDisplay() {
+        assertEquals("14\n\n6\n0.5\n", run("2 + 3 × 4\n\n 12 ÷ 2 \n1 − 0.5"));
+        assertEquals("123\n", run("123\r\n"));
+    }
+
+    @Test
+    public void partlyParsedLinesAreErrors() {
+        String[] lines = {"1,000", "1e3", "12abc", "2)3", "2 3", "1. 5", "2 .5", "(1+2)3"};
+        LineEvaluator evaluator = new LineEvaluator();
+        for (String line : lines) {
+            evaluator.clearOutput();
+            evaluator.evaluateLines(buffer(line));
+            assertEquals(line, "Error\n", new String(evaluator.output().array(), 0, evaluator.outputLength(),
+                    StandardCharsets.UTF_8));
+        }
+        assertEquals(lines.length, evaluator.getErrorCount());
+    }
+
+    @Test
+    public void partlyParsedValuesAreNaN() {
+        LineEvaluator evaluator = new LineEvaluator();
+        for (String line : new String[] {"1,000", "1e3", "12abc", "2)3", "2 3"}) {
+            ByteBuffer input = buffer(line);
+            assertTrue(line, Double.isNaN(evaluator.evaluateValue(input, 0, input.limit())));
+        }
+        ByteBuffer input = buffer("2 + 3");
+        assertEquals(5, evaluator.evaluateValue(input, 0, input.limit()), 0);
+        assertEquals("2+3", evaluator.line().toString());
+    }
+
+    private static String run(String text) {
+        LineEvaluator evaluator = new LineEvaluator();
+        evaluator.evaluateLines(buffer(text));
+        return new String(evaluator.takeOutput(), StandardCharsets.UTF_8);
+    }
+
+    private static ByteBuffer buffer(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,23 @@
+plugins {
+    `java-library`
+}
+
+// Plain Java: the calculator engine has no Android dependencies, so the app,
+// the command-line tool and JVM tests all share it
+java {
+    sourceCompatibility = JavaVersion.VERSION_11
+    targetCompatibility = JavaVersion.VERSION_11
+}
+
+dependencies {
+    testImplementation(libs.junit)
+}
+
+tasks.test {
+    // Forward -Dcalculator.fuzz.cases=... and -Dcalculator.fuzz.seed=... to the tests
+    System.getProperties().stringPropertyNames()
+        .filter { it.startsWith("calculator.") }
+        .forEach { systemProperty(it, System.getProperty(it)) }
+    // The fuzz tests print the slowest cases and flagged inputs
+    testLogging.showStandardStreams = true
+}
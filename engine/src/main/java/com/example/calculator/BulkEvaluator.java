@@ -0,0 +1,340 @@
+package com.example.calculator;
+
+import java.util.Arrays;
+
+/**
+ * BulkEvaluator - evaluates multi-line text one line at a time
+ *
+ * Each non-empty line is either one expression ("12 × 3 + 1") or a row of
+ * columns separated by tabs, commas, semicolons or spaces between numbers
+ * ("1.5\t2\t3", "1 2"; spaces around operators are ignored). A row's
+ * result is the sum of its columns, and every column also gets a running
+ * total. Lines containing [..] go through the vector evaluator and must
+ * produce a scalar.
+ *
+ * The input is scanned in place. Only the current line is copied out, and
+ * per-line results are kept in primitive arrays of offsets and values,
+ * so a pasted block with 100k lines never becomes one big String.
+ *
+ * addStatistics() scans text the same way for the statistics mode, feeding
+ * each number straight into a StreamingStatistics.
+ */
+final class BulkEvaluator {
+
+    /**
+     * Outcome of a bulk evaluation; line i spans
+     * text[lineStarts[i], lineEnds[i]) and evaluated to results[i] (NaN on
+     * error)
+     */
+    static final class Result {
+        int lineCount = 0;
+        int errorCount = 0;
+        double total = 0;
+        int[] lineStarts = new int[64];
+        int[] lineEnds = new int[64];
+        double[] results = new double[64];
+        double[] columnTotals = new double[0];
+        int columnCount = 0;
+
+        boolean isError(int line) {
+            return Double.isNaN(results[line]);
+        }
+    }
+
+    /**
+     * Outcome of addStatistics()
+     */
+    static final class StatisticsResult {
+        long added = 0;          // Values, or (x, y) pairs, added
+        int rejected = 0;        // Tokens that are not numbers
+        boolean pairs = false;   // Whether the lines were read as (x, y) pairs
+    }
+
+    private BulkEvaluator() {
+    }
+
+    /**
+     * Returns true if the text holds more than one non-empty line
+     */
+    static boolean isMultiLine(CharSequence text) {
+        int lines = 0;
+        boolean content = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n') {
+                if (content && ++lines > 1) {
+                    return true;
+                }
+                content = false;
+            } else if (!Character.isWhitespace(c)) {
+                content = true;
+            }
+        }
+        return content && lines >= 1;
+    }
+
+    /**
+     * Evaluates every non-empty line of the text
+     */
+    static Result evaluate(CharSequence text) {
+        Result result = new Result();
+        StringBuilder line = new StringBuilder();
+        StringBuilder column = new StringBuilder();
+        ExpressionEvaluator evaluator = new ExpressionEvaluator();
+        int start = 0;
+
+        for (int i = 0; i <= text.length(); i++) {
+            if (i < text.length() && text.charAt(i) != '\n') {
+                continue;
+            }
+
+            // Copy the line without whitespace, normalizing operator symbols;
+            // whitespace between two numbers separates columns ("1 2")
+            line.setLength(0);
+            boolean space = false;
+            for (int j = start; j < i; j++) {
+                char c = text.charAt(j);
+                if (c == '\t') {
+                    line.append(',');
+                    space = false;
+                    continue;
+                }
+                if (Character.isWhitespace(c)) {
+                    space = line.length() > 0;
+                    continue;
+                }
+                if (space && isNumberPart(c) && isNumberPart(line.charAt(line.length() - 1))) {
+                    line.append(',');
+                }
+                space = false;
+                if (c == '×') {
+                    line.append('*');
+                } else if (c == '÷') {
+                    line.append('/');
+                } else if (c == '−') {
+                    line.append('-');
+                } else {
+                    line.append(c);
+                }
+            }
+
+            if (line.length() > 0) {
+                double value = evaluateLine(line, column, evaluator, result);
+                record(result, trimStart(text, start, i), trimEnd(text, start, i), value);
+            }
+            start = i + 1;
+        }
+        return result;
+    }
+
+    private static boolean isNumberPart(char c) {
+        return (c >= '0' && c <= '9') || c == '.';
+    }
+
+    /**
+     * Evaluates one normalized line, adding its columns to the column totals
+     *
+     * Each column is copied into the reused column buffer and evaluated by
+     * the one evaluator; a column with anything left after its expression
+     * ("12abc", "3)4") makes the line an error.
+     *
+     * @return The line value, or NaN if the line could not be evaluated
+     */
+    private static double evaluateLine(StringBuilder line, StringBuilder columnText,
+            ExpressionEvaluator evaluator, Result result) {
+        try {
+            if (line.indexOf("[") >= 0) {
+                return new VectorEvaluator(line.toString()).evaluate().scalarValue();
+            }
+
+            double rowSum = 0;
+            int column = 0;
+            int columnStart = 0;
+            double[] row = new double[Math.max(1, result.columnCount)];
+            for (int i = 0; i <= line.length(); i++) {
+                if (i < line.length() && line.charAt(i) != ',' && line.charAt(i) != ';') {
+                    continue;
+                }
+                if (i > columnStart) {
+                    columnText.setLength(0);
+                    columnText.append(line, columnStart, i);
+                    double value = evaluator.evaluate(columnText);
+                    evaluator.requireEnd();
+                    if (column == row.length) {
+                        row = Arrays.copyOf(row, column * 2);
+                    }
+                    row[column++] = value;
+                    rowSum += value;
+                }
+                columnStart = i + 1;
+            }
+            if (column == 0) {
+                return Double.NaN;
+            }
+
+            // Only a fully evaluated row contributes to the column totals
+            if (column > result.columnCount) {
+                result.columnTotals = Arrays.copyOf(result.columnTotals, column);
+                result.columnCount = column;
+            }
+            for (int c = 0; c < column; c++) {
+                result.columnTotals[c] += row[c];
+            }
+            return rowSum;
+        } catch (Exception e) {
+            return Double.NaN;
+        }
+    }
+
+    // ===== Statistics =====
+    /**
+     * Adds every number in the text to the statistics, scanning the text in
+     * place without a String per number
+     *
+     * Numbers are separated by whitespace, commas or semicolons. If the text
+     * has several non-empty lines and each holds exactly two numbers, the
+     * lines are (x, y) pairs for the regression; otherwise every number is a
+     * value of its own. The whole text is read one way, so a stray line can
+     * not mix pairs into a list of values; a pair with a token that is not a
+     * number is skipped.
+     */
+    static StatisticsResult addStatistics(CharSequence text, StreamingStatistics statistics) {
+        StatisticsResult result = new StatisticsResult();
+        result.pairs = isPairList(text);
+        double x = 0;
+        int lineTokens = 0;     // Tokens seen on the current line
+        boolean lineValid = true; // No rejected token on the current line
+        int tokenStart = -1;
+
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : '\n';
+            if (!isSeparator(c)) {
+                if (tokenStart < 0) {
+                    tokenStart = i;
+                }
+                continue;
+            }
+
+            if (tokenStart >= 0) {
+                try {
+                    double value = parseNumber(text, tokenStart, i);
+                    if (!result.pairs) {
+                        statistics.add(value);
+                        result.added++;
+                    } else if (lineTokens == 0) {
+                        x = value;
+                    } else if (lineValid) {
+                        statistics.add(x, value);
+                        result.added++;
+                    }
+                } catch (NumberFormatException e) {
+                    result.rejected++;
+                    lineValid = false;
+                }
+                lineTokens++;
+                tokenStart = -1;
+            }
+            if (c == '\n') {
+                lineTokens = 0;
+                lineValid = true;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Whether the text has at least two non-empty lines and each holds
+     * exactly two tokens
+     */
+    private static boolean isPairList(CharSequence text) {
+        int lines = 0;
+        int tokens = 0;
+        boolean inToken = false;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : '\n';
+            if (!isSeparator(c)) {
+                if (!inToken) {
+                    tokens++;
+                    inToken = true;
+                }
+                continue;
+            }
+            inToken = false;
+            if (c == '\n') {
+                if (tokens != 0 && tokens != 2) {
+                    return false;
+                }
+                if (tokens == 2) {
+                    lines++;
+                }
+                tokens = 0;
+            }
+        }
+        return lines >= 2;
+    }
+
+    private static boolean isSeparator(char c) {
+        return Character.isWhitespace(c) || c == ',' || c == ';';
+    }
+
+    /**
+     * Parses the number text[start, end); plain decimals such as "-12.5" are
+     * read in place, anything else goes through Double.parseDouble
+     *
+     * @throws NumberFormatException If the token is not a number
+     */
+    private static double parseNumber(CharSequence text, int start, int end) {
+        char sign = text.charAt(start);
+        int from = sign == '-' || sign == '+' ? start + 1 : start;
+        boolean plain = end > from;
+        for (int i = from; i < end && plain; i++) {
+            char c = text.charAt(i);
+            plain = (c >= '0' && c <= '9') || c == '.';
+        }
+        if (!plain) {
+            return Double.parseDouble(text.subSequence(start, end).toString());
+        }
+        double value = ExpressionEvaluator.numberValue(text, from, end);
+        return sign == '-' ? -value : value;
+    }
+
+    private static void record(Result result, int start, int end, double value) {
+        int n = result.lineCount;
+        if (n == result.results.length) {
+            int capacity = n * 2;
+            result.lineStarts = Arrays.copyOf(result.lineStarts, capacity);
+            result.lineEnds = Arrays.copyOf(result.lineEnds, capacity);
+            result.results = Arrays.copyOf(result.results, capacity);
+        }
+        result.lineStarts[n] = start;
+        result.lineEnds[n] = end;
+        result.results[n] = value;
+        result.lineCount++;
+
+        if (Double.isNaN(value)) {
+            result.errorCount++;
+        } else {
+            result.total += value;
+        }
+    }
+
+    /**
+     * Skips leading whitespace of a line range
+     */
+    private static int trimStart(CharSequence text, int start, int end) {
+        while (start < end && Character.isWhitespace(text.charAt(start))) {
+            start++;
+        }
+        return start;
+    }
+
+    /**
+     * Drops trailing whitespace (including '\r') from a line range
+     */
+    private static int trimEnd(CharSequence text, int start, int end) {
+        while (end > start && Character.isWhitespace(text.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+}
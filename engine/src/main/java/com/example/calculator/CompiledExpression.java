@@ -0,0 +1,181 @@
+package com.example.calculator;
+
+import java.util.Arrays;
+
+/**
+ * CompiledExpression - an expression parsed once and kept as a postfix
+ * program
+ *
+ * compile() runs the ExpressionEvaluator parser, but instead of computing
+ * while parsing it records each operation in evaluation order: "2+3*4"
+ * becomes PUSH 2, PUSH 3, PUSH 4, MULTIPLY, ADD. evaluate() runs the
+ * program on a small operand stack, so a formula that is evaluated again
+ * skips parsing and number conversion entirely.
+ *
+ * The operations and their order are the same as in ExpressionEvaluator,
+ * so the result is bit for bit the same double, and division by zero fails
+ * in the same way.
+ *
+ * A memory register in the expression compiles to LOAD, which reads the
+ * register when the program runs; such a program can be cached, but its
+ * result cannot (see readsRegisters()).
+ *
+ * Immutable and thread-safe once compiled.
+ */
+final class CompiledExpression {
+
+    // Operation codes, also used by ExpressionEvaluator for its operator stack
+    static final byte PUSH = 0;      // Pushes the next constant
+    static final byte ADD = 1;
+    static final byte SUBTRACT = 2;
+    static final byte MULTIPLY = 3;
+    static final byte DIVIDE = 4;
+    static final byte POWER = 5;
+    static final byte NEGATE = 6;
+    static final byte LOAD = 7;      // Pushes a memory register; its number is the next constant
+
+    private final byte[] code;
+    private final double[] constants;
+    private final int maxDepth;          // Operand stack size evaluate() needs
+    private final boolean readsRegisters;
+
+    private CompiledExpression(byte[] code, double[] constants, int maxDepth, boolean readsRegisters) {
+        this.code = code;
+        this.constants = constants;
+        this.maxDepth = maxDepth;
+        this.readsRegisters = readsRegisters;
+    }
+
+    /**
+     * Compiles an expression in ExpressionEvaluator syntax
+     *
+     * @param expr Expression without spaces, using * and / for × and ÷
+     * @throws Exception If the expression does not parse
+     */
+    static CompiledExpression compile(CharSequence expr) throws Exception {
+        return new ExpressionEvaluator().compile(expr);
+    }
+
+    /**
+     * Approximate memory used by the program, in bytes
+     */
+    int size() {
+        return 48 + code.length + 8 * constants.length;
+    }
+
+    /**
+     * Whether the program reads memory registers, so its result can change
+     * between runs
+     */
+    boolean readsRegisters() {
+        return readsRegisters;
+    }
+
+    /**
+     * Runs the program
+     *
+     * @throws Exception On division by zero
+     */
+    double evaluate() throws Exception {
+        return evaluate(null);
+    }
+
+    /**
+     * Runs the program with the given memory registers
+     *
+     * @throws Exception On division by zero or when a register it reads is
+     * empty
+     */
+    double evaluate(MemoryRegisters registers) throws Exception {
+        double[] stack = new double[maxDepth];
+        int top = -1;
+        int next = 0;
+
+        for (byte op : code) {
+            switch (op) {
+                case PUSH:
+                    stack[++top] = constants[next++];
+                    break;
+                case LOAD:
+                    stack[++top] = ExpressionEvaluator.readRegister(registers, (int) constants[next++]);
+                    break;
+                case ADD:
+                    stack[top - 1] += stack[top];
+                    top--;
+                    break;
+                case SUBTRACT:
+                    stack[top - 1] -= stack[top];
+                    top--;
+                    break;
+                case MULTIPLY:
+                    stack[top - 1] *= stack[top];
+                    top--;
+                    break;
+                case DIVIDE:
+                    if (stack[top] == 0) {
+                        throw new Exception("Division by zero");
+                    }
+                    stack[top - 1] /= stack[top];
+                    top--;
+                    break;
+                case POWER:
+                    stack[top - 1] = Math.pow(stack[top - 1], stack[top]);
+                    top--;
+                    break;
+                default: // NEGATE
+                    stack[top] = -stack[top];
+                    break;
+            }
+        }
+        return stack[0];
+    }
+
+    /**
+     * Collects the operations of a program as ExpressionEvaluator parses it
+     */
+    static final class Builder {
+
+        private byte[] code = new byte[16];
+        private int codeLength = 0;
+        private double[] constants = new double[8];
+        private int constantCount = 0;
+        private int depth = 0;
+        private int maxDepth = 0;
+        private boolean readsRegisters = false;
+
+        void push(double value) {
+            constant(value);
+            emit(PUSH);
+        }
+
+        void load(int register) {
+            constant(register);
+            emit(LOAD);
+            readsRegisters = true;
+        }
+
+        private void constant(double value) {
+            if (constantCount == constants.length) {
+                constants = Arrays.copyOf(constants, constantCount * 2);
+            }
+            constants[constantCount++] = value;
+        }
+
+        void emit(byte op) {
+            if (codeLength == code.length) {
+                code = Arrays.copyOf(code, codeLength * 2);
+            }
+            code[codeLength++] = op;
+            if (op == PUSH || op == LOAD) {
+                maxDepth = Math.max(maxDepth, ++depth);
+            } else if (op != NEGATE) {
+                depth--;
+            }
+        }
+
+        CompiledExpression build() {
+            return new CompiledExpression(Arrays.copyOf(code, codeLength),
+                    Arrays.copyOf(constants, constantCount), maxDepth, readsRegisters);
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.example.calculator;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * EngineMetrics - lightweight counters and latency histograms for the
+ * calculator hot paths
+ *
+ * Usage:
+ *   long start = EngineMetrics.start();
+ *   ... work ...
+ *   EngineMetrics.EVALUATE.stop(start);
+ *
+ * When metrics are disabled start() returns 0 without reading the clock
+ * and stop(0) returns immediately, so the cost is one field read and one
+ * branch. When enabled, recording is lock-free: one clock read plus a few
+ * atomic increments into fixed, log-linear (HDR-style) buckets.
+ */
+final class EngineMetrics {
+
+    // Global switch, read on every start()/increment()
+    static volatile boolean enabled = true;
+
+    // Hot-path timers
+    static final Timer EVALUATE = new Timer("evaluateExpression");
+    static final Timer FORMAT = new Timer("formatNumber");
+    static final Timer FACTORIAL = new Timer("factorial");
+    static final Timer HISTORY_LOAD = new Timer("history.load");
+    static final Timer HISTORY_SAVE = new Timer("history.save");
+    static final Timer MEMORY_SAVE = new Timer("memory.save");
+    static final Timer STARTUP = new Timer("onCreate");
+    static final Timer FIRST_FRAME = new Timer("startup.firstFrame");
+    static final Timer SERVER_BATCH = new Timer("server.batch");
+
+    // Counters
+    static final Counter EVALUATION_ERRORS = new Counter("evaluate.errors");
+    static final Counter EXPRESSION_CACHE_HITS = new Counter("expressionCache.hits");
+    static final Counter EXPRESSION_CACHE_MISSES = new Counter("expressionCache.misses");
+    static final Counter EXPRESSION_CACHE_EVICTIONS = new Counter("expressionCache.evictions");
+
+    private static final Timer[] TIMERS = {EVALUATE, FORMAT, FACTORIAL, HISTORY_LOAD, HISTORY_SAVE,
+        MEMORY_SAVE, STARTUP, FIRST_FRAME, SERVER_BATCH};
+    private static final Counter[] COUNTERS = {EVALUATION_ERRORS, EXPRESSION_CACHE_HITS, EXPRESSION_CACHE_MISSES,
+        EXPRESSION_CACHE_EVICTIONS};
+
+    private EngineMetrics() {
+    }
+
+    /**
+     * Starts a measurement; returns 0 when metrics are disabled
+     */
+    static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Clears every timer and counter
+     */
+    static void reset() {
+        for (Timer timer : TIMERS) {
+            timer.reset();
+        }
+        for (Counter counter : COUNTERS) {
+            counter.reset();
+        }
+    }
+
+    /**
+     * Human-readable summary of all metrics, one line per metric
+     */
+    static String summary() {
+        StringBuilder sb = new StringBuilder();
+        for (Timer timer : TIMERS) {
+            timer.appendTo(sb);
+            sb.append('\n');
+        }
+        for (Counter counter : COUNTERS) {
+            sb.append(counter.name).append(": ").append(counter.get()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Writes the summary plus raw histogram buckets to a file
+     */
+    static void dumpToFile(File file) throws IOException {
+        try (Writer writer = new FileWriter(file)) {
+            writer.write("# Calculator engine metrics, enabled=" + enabled + "\n");
+            writer.write(summary());
+            writer.write("\n# Histogram buckets: name lowerBoundNanos count\n");
+            for (Timer timer : TIMERS) {
+                for (int i = 0; i < Timer.BUCKETS; i++) {
+                    long count = timer.buckets.get(i);
+                    if (count != 0) {
+                        writer.write(timer.name + " " + Timer.lowerBound(i) + " " + count + "\n");
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Monotonic event counter
+     */
+    static final class Counter {
+
+        final String name;
+        private final LongAdder count = new LongAdder();
+
+        Counter(String name) {
+            this.name = name;
+        }
+
+        void increment() {
+            if (enabled) {
+                count.increment();
+            }
+        }
+
+        long get() {
+            return count.sum();
+        }
+
+        void reset() {
+            count.reset();
+        }
+    }
+
+    /**
+     * Latency histogram with log-linear buckets
+     *
+     * Each power of two is split into 8 linear sub-buckets, so any recorded
+     * value is within 12.5% of its bucket's lower bound. 64 powers x 8
+     * sub-buckets cover the full range of a long in a fixed 512-slot array.
+     */
+    static final class Timer {
+
+        private static final int SUB_BUCKET_BITS = 3;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        static final int BUCKETS = 64 * SUB_BUCKETS;
+
+        final String name;
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+
+        Timer(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Records the time since start (a value from EngineMetrics.start())
+         */
+        void stop(long start) {
+            if (start == 0) {
+                return;
+            }
+            record(System.nanoTime() - start);
+        }
+
+        void record(long nanos) {
+            if (nanos < 0) {
+                nanos = 0;
+            }
+            buckets.incrementAndGet(bucketIndex(nanos));
+            totalNanos.add(nanos);
+
+            long max = maxNanos.get();
+            while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+                max = maxNanos.get();
+            }
+        }
+
+        /**
+         * Bucket of a value: its power of two, then its next three bits
+         */
+        static int bucketIndex(long value) {
+            if (value < SUB_BUCKETS) {
+                return (int) value;
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(value);
+            int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+            return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+        }
+
+        /**
+         * Smallest value that falls into the given bucket
+         */
+        static long lowerBound(int index) {
+            if (index < SUB_BUCKETS) {
+                return index;
+            }
+            int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+            int subBucket = index % SUB_BUCKETS;
+            return (1L << exponent) + ((long) subBucket << (exponent - SUB_BUCKET_BITS));
+        }
+
+        long count() {
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                total += buckets.get(i);
+            }
+            return total;
+        }
+
+        /**
+         * Approximate value at the given percentile (0-100), in nanoseconds
+         */
+        long percentile(double percentile) {
+            long total = count();
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(total * percentile / 100.0);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += buckets.get(i);
+                if (seen >= Math.max(rank, 1)) {
+                    return lowerBound(i);
+                }
+            }
+            return maxNanos.get();
+        }
+
+        long max() {
+            return maxNanos.get();
+        }
+
+        double meanNanos() {
+            long total = count();
+            return total == 0 ? 0 : (double) totalNanos.sum() / total;
+        }
+
+        void reset() {
+            for (int i = 0; i < BUCKETS; i++) {
+                buckets.set(i, 0);
+            }
+            totalNanos.reset();
+            maxNanos.set(0);
+        }
+
+        void appendTo(StringBuilder sb) {
+            sb.append(name).append(": n=").append(count())
+                    .append(" mean=").append(micros((long) meanNanos()))
+                    .append(" p50=").append(micros(percentile(50)))
+                    .append(" p99=").append(micros(percentile(99)))
+                    .append(" max=").append(micros(max()));
+        }
+
+        private static String micros(long nanos) {
+            return String.format(Locale.US, "%.1fµs", nanos / 1000.0);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.calculator;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ExpressionCache - process-wide cache of compiled expressions and their
+ * results
+ *
+ * Formulas that are evaluated again and again (by another calculator tab,
+ * a client polling the same calculation, or a sheet of similar rows) are
+ * parsed once; after the first evaluation even the result is reused, since
+ * an expression of numbers and operators always gives the same value (or
+ * the same error). Expressions that read memory registers are compiled
+ * once too, but evaluated every time, since the registers change.
+ *
+ * Keys are either evaluator text ("2+3*4", see compile(String)) or a
+ * TokenList's display text, which always ends with a space
+ * ("2 × 3 + 4 ", see evaluate(TokenList)), so the two never collide.
+ *
+ * Lookups are lock-free (ConcurrentHashMap). Memory is bounded globally: each
+ * entry is charged an estimate of its size, and when the total passes the
+ * budget one thread at a time evicts entries with the CLOCK policy (entries
+ * used since the last sweep get a second chance), an approximation of least
+ * recently used across the whole cache. Expressions that fail to compile are
+ * not cached.
+ */
+final class ExpressionCache {
+
+    // Shared by every calculator session and the evaluation server
+    static final ExpressionCache SHARED = new ExpressionCache(4 << 20);
+
+    private static final int ENTRY_OVERHEAD = 96; // Entry, map node and queue node, in bytes
+
+    private final long budgetBytes;
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Entry> clock = new ConcurrentLinkedQueue<>(); // Oldest first
+    private final AtomicLong usedBytes = new AtomicLong();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    /**
+     * @param budgetBytes Approximate memory the cached entries may use
+     */
+    ExpressionCache(long budgetBytes) {
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * Compiles an expression on a cache miss
+     */
+    interface Source {
+        CompiledExpression compile() throws Exception;
+    }
+
+    /**
+     * A cached expression: its compiled form and, once evaluated, its result
+     */
+    static final class Entry {
+
+        final String key;
+        final CompiledExpression compiled;
+        private final int weight;
+        private volatile boolean referenced;   // Used since the last eviction sweep
+        private volatile boolean evaluated;    // value/error below are set
+        private double value;
+        private String error;                  // Message if evaluation failed
+
+        Entry(String key, CompiledExpression compiled) {
+            this.key = key;
+            this.compiled = compiled;
+            this.weight = ENTRY_OVERHEAD + 2 * key.length() + compiled.size();
+        }
+
+        /**
+         * The expression's value with the given memory registers; computed
+         * once unless the expression reads registers
+         *
+         * @throws Exception On division by zero or an empty register
+         */
+        double value(MemoryRegisters registers) throws Exception {
+            if (compiled.readsRegisters()) {
+                return compiled.evaluate(registers);
+            }
+            return value();
+        }
+
+        /**
+         * The expression's value, computed on first use
+         *
+         * @throws Exception On division by zero
+         */
+        double value() throws Exception {
+            if (!evaluated) {
+                // Two threads may both evaluate; they get the same result
+                try {
+                    value = compiled.evaluate();
+                } catch (Exception e) {
+                    error = e.getMessage();
+                }
+                evaluated = true;
+            }
+            if (error != null) {
+                throw new Exception(error);
+            }
+            return value;
+        }
+    }
+
+    /**
+     * Returns the entry for an expression in evaluator syntax, compiling it
+     * on a miss
+     *
+     * @param expr Expression without spaces, using * and / for × and ÷
+     * @throws Exception If the expression does not parse, or has input left
+     * after it ("2)3")
+     */
+    Entry get(String expr) throws Exception {
+        return get(expr, () -> {
+            ExpressionEvaluator evaluator = new ExpressionEvaluator();
+            CompiledExpression compiled = evaluator.compile(expr);
+            evaluator.requireEnd();
+            return compiled;
+        });
+    }
+
+    /**
+     * Compiled form of an expression in evaluator syntax
+     */
+    CompiledExpression compile(String expr) throws Exception {
+        return get(expr).compiled;
+    }
+
+    /**
+     * Value of an expression the way the display evaluates it (see
+     * TokenEvaluator)
+     *
+     * @param registers Registers the expression may read, or null
+     */
+    double evaluate(TokenList tokens, MemoryRegisters registers) throws Exception {
+        return get(tokens.toString(), () -> new TokenEvaluator(tokens).compile()).value(registers);
+    }
+
+    /**
+     * Returns the entry for a key, compiling it with the source on a miss
+     */
+    Entry get(String key, Source source) throws Exception {
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            entry.referenced = true;
+            EngineMetrics.EXPRESSION_CACHE_HITS.increment();
+            return entry;
+        }
+
+        EngineMetrics.EXPRESSION_CACHE_MISSES.increment();
+        Entry created = new Entry(key, source.compile());
+        entry = entries.putIfAbsent(key, created);
+        if (entry != null) {
+            return entry; // Another thread compiled it first
+        }
+        clock.add(created);
+        usedBytes.addAndGet(created.weight);
+        evict();
+        return created;
+    }
+
+    /**
+     * Sweeps the clock until the cache is back under 90% of its budget;
+     * threads that find a sweep in progress do not wait for it, and the
+     * sweeping thread checks again afterwards for entries they added
+     */
+    private void evict() {
+        while (usedBytes.get() > budgetBytes && evictionLock.tryLock()) {
+            try {
+                long target = budgetBytes - budgetBytes / 10;
+                Entry entry;
+                while (usedBytes.get() > target && (entry = clock.poll()) != null) {
+                    if (entry.referenced) {
+                        entry.referenced = false; // Second chance
+                        clock.add(entry);
+                        continue;
+                    }
+                    entries.remove(entry.key, entry);
+                    usedBytes.addAndGet(-entry.weight);
+                    EngineMetrics.EXPRESSION_CACHE_EVICTIONS.increment();
+                }
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    long usedBytes() {
+        return usedBytes.get();
+    }
+
+    void clear() {
+        evictionLock.lock();
+        try {
+            Entry entry;
+            while ((entry = clock.poll()) != null) {
+                entries.remove(entry.key, entry);
+                usedBytes.addAndGet(-entry.weight);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,394 @@
+package com.example.calculator;
+
+import java.util.Arrays;
+
+/**
+ * Expression parser and evaluator using the shunting-yard algorithm
+ * Implements proper operator precedence
+ *
+ * The grammar is the calculator's usual one:
+ *   expression := term (('+' | '-') term)*
+ *   term       := power (('*' | '/') power)*
+ *   power      := unary ('^' power)?          right-associative
+ *   unary      := ('-' | '+') unary | primary  binds tighter than '^'
+ *   primary    := '(' expression ')' | number | register
+ * Parsing stops at the first character that cannot continue the
+ * expression, as before.
+ *
+ * The parser is iterative: operands wait on a double[] stack and pending
+ * operators on a byte[] stack, and an operator is applied as soon as
+ * everything that binds tighter is done. Nesting depth and chains of
+ * unary minus therefore cost stack entries, not call frames, so 100000
+ * levels of parentheses evaluate in linear time on any thread. The
+ * operations happen in the same order as in a recursive descent parser,
+ * so results are unchanged.
+ *
+ * The same parse can record the operations instead of running them, which
+ * is how CompiledExpression is built.
+ *
+ * Registers (memory M, M1..M9) only appear in token input, see
+ * TokenEvaluator; text input has numbers only.
+ *
+ * An instance can be reused for many expressions through
+ * evaluate(CharSequence), which avoids an allocation per line when
+ * evaluating large inputs.
+ */
+class ExpressionEvaluator {
+
+    // Powers of ten that are exact doubles, for the fast number path
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    // Marks an open parenthesis on the operator stack
+    private static final byte OPEN = -1;
+
+    private CharSequence expression;
+    int position = 0;
+
+    private double[] operands = new double[16];
+    private int operandCount = 0;
+    private byte[] operators = new byte[16];
+    private int operatorCount = 0;
+    private CompiledExpression.Builder program; // Set while compiling
+    MemoryRegisters registers;                  // Read by register operands, may be null
+
+    ExpressionEvaluator(String expr) {
+        this.expression = expr;
+    }
+
+    /**
+     * Creates an evaluator to be used with evaluate(CharSequence)
+     */
+    ExpressionEvaluator() {
+        this.expression = "";
+    }
+
+    /**
+     * Main evaluation method
+     */
+    double evaluate() throws Exception {
+        position = 0;
+        program = null;
+        parse();
+        return operands[0];
+    }
+
+    /**
+     * Evaluates another expression with this instance
+     *
+     * @param expr Expression without spaces, using * and / for × and ÷
+     */
+    double evaluate(CharSequence expr) throws Exception {
+        this.expression = expr;
+        return evaluate();
+    }
+
+    /**
+     * Parses the expression into a program that can be evaluated again
+     * without parsing
+     */
+    CompiledExpression compile() throws Exception {
+        position = 0;
+        program = new CompiledExpression.Builder();
+        try {
+            parse();
+            return program.build();
+        } finally {
+            program = null;
+        }
+    }
+
+    /**
+     * Compiles another expression with this instance
+     *
+     * @param expr Expression without spaces, using * and / for × and ÷
+     */
+    CompiledExpression compile(CharSequence expr) throws Exception {
+        this.expression = expr;
+        return compile();
+    }
+
+    /**
+     * Fails unless the last evaluation or compilation read the whole
+     * expression; parsing stops at the first character that cannot continue
+     * it, so "2)3" gives 2 without this check
+     */
+    void requireEnd() throws Exception {
+        if (position < expression.length()) {
+            throw new Exception("Unexpected character: " + expression.charAt(position));
+        }
+    }
+
+    // ===== Parsing =====
+    /**
+     * Reads one expression, applying (or recording) each operation as soon
+     * as its operands are complete
+     */
+    private void parse() throws Exception {
+        operandCount = 0;
+        operatorCount = 0;
+        int openParentheses = 0;
+
+        while (true) {
+            // Operand: prefix signs and opening parentheses, then a number
+            char c = peek();
+            while (c == '-' || c == '+' || c == '(') {
+                if (c == '-') {
+                    pushOperator(CompiledExpression.NEGATE);
+                } else if (c == '(') {
+                    pushOperator(OPEN);
+                    openParentheses++;
+                }
+                position++;
+                c = peek();
+            }
+            parseOperand();
+            applyUnary();
+
+            // Closing parentheses, each completing an operand
+            c = peek();
+            while (c == ')' && openParentheses > 0) {
+                while (operators[operatorCount - 1] != OPEN) {
+                    apply(operators[--operatorCount]);
+                }
+                operatorCount--;
+                openParentheses--;
+                position++;
+                applyUnary();
+                c = peek();
+            }
+
+            // A binary operator continues the expression; anything else ends it
+            byte operator = binaryOperator(c);
+            if (operator < 0) {
+                if (openParentheses > 0) {
+                    throw new Exception("Mismatched parentheses");
+                }
+                break;
+            }
+            position++;
+            while (operatorCount > 0 && appliesBefore(operators[operatorCount - 1], operator)) {
+                apply(operators[--operatorCount]);
+            }
+            pushOperator(operator);
+        }
+
+        while (operatorCount > 0) {
+            apply(operators[--operatorCount]);
+        }
+    }
+
+    /**
+     * Applies the unary minus signs written before the operand just completed
+     */
+    private void applyUnary() throws Exception {
+        while (operatorCount > 0 && operators[operatorCount - 1] == CompiledExpression.NEGATE) {
+            apply(operators[--operatorCount]);
+        }
+    }
+
+    private static byte binaryOperator(char c) {
+        switch (c) {
+            case '+':
+                return CompiledExpression.ADD;
+            case '-':
+                return CompiledExpression.SUBTRACT;
+            case '*':
+                return CompiledExpression.MULTIPLY;
+            case '/':
+                return CompiledExpression.DIVIDE;
+            case '^':
+                return CompiledExpression.POWER;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Whether a pending operator must be applied before pushing the next
+     * one: it binds tighter, or as tight and the next one is not '^'
+     * (which is right-associative)
+     */
+    private static boolean appliesBefore(byte pending, byte next) {
+        if (pending == OPEN) {
+            return false;
+        }
+        int pendingPrecedence = precedence(pending);
+        int nextPrecedence = precedence(next);
+        return pendingPrecedence > nextPrecedence
+                || (pendingPrecedence == nextPrecedence && next != CompiledExpression.POWER);
+    }
+
+    private static int precedence(byte operator) {
+        switch (operator) {
+            case CompiledExpression.ADD:
+            case CompiledExpression.SUBTRACT:
+                return 1;
+            case CompiledExpression.MULTIPLY:
+            case CompiledExpression.DIVIDE:
+                return 2;
+            default:
+                return 3;
+        }
+    }
+
+    // ===== Stacks =====
+    private void pushOperator(byte operator) {
+        if (operatorCount == operators.length) {
+            operators = Arrays.copyOf(operators, operatorCount * 2);
+        }
+        operators[operatorCount++] = operator;
+    }
+
+    private void pushOperand(double value) {
+        if (program != null) {
+            program.push(value);
+            return;
+        }
+        if (operandCount == operands.length) {
+            operands = Arrays.copyOf(operands, operandCount * 2);
+        }
+        operands[operandCount++] = value;
+    }
+
+    /**
+     * Applies an operator to the operands on top of the stack
+     */
+    private void apply(byte operator) throws Exception {
+        if (program != null) {
+            program.emit(operator);
+            return;
+        }
+        if (operator == CompiledExpression.NEGATE) {
+            operands[operandCount - 1] = -operands[operandCount - 1];
+            return;
+        }
+        double right = operands[--operandCount];
+        double left = operands[operandCount - 1];
+        switch (operator) {
+            case CompiledExpression.ADD:
+                left += right;
+                break;
+            case CompiledExpression.SUBTRACT:
+                left -= right;
+                break;
+            case CompiledExpression.MULTIPLY:
+                left *= right;
+                break;
+            case CompiledExpression.DIVIDE:
+                if (right == 0) {
+                    throw new Exception("Division by zero");
+                }
+                left /= right;
+                break;
+            default:
+                left = Math.pow(left, right);
+                break;
+        }
+        operands[operandCount - 1] = left;
+    }
+
+    // ===== Input =====
+    /**
+     * Reads the operand at the current position and pushes its value (or
+     * records it when compiling)
+     */
+    void parseOperand() throws Exception {
+        pushOperand(parseNumber());
+    }
+
+    /**
+     * Pushes the value of a memory register, or records the read when
+     * compiling so the compiled program reads the register each time
+     */
+    void pushRegister(int register) throws Exception {
+        if (program != null) {
+            program.load(register);
+            return;
+        }
+        pushOperand(readRegister(registers, register));
+    }
+
+    /**
+     * Value of a register
+     *
+     * @throws Exception If there are no registers or the register is empty
+     */
+    static double readRegister(MemoryRegisters registers, int register) throws Exception {
+        if (registers == null) {
+            throw new Exception("Memory " + MemoryRegisters.label(register) + " is not available");
+        }
+        return registers.get(register);
+    }
+
+    /**
+     * Parses a number (integer or decimal)
+     */
+    double parseNumber() throws Exception {
+        int start = position;
+        while (position < expression.length()
+                && ((peek() >= '0' && peek() <= '9') || peek() == '.')) {
+            position++;
+        }
+
+        if (position == start) {
+            throw new Exception("Invalid expression");
+        }
+        return numberValue(expression, start, position);
+    }
+
+    /**
+     * Value of the number literal in [start, end): digits and decimal
+     * points, as found by parseNumber
+     *
+     * With up to 15 significant digits and 22 decimals, both the digits and
+     * 10^decimals are exact doubles, so one division gives the same
+     * correctly rounded value as Double.parseDouble without building a
+     * String. Anything else (long numbers, a stray second '.', characters
+     * other than ASCII digits) goes through Double.parseDouble.
+     */
+    static double numberValue(CharSequence expr, int start, int end) {
+        long digits = 0;
+        int significantDigits = 0;
+        int decimals = 0;
+        int points = 0;
+        boolean ascii = true;
+
+        for (int i = start; i < end; i++) {
+            char c = expr.charAt(i);
+            if (c == '.') {
+                points++;
+                continue;
+            }
+            if (c < '0' || c > '9') {
+                ascii = false;
+                break;
+            }
+            if (significantDigits > 0 || c != '0') {
+                significantDigits++;
+            }
+            digits = digits * 10 + (c - '0');
+            if (points > 0) {
+                decimals++;
+            }
+        }
+
+        int length = end - start;
+        if (ascii && points <= 1 && length > points && significantDigits <= 15 && decimals < POWERS_OF_TEN.length) {
+            return digits / POWERS_OF_TEN[decimals];
+        }
+        return Double.parseDouble(expr.subSequence(start, end).toString());
+    }
+
+    /**
+     * Peeks at the current character without consuming it
+     */
+    char peek() {
+        if (position >= expression.length()) {
+            return '\0';
+        }
+        return expression.charAt(position);
+    }
+}
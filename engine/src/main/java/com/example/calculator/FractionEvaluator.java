@@ -0,0 +1,144 @@
+package com.example.calculator;
+
+/**
+ * Expression parser and evaluator for the fraction mode
+ *
+ * Same grammar and precedence as ExpressionEvaluator, but every value is an
+ * exact Rational: decimal literals are read exactly ("0.1" is 1/10) and
+ * "1/3*3" gives exactly 1. Exponents must be integers.
+ */
+class FractionEvaluator {
+
+    private String expression;
+    private int position = 0;
+
+    FractionEvaluator(String expr) {
+        this.expression = expr;
+    }
+
+    /**
+     * Main evaluation method - starts with lowest precedence
+     * (addition/subtraction); the whole expression must be read, so "(2)3"
+     * is an error rather than 2
+     */
+    Rational evaluate() throws Exception {
+        Rational result = parseAdditionSubtraction();
+        if (position < expression.length()) {
+            throw new Exception("Unexpected character: " + peek());
+        }
+        return result;
+    }
+
+    /**
+     * Handles addition and subtraction (lowest precedence)
+     */
+    private Rational parseAdditionSubtraction() throws Exception {
+        Rational result = parseMultiplicationDivision();
+
+        while (position < expression.length() && (peek() == '+' || peek() == '-')) {
+            char operator = expression.charAt(position++);
+            Rational right = parseMultiplicationDivision();
+
+            if (operator == '+') {
+                result = result.add(right);
+            } else {
+                result = result.subtract(right);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Handles multiplication and division (medium precedence)
+     */
+    private Rational parseMultiplicationDivision() throws Exception {
+        Rational result = parseExponentiation();
+
+        while (position < expression.length() && (peek() == '*' || peek() == '/')) {
+            char operator = expression.charAt(position++);
+            Rational right = parseExponentiation();
+
+            if (operator == '*') {
+                result = result.multiply(right);
+            } else {
+                if (right.signum() == 0) {
+                    throw new Exception("Division by zero");
+                }
+                result = result.divide(right);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Handles exponentiation (higher precedence, right-associative)
+     */
+    private Rational parseExponentiation() throws Exception {
+        Rational result = parseUnary();
+
+        if (position < expression.length() && peek() == '^') {
+            position++; // consume '^'
+            Rational right = parseExponentiation(); // Right-associative
+            result = result.pow(right);
+        }
+        return result;
+    }
+
+    /**
+     * Handles unary operations (negative numbers)
+     */
+    private Rational parseUnary() throws Exception {
+        if (position < expression.length() && peek() == '-') {
+            position++;
+            return parseUnary().negate();
+        }
+        if (position < expression.length() && peek() == '+') {
+            position++;
+            return parseUnary();
+        }
+        return parsePrimary();
+    }
+
+    /**
+     * Handles parentheses and numbers (highest precedence)
+     */
+    private Rational parsePrimary() throws Exception {
+        if (position < expression.length() && peek() == '(') {
+            position++; // consume '('
+            Rational result = parseAdditionSubtraction();
+            if (position >= expression.length() || peek() != ')') {
+                throw new Exception("Mismatched parentheses");
+            }
+            position++; // consume ')'
+            return result;
+        }
+        return parseNumber();
+    }
+
+    /**
+     * Parses a number (integer or decimal) exactly
+     */
+    private Rational parseNumber() throws Exception {
+        int start = position;
+        while (position < expression.length()
+                && ((peek() >= '0' && peek() <= '9') || peek() == '.')) {
+            position++;
+        }
+
+        if (position == start) {
+            throw new Exception("Invalid expression");
+        }
+
+        return Rational.parseDecimal(expression.substring(start, position));
+    }
+
+    /**
+     * Peeks at the current character without consuming it
+     */
+    private char peek() {
+        if (position >= expression.length()) {
+            return '\0';
+        }
+        return expression.charAt(position);
+    }
+}
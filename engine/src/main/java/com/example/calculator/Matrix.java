@@ -0,0 +1,62 @@
+package com.example.calculator;
+
+/**
+ * Matrix - value type used by the vector evaluation mode
+ *
+ * Scalars, vectors and matrices share one representation: a row-major
+ * primitive double[] plus its shape. A scalar is a 1x1 matrix and a vector
+ * literal such as [1,2,3] is a 1x3 row, so element-wise operators only have
+ * to deal with "same shape" and "one side is a scalar".
+ */
+final class Matrix {
+
+    final int rows;        // Number of rows
+    final int cols;        // Number of columns
+    final double[] data;   // Row-major element storage (length rows * cols)
+
+    Matrix(int rows, int cols, double[] data) {
+        this.rows = rows;
+        this.cols = cols;
+        this.data = data;
+    }
+
+    /**
+     * Wraps a single number as a 1x1 matrix
+     */
+    static Matrix scalar(double value) {
+        return new Matrix(1, 1, new double[]{value});
+    }
+
+    /**
+     * Wraps the given values as a 1xN row vector (the array is not copied)
+     */
+    static Matrix rowVector(double[] values) {
+        return new Matrix(1, values.length, values);
+    }
+
+    boolean isScalar() {
+        return rows == 1 && cols == 1;
+    }
+
+    boolean isVector() {
+        return rows == 1 || cols == 1;
+    }
+
+    int size() {
+        return data.length;
+    }
+
+    /**
+     * Returns the value of a scalar, failing for anything larger
+     */
+    double scalarValue() throws Exception {
+        if (!isScalar()) {
+            throw new Exception("Expected a scalar");
+        }
+        return data[0];
+    }
+
+    boolean sameShape(Matrix other) {
+        return rows == other.rows && cols == other.cols;
+    }
+}
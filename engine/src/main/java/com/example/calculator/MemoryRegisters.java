@@ -0,0 +1,164 @@
+package com.example.calculator;
+
+/**
+ * MemoryRegisters - a bank of numbered memory registers, M and M1..M9,
+ * each of which can also be given a name
+ *
+ * Register 0 is M, the register of the M+ / M− / MR / MC buttons. Values
+ * are kept in a double[] with one bit per register telling whether it
+ * holds a value, so the whole bank is a few primitive fields and a copy
+ * for storage (toArray) is cheap.
+ *
+ * Expressions reference a register by its label ("M1 × 1.2", see
+ * Token.of); reading an empty register is an error.
+ *
+ * Writes only mark the bank dirty. The owner persists dirty banks later,
+ * so a burst of M+ presses becomes a single storage write.
+ *
+ * Not thread-safe: the bank is used on one thread and other threads get
+ * copies from toArray().
+ */
+final class MemoryRegisters {
+
+    static final int COUNT = 10; // M and M1..M9
+
+    private final double[] values = new double[COUNT];
+    private final String[] names = new String[COUNT];
+    private int setMask = 0;        // Bit i: register i holds a value
+    private boolean dirty = false;  // Changed since the last takeDirty()
+
+    /**
+     * Register number of a label: 0 for "M", 1..9 for "M1".."M9", -1 for
+     * anything else
+     */
+    static int parse(String label) {
+        if (label.isEmpty() || label.charAt(0) != 'M') {
+            return -1;
+        }
+        if (label.length() == 1) {
+            return 0;
+        }
+        if (label.length() == 2 && label.charAt(1) >= '1' && label.charAt(1) <= '9') {
+            return label.charAt(1) - '0';
+        }
+        return -1;
+    }
+
+    /**
+     * Label of a register as used in expressions: "M", "M1".."M9"
+     */
+    static String label(int register) {
+        return register == 0 ? "M" : "M" + register;
+    }
+
+    // ===== Values =====
+    /**
+     * Value of a register
+     *
+     * @throws Exception If the register is empty
+     */
+    double get(int register) throws Exception {
+        if (!isSet(register)) {
+            throw new Exception("Memory " + label(register) + " is empty");
+        }
+        return values[register];
+    }
+
+    boolean isSet(int register) {
+        return (setMask & (1 << register)) != 0;
+    }
+
+    void set(int register, double value) {
+        values[register] = value;
+        setMask |= 1 << register;
+        dirty = true;
+    }
+
+    /**
+     * Adds to a register; an empty register counts as 0
+     */
+    void add(int register, double delta) {
+        set(register, (isSet(register) ? values[register] : 0) + delta);
+    }
+
+    void clear(int register) {
+        values[register] = 0;
+        setMask &= ~(1 << register);
+        dirty = true;
+    }
+
+    // ===== Names =====
+    /**
+     * Name given to a register, or null
+     */
+    String name(int register) {
+        return names[register];
+    }
+
+    /**
+     * Names a register; null or blank removes the name
+     */
+    void setName(int register, String name) {
+        names[register] = name == null || name.trim().isEmpty() ? null : name.trim();
+        dirty = true;
+    }
+
+    // ===== Storage =====
+    /**
+     * Whether the bank changed since the last call; clears the flag
+     */
+    boolean takeDirty() {
+        boolean wasDirty = dirty;
+        dirty = false;
+        return wasDirty;
+    }
+
+    /**
+     * Marks the bank as changed, e.g. after it moved to another storage slot
+     */
+    void markDirty() {
+        dirty = true;
+    }
+
+    /**
+     * The values as one array for storage: the bit mask of set registers,
+     * then the value of each register
+     */
+    double[] toArray() {
+        double[] state = new double[1 + COUNT];
+        state[0] = setMask;
+        System.arraycopy(values, 0, state, 1, COUNT);
+        return state;
+    }
+
+    /**
+     * Restores values produced by toArray(); ignores arrays of the wrong size
+     */
+    void restore(double[] state) {
+        if (state.length != 1 + COUNT) {
+            return;
+        }
+        setMask = (int) state[0] & ((1 << COUNT) - 1);
+        System.arraycopy(state, 1, values, 0, COUNT);
+    }
+
+    /**
+     * Takes over the registers of an older bank, e.g. one loaded from
+     * storage after this one was already in use: values in both banks are
+     * added, names set here are kept
+     *
+     * The bank stays dirty only if it had changes of its own; otherwise it
+     * now equals what is stored.
+     */
+    void merge(MemoryRegisters older) {
+        for (int i = 0; i < COUNT; i++) {
+            if (older.isSet(i)) {
+                values[i] = (isSet(i) ? values[i] : 0) + older.values[i];
+                setMask |= 1 << i;
+            }
+            if (names[i] == null) {
+                names[i] = older.names[i];
+            }
+        }
+    }
+}
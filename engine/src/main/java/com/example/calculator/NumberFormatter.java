@@ -0,0 +1,56 @@
+package com.example.calculator;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+
+/**
+ * NumberFormatter - the calculator's rules for showing a result
+ *
+ * Whole numbers are shown without a decimal point; anything else with up to
+ * 10 decimal places and no trailing zeros. Shared by the app display and the
+ * command-line evaluator so both print exactly the same text.
+ *
+ * Not thread-safe (DecimalFormat is not); use one instance per thread.
+ */
+final class NumberFormatter {
+
+    private final Locale locale;
+    private final DecimalFormat decimalFormat;
+    private final boolean asciiDigits; // Whole numbers can use Long.toString
+
+    /**
+     * Formatter for the default locale, as used by the display
+     */
+    NumberFormatter() {
+        this(Locale.getDefault(Locale.Category.FORMAT));
+    }
+
+    /**
+     * Formatter for a fixed locale; Locale.ROOT gives plain ASCII output
+     * with '.' as the decimal separator
+     */
+    NumberFormatter(Locale locale) {
+        DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+        this.locale = locale;
+        this.decimalFormat = new DecimalFormat("#.##########", symbols);
+        this.asciiDigits = symbols.getZeroDigit() == '0';
+    }
+
+    /**
+     * Formats a number for display
+     *
+     * Behavior: - If the number is a whole number, display without decimal
+     * point - Otherwise, display with appropriate decimal places (up to 10
+     * digits)
+     */
+    String format(double number) {
+        // Check if number is a whole number (integer)
+        if (number == (long) number) {
+            // Same text as String.format("%d") without parsing a format string
+            return asciiDigits ? Long.toString((long) number) : String.format(locale, "%d", (long) number);
+        }
+        // Format with decimal places, removing trailing zeros
+        return decimalFormat.format(number);
+    }
+}
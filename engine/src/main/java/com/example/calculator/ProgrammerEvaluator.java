@@ -0,0 +1,296 @@
+package com.example.calculator;
+
+import java.util.Arrays;
+
+/**
+ * Expression parser and evaluator for the programmer mode
+ *
+ * Integer-only, 64-bit two's complement arithmetic on long. Binary operators
+ * are resolved by precedence climbing over the operator table below (lowest
+ * to highest):
+ *   |   ^   &   << >> >>>   + -   * / %   **
+ * ^ is XOR; ** is the power (right-associative, the calculator's xʸ key).
+ * Unary -, + and ~ bind tighter than any binary operator. Literals may carry
+ * a radix prefix (0x, 0b, 0o) in any default radix, so a binary result
+ * stays binary in a hex expression; unprefixed literals use the default
+ * radix.
+ * A literal may use all 64 bits (0xFFFFFFFFFFFFFFFF is -1); a longer one
+ * is an error. Overflow of the operators wraps around like Java long
+ * arithmetic.
+ */
+class ProgrammerEvaluator {
+
+    // Operator codes, indexes into PRECEDENCE
+    private static final int OP_NONE = -1;
+    private static final int OP_OR = 0;
+    private static final int OP_XOR = 1;
+    private static final int OP_AND = 2;
+    private static final int OP_SHL = 3;
+    private static final int OP_SHR = 4;
+    private static final int OP_USHR = 5;
+    private static final int OP_ADD = 6;
+    private static final int OP_SUB = 7;
+    private static final int OP_MUL = 8;
+    private static final int OP_DIV = 9;
+    private static final int OP_REM = 10;
+    private static final int OP_POW = 11;
+
+    // Binding strength of each operator code (all left-associative but **)
+    private static final int[] PRECEDENCE = {1, 2, 3, 4, 4, 4, 5, 5, 6, 6, 6, 7};
+
+    // Length of each operator's symbol in the source text
+    private static final int[] SYMBOL_LENGTH = {1, 1, 1, 2, 2, 3, 1, 1, 1, 1, 1, 2};
+
+    // Digit value of each ASCII character, or 99 if it is not a digit
+    private static final byte[] DIGIT_VALUES = new byte[128];
+
+    static {
+        Arrays.fill(DIGIT_VALUES, (byte) 99);
+        for (int i = 0; i < 10; i++) {
+            DIGIT_VALUES['0' + i] = (byte) i;
+        }
+        for (int i = 0; i < 6; i++) {
+            DIGIT_VALUES['a' + i] = (byte) (10 + i);
+            DIGIT_VALUES['A' + i] = (byte) (10 + i);
+        }
+    }
+
+    private String expression;
+    private int position = 0;
+    private final int defaultRadix;
+
+    ProgrammerEvaluator(String expr, int defaultRadix) {
+        this.expression = expr;
+        this.defaultRadix = defaultRadix;
+    }
+
+    /**
+     * Main evaluation method - climbs from the lowest precedence level
+     */
+    long evaluate() throws Exception {
+        long result = parseBinary(1);
+        if (position < expression.length()) {
+            throw new Exception("Unexpected character: " + peek());
+        }
+        return result;
+    }
+
+    /**
+     * Precedence climbing: parses operands joined by operators that bind at
+     * least as tightly as minPrecedence
+     */
+    private long parseBinary(int minPrecedence) throws Exception {
+        long left = parseUnary();
+
+        while (true) {
+            int op = peekOperator();
+            if (op == OP_NONE || PRECEDENCE[op] < minPrecedence) {
+                return left;
+            }
+            position += SYMBOL_LENGTH[op];
+            // Left-associative, except the right-associative power
+            long right = parseBinary(op == OP_POW ? PRECEDENCE[op] : PRECEDENCE[op] + 1);
+            left = apply(op, left, right);
+        }
+    }
+
+    private static long apply(int op, long a, long b) throws Exception {
+        switch (op) {
+            case OP_OR:
+                return a | b;
+            case OP_XOR:
+                return a ^ b;
+            case OP_AND:
+                return a & b;
+            case OP_SHL:
+                return a << b;
+            case OP_SHR:
+                return a >> b;
+            case OP_USHR:
+                return a >>> b;
+            case OP_ADD:
+                return a + b;
+            case OP_SUB:
+                return a - b;
+            case OP_MUL:
+                return a * b;
+            case OP_DIV:
+                if (b == 0) {
+                    throw new Exception("Division by zero");
+                }
+                return a / b;
+            case OP_POW:
+                return power(a, b);
+            default:
+                if (b == 0) {
+                    throw new Exception("Division by zero");
+                }
+                return a % b;
+        }
+    }
+
+    /**
+     * base to the power exponent by repeated squaring, wrapping around on
+     * overflow like the other operators
+     */
+    private static long power(long base, long exponent) throws Exception {
+        if (exponent < 0) {
+            throw new Exception("Negative exponent");
+        }
+        long result = 1;
+        while (exponent != 0) {
+            if ((exponent & 1) != 0) {
+                result *= base;
+            }
+            base *= base;
+            exponent >>>= 1;
+        }
+        return result;
+    }
+
+    /**
+     * Identifies the operator at the current position without consuming it
+     */
+    private int peekOperator() {
+        switch (peek()) {
+            case '|':
+                return OP_OR;
+            case '^':
+                return OP_XOR;
+            case '&':
+                return OP_AND;
+            case '+':
+                return OP_ADD;
+            case '-':
+                return OP_SUB;
+            case '*':
+                return peekAt(1) == '*' ? OP_POW : OP_MUL;
+            case '/':
+                return OP_DIV;
+            case '%':
+                return OP_REM;
+            case '<':
+                return peekAt(1) == '<' ? OP_SHL : OP_NONE;
+            case '>':
+                if (peekAt(1) != '>') {
+                    return OP_NONE;
+                }
+                return peekAt(2) == '>' ? OP_USHR : OP_SHR;
+            default:
+                return OP_NONE;
+        }
+    }
+
+    /**
+     * Handles unary operations (negation, bitwise not)
+     */
+    private long parseUnary() throws Exception {
+        char c = peek();
+        if (c == '-') {
+            position++;
+            return -parseUnary();
+        }
+        if (c == '~') {
+            position++;
+            return ~parseUnary();
+        }
+        if (c == '+') {
+            position++;
+            return parseUnary();
+        }
+        return parsePrimary();
+    }
+
+    /**
+     * Handles parentheses and literals (highest precedence)
+     */
+    private long parsePrimary() throws Exception {
+        if (peek() == '(') {
+            position++; // consume '('
+            long result = parseBinary(1);
+            if (peek() != ')') {
+                throw new Exception("Mismatched parentheses");
+            }
+            position++; // consume ')'
+            return result;
+        }
+        return parseLiteral();
+    }
+
+    /**
+     * Parses an integer literal, honouring 0x/0b/0o prefixes, straight into
+     * a long (no String or boxing)
+     *
+     * @throws Exception "Number too large" if the literal needs more than 64
+     * bits
+     */
+    private long parseLiteral() throws Exception {
+        int radix = defaultRadix;
+        if (peek() == '0') {
+            int prefixRadix = radixForPrefix(peekAt(1));
+            if (prefixRadix != 0) {
+                radix = prefixRadix;
+                position += 2;
+            }
+        }
+
+        long value = 0;
+        int start = position;
+        while (position < expression.length()) {
+            char c = expression.charAt(position);
+            int digit = c < 128 ? DIGIT_VALUES[c] : 99;
+            if (digit >= radix) {
+                break;
+            }
+            // value * radix + digit must fit in 64 unsigned bits
+            if (Long.compareUnsigned(value, Long.divideUnsigned(-1L - digit, radix)) > 0) {
+                throw new Exception("Number too large");
+            }
+            value = value * radix + digit;
+            position++;
+        }
+
+        if (position == start) {
+            throw new Exception("Invalid expression");
+        }
+        return value;
+    }
+
+    /**
+     * Radix selected by the character after a leading 0, or 0 if it is not a
+     * prefix. "0b" is the binary prefix in every radix; in hex input "0B" is
+     * read as digits, so a hex number starting with B can still be written
+     * without 0x.
+     */
+    private int radixForPrefix(char c) {
+        switch (c) {
+            case 'x':
+            case 'X':
+                return 16;
+            case 'o':
+            case 'O':
+                return 8;
+            case 'b':
+                return 2;
+            case 'B':
+                return defaultRadix == 16 ? 0 : 2;
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Peeks at the current character without consuming it
+     */
+    private char peek() {
+        return peekAt(0);
+    }
+
+    private char peekAt(int offset) {
+        int index = position + offset;
+        if (index >= expression.length()) {
+            return '\0';
+        }
+        return expression.charAt(index);
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.calculator;
+
+/**
+ * Quantity - a number with an optional unit, the value type of the unit mode
+ */
+final class Quantity {
+
+    static final int NO_UNIT = -1;
+
+    final double value;  // Magnitude in the given unit
+    final int unit;      // Index into UnitRegistry, or NO_UNIT for plain numbers
+
+    Quantity(double value, int unit) {
+        this.value = value;
+        this.unit = unit;
+    }
+
+    boolean hasUnit() {
+        return unit != NO_UNIT;
+    }
+
+    /**
+     * Expresses this quantity in another unit of the same dimension
+     */
+    Quantity to(int target) throws Exception {
+        if (!hasUnit()) {
+            throw new Exception("Nothing to convert");
+        }
+        if (!UnitRegistry.compatible(unit, target)) {
+            throw new Exception("Cannot convert " + UnitRegistry.symbol(unit)
+                    + " to " + UnitRegistry.symbol(target));
+        }
+        return new Quantity(UnitRegistry.convert(value, unit, target), target);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.calculator;
+
+/**
+ * RadixFormatter - formats programmer mode results
+ *
+ * Decimal output is signed. Hex, binary and octal output show the raw
+ * 64-bit two's complement pattern with a 0x/0b/0o prefix, so the result can
+ * be fed back into ProgrammerEvaluator unchanged. Digits are written
+ * backwards into a small char[] using shifts and masks for power-of-two
+ * radixes.
+ */
+final class RadixFormatter {
+
+    private static final char[] DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private RadixFormatter() {
+    }
+
+    /**
+     * Formats value in radix 2, 8, 10 or 16
+     */
+    static String format(long value, int radix) {
+        switch (radix) {
+            case 16:
+                return formatPowerOfTwo(value, 4, "0x");
+            case 8:
+                return formatPowerOfTwo(value, 3, "0o");
+            case 2:
+                return formatPowerOfTwo(value, 1, "0b");
+            default:
+                return Long.toString(value);
+        }
+    }
+
+    /**
+     * Formats the unsigned bit pattern of value using bitsPerDigit bits per
+     * digit
+     */
+    private static String formatPowerOfTwo(long value, int bitsPerDigit, String prefix) {
+        char[] buffer = new char[66]; // 64 binary digits + prefix
+        int mask = (1 << bitsPerDigit) - 1;
+        int pos = buffer.length;
+        do {
+            buffer[--pos] = DIGITS[(int) value & mask];
+            value >>>= bitsPerDigit;
+        } while (value != 0);
+        buffer[--pos] = prefix.charAt(1);
+        buffer[--pos] = prefix.charAt(0);
+        return new String(buffer, pos, buffer.length - pos);
+    }
+
+    /**
+     * Short label for a radix, used on the mode button
+     */
+    static String label(int radix) {
+        switch (radix) {
+            case 16:
+                return "HEX";
+            case 8:
+                return "OCT";
+            case 2:
+                return "BIN";
+            default:
+                return "DEC";
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.example.calculator;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+/**
+ * Rational - exact fraction used by the fraction mode
+ *
+ * Values are kept in lowest terms with a positive denominator. Numerator and
+ * denominator live in two longs while they fit. An operation that overflows
+ * (detected with Math.*Exact) is redone with BigInteger, and results that fit
+ * back into a long are demoted again.
+ */
+final class Rational {
+
+    static final Rational ZERO = new Rational(0, 1);
+    static final Rational ONE = new Rational(1, 1);
+
+    // Decimal places shown by toDecimalString(), matching formatNumber()
+    private static final int DECIMAL_PLACES = 10;
+
+    // Largest power pow() computes, in bits of its numerator or denominator
+    // (about 10,000 digits); like the factorial limit, keeps the UI responsive
+    private static final long MAX_POWER_BITS = 1 << 15;
+
+    private final long num;           // Numerator while it fits (bigNum == null)
+    private final long den;           // Denominator while it fits, always > 0
+    private final BigInteger bigNum;  // Numerator after overflow promotion, else null
+    private final BigInteger bigDen;  // Denominator after overflow promotion, else null
+
+    private Rational(long num, long den) {
+        this.num = num;
+        this.den = den;
+        this.bigNum = null;
+        this.bigDen = null;
+    }
+
+    private Rational(BigInteger num, BigInteger den) {
+        this.num = 0;
+        this.den = 1;
+        this.bigNum = num;
+        this.bigDen = den;
+    }
+
+    // ===== Construction =====
+    static Rational of(long value) {
+        return of(value, 1);
+    }
+
+    /**
+     * Creates num/den in lowest terms
+     */
+    static Rational of(long num, long den) {
+        if (den == 0) {
+            throw new ArithmeticException("Division by zero");
+        }
+        if (num == Long.MIN_VALUE || den == Long.MIN_VALUE) {
+            // Negating MIN_VALUE overflows, so let BigInteger handle it
+            return of(BigInteger.valueOf(num), BigInteger.valueOf(den));
+        }
+        if (den < 0) {
+            num = -num;
+            den = -den;
+        }
+        long g = gcd(Math.abs(num), den);
+        return new Rational(num / g, den / g);
+    }
+
+    /**
+     * Creates num/den in lowest terms, demoting to longs when possible
+     */
+    static Rational of(BigInteger num, BigInteger den) {
+        if (den.signum() == 0) {
+            throw new ArithmeticException("Division by zero");
+        }
+        if (den.signum() < 0) {
+            num = num.negate();
+            den = den.negate();
+        }
+        BigInteger g = num.gcd(den);
+        if (!g.equals(BigInteger.ONE)) {
+            num = num.divide(g);
+            den = den.divide(g);
+        }
+        // bitLength() < 63 also keeps Long.MIN_VALUE, which cannot be negated, out of the long path
+        if (num.bitLength() < 63 && den.bitLength() < 63) {
+            return new Rational(num.longValue(), den.longValue());
+        }
+        return new Rational(num, den);
+    }
+
+    /**
+     * Parses a decimal literal such as "12", "0.75" or ".5" exactly
+     */
+    static Rational parseDecimal(String literal) {
+        BigDecimal decimal = new BigDecimal(literal);
+        if (decimal.scale() <= 0) {
+            return of(decimal.toBigIntegerExact(), BigInteger.ONE);
+        }
+        return of(decimal.unscaledValue(), BigInteger.TEN.pow(decimal.scale()));
+    }
+
+    // ===== Binary GCD =====
+    /**
+     * Stein's binary GCD of two non-negative longs
+     *
+     * Shifts and subtractions replace the divisions of Euclid's algorithm;
+     * trailing zero counts come from a single instruction.
+     */
+    static long gcd(long a, long b) {
+        if (a == 0) {
+            return b == 0 ? 1 : b;
+        }
+        if (b == 0) {
+            return a;
+        }
+        int shift = Long.numberOfTrailingZeros(a | b);
+        a >>>= Long.numberOfTrailingZeros(a);
+        do {
+            b >>>= Long.numberOfTrailingZeros(b);
+            if (a > b) {
+                long t = a;
+                a = b;
+                b = t;
+            }
+            b -= a;
+        } while (b != 0);
+        return a << shift;
+    }
+
+    // ===== Arithmetic =====
+    Rational add(Rational other) {
+        if (isSmall() && other.isSmall()) {
+            try {
+                // a/b + c/d over the reduced common denominator
+                long g = gcd(den, other.den);
+                long left = Math.multiplyExact(num, other.den / g);
+                long right = Math.multiplyExact(other.num, den / g);
+                return of(Math.addExact(left, right), Math.multiplyExact(den, other.den / g));
+            } catch (ArithmeticException overflow) {
+                // Fall through to the BigInteger path
+            }
+        }
+        return of(numerator().multiply(other.denominator()).add(other.numerator().multiply(denominator())),
+                denominator().multiply(other.denominator()));
+    }
+
+    Rational subtract(Rational other) {
+        return add(other.negate());
+    }
+
+    Rational multiply(Rational other) {
+        if (isSmall() && other.isSmall()) {
+            try {
+                // Cross-reduce first so intermediate products stay small
+                long g1 = gcd(Math.abs(num), other.den);
+                long g2 = gcd(Math.abs(other.num), den);
+                return of(Math.multiplyExact(num / g1, other.num / g2),
+                        Math.multiplyExact(den / g2, other.den / g1));
+            } catch (ArithmeticException overflow) {
+                // Fall through to the BigInteger path
+            }
+        }
+        return of(numerator().multiply(other.numerator()), denominator().multiply(other.denominator()));
+    }
+
+    Rational divide(Rational other) {
+        if (other.signum() == 0) {
+            throw new ArithmeticException("Division by zero");
+        }
+        return multiply(other.reciprocal());
+    }
+
+    Rational negate() {
+        if (isSmall() && num != Long.MIN_VALUE) {
+            return new Rational(-num, den);
+        }
+        return of(numerator().negate(), denominator());
+    }
+
+    Rational reciprocal() {
+        if (isSmall()) {
+            return of(den, num);
+        }
+        return of(bigDen, bigNum);
+    }
+
+    /**
+     * Raises to an integer power by repeated squaring
+     *
+     * @throws ArithmeticException "Result too large" if the numerator or
+     * denominator would have more than MAX_POWER_BITS bits
+     */
+    Rational pow(Rational exponent) {
+        if (!exponent.isInteger() || exponent.bitLength() > 31) {
+            throw new ArithmeticException("Fraction mode needs a small integer exponent");
+        }
+        int e = exponent.numerator().intValue();
+        // |x|^e has at least (bits - 1) * e bits; 0, 1 and -1 stay small
+        long bits = Math.max(numerator().abs().bitLength(), denominator().bitLength()) - 1;
+        if (bits * Math.abs((long) e) > MAX_POWER_BITS) {
+            throw new ArithmeticException("Result too large");
+        }
+        Rational base = e < 0 ? reciprocal() : this;
+        if (e < 0) {
+            e = -e;
+        }
+        Rational result = ONE;
+        while (e != 0) {
+            if ((e & 1) != 0) {
+                result = result.multiply(base);
+            }
+            e >>>= 1;
+            if (e != 0) {
+                base = base.multiply(base);
+            }
+        }
+        return result;
+    }
+
+    // ===== Accessors =====
+    private boolean isSmall() {
+        return bigNum == null;
+    }
+
+    BigInteger numerator() {
+        return isSmall() ? BigInteger.valueOf(num) : bigNum;
+    }
+
+    BigInteger denominator() {
+        return isSmall() ? BigInteger.valueOf(den) : bigDen;
+    }
+
+    int signum() {
+        return isSmall() ? Long.signum(num) : bigNum.signum();
+    }
+
+    boolean isInteger() {
+        return isSmall() ? den == 1 : bigDen.equals(BigInteger.ONE);
+    }
+
+    private int bitLength() {
+        return numerator().bitLength();
+    }
+
+    double doubleValue() {
+        if (isSmall()) {
+            return (double) num / den;
+        }
+        return new BigDecimal(bigNum).divide(new BigDecimal(bigDen), 20, RoundingMode.HALF_EVEN).doubleValue();
+    }
+
+    // ===== Formatting =====
+    /**
+     * Formats as an improper fraction ("7/3") or integer ("5")
+     */
+    @Override
+    public String toString() {
+        if (isInteger()) {
+            return isSmall() ? Long.toString(num) : bigNum.toString();
+        }
+        return isSmall() ? num + "/" + den : bigNum + "/" + bigDen;
+    }
+
+    /**
+     * Formats as a mixed fraction ("2 1/3", "-1 1/2") or integer
+     */
+    String toMixedString() {
+        if (isInteger()) {
+            return toString();
+        }
+        if (isSmall()) {
+            long whole = num / den;
+            if (whole == 0) {
+                return toString();
+            }
+            return whole + " " + Math.abs(num % den) + "/" + den;
+        }
+        BigInteger[] parts = bigNum.divideAndRemainder(bigDen);
+        if (parts[0].signum() == 0) {
+            return toString();
+        }
+        return parts[0] + " " + parts[1].abs() + "/" + bigDen;
+    }
+
+    /**
+     * Formats as an exact decimal rounded to 10 places, without trailing zeros
+     */
+    String toDecimalString() {
+        if (isInteger()) {
+            return toString();
+        }
+        return new BigDecimal(numerator())
+                .divide(new BigDecimal(denominator()), DECIMAL_PLACES, RoundingMode.HALF_EVEN)
+                .stripTrailingZeros()
+                .toPlainString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof Rational)) {
+            return false;
+        }
+        Rational other = (Rational) o;
+        if (isSmall() && other.isSmall()) {
+            return num == other.num && den == other.den;
+        }
+        return numerator().equals(other.numerator()) && denominator().equals(other.denominator());
+    }
+
+    @Override
+    public int hashCode() {
+        return isSmall() ? Long.hashCode(num) * 31 + Long.hashCode(den)
+                : bigNum.hashCode() * 31 + bigDen.hashCode();
+    }
+}
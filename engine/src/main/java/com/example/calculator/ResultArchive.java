@@ -0,0 +1,620 @@
+package com.example.calculator;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * ResultArchive - export and import of expressions with their results, as
+ * CSV or as a compact binary columnar file
+ *
+ * Rows are streamed through a Rows cursor in both directions, so neither
+ * side ever holds all rows or one big String: CSV is encoded into a reused
+ * buffer and written to a channel, and the columnar file is assembled from
+ * temporary column files with FileChannel.transferTo and read back through
+ * memory-mapped buffers. A result of NaN marks a row that failed, as in
+ * BulkEvaluator.
+ *
+ * Only java.io files and NIO channels are used (no java.nio.file), so the
+ * app can call it on every Android version it supports.
+ *
+ * CSV: a header line "expression,result", then one row per line. The
+ * expression is quoted when it contains a comma or a quote; the result is
+ * the shortest text that reads back as the same double, or "Error".
+ *
+ * Columnar file (big-endian):
+ *   magic        "CALCCOLS"
+ *   int          version (1)
+ *   int          row count n
+ *   long         length of the expression bytes
+ *   expressions  UTF-8 bytes of all expressions, back to back
+ *   offsets      int[n + 1] at the next multiple of 8: where each
+ *                expression starts in the expression bytes, then the end
+ *   results      double[n] at the next multiple of 8
+ */
+final class ResultArchive {
+
+    private static final long MAGIC = 0x43414C43434F4C53L; // "CALCCOLS"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final String CSV_HEADER = "expression,result";
+
+    private ResultArchive() {
+    }
+
+    /**
+     * A cursor over rows of an expression and its result
+     */
+    interface Rows {
+
+        /**
+         * Moves to the next row; false when there are no more
+         */
+        boolean next() throws IOException;
+
+        /**
+         * Expression of the current row; may be reused by the next call to
+         * next()
+         */
+        CharSequence expression();
+
+        /**
+         * Result of the current row, NaN if it failed
+         */
+        double result();
+    }
+
+    // ===== CSV =====
+    /**
+     * Writes the rows as CSV
+     *
+     * @return The number of rows written
+     */
+    static long writeCsv(Rows rows, WritableByteChannel out) throws IOException {
+        Output output = new Output(out);
+        output.putAscii(CSV_HEADER);
+        output.put((byte) '\n');
+        long count = 0;
+        while (rows.next()) {
+            CharSequence expression = rows.expression();
+            boolean quoted = needsQuotes(expression);
+            if (quoted) {
+                output.put((byte) '"');
+            }
+            output.putUtf8(expression, quoted);
+            if (quoted) {
+                output.put((byte) '"');
+            }
+            output.put((byte) ',');
+            double result = rows.result();
+            output.putAscii(Double.isNaN(result) ? "Error" : Double.toString(result));
+            output.put((byte) '\n');
+            count++;
+        }
+        output.flush();
+        return count;
+    }
+
+    private static boolean needsQuotes(CharSequence expression) {
+        for (int i = 0; i < expression.length(); i++) {
+            char c = expression.charAt(i);
+            if (c == ',' || c == '"') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Reads CSV written by writeCsv(); lines that are not rows (the header,
+     * blank lines) are skipped and an unreadable result counts as an error
+     */
+    static Rows readCsv(ReadableByteChannel in) {
+        return new CsvRows(in);
+    }
+
+    private static final class CsvRows implements Rows {
+
+        private final ReadableByteChannel in;
+        private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private boolean endOfInput = false;
+        private boolean firstLine = true;
+        private final StringBuilder expression = new StringBuilder();
+        private final StringBuilder resultText = new StringBuilder();
+        private double result;
+
+        CsvRows(ReadableByteChannel in) {
+            this.in = in;
+            buffer.flip(); // Empty, ready for reading
+        }
+
+        @Override
+        public boolean next() throws IOException {
+            while (true) {
+                int end = lineEnd();
+                if (end < 0) {
+                    return false;
+                }
+                int start = buffer.position();
+                buffer.position(end < buffer.limit() ? end + 1 : end);
+                if (firstLine) {
+                    firstLine = false;
+                    if (isHeader(start, end)) {
+                        continue;
+                    }
+                }
+                if (parse(start, end)) {
+                    return true;
+                }
+            }
+        }
+
+        /**
+         * Index of the end of the next line in the buffer, reading more input
+         * as needed; -1 at the end of the input
+         */
+        private int lineEnd() throws IOException {
+            int from = buffer.position();
+            while (true) {
+                for (int i = from; i < buffer.limit(); i++) {
+                    if (buffer.get(i) == '\n') {
+                        return i;
+                    }
+                }
+                if (endOfInput) {
+                    return buffer.hasRemaining() ? buffer.limit() : -1;
+                }
+                from = buffer.remaining();
+                fill();
+            }
+        }
+
+        /**
+         * Moves the unread bytes to the front, growing the buffer when a
+         * line fills it, and reads more
+         */
+        private void fill() throws IOException {
+            buffer.compact();
+            if (!buffer.hasRemaining()) {
+                ByteBuffer larger = ByteBuffer.allocateDirect(buffer.capacity() * 2);
+                buffer.flip();
+                larger.put(buffer);
+                buffer = larger;
+            }
+            if (in.read(buffer) < 0) {
+                endOfInput = true;
+            }
+            buffer.flip();
+        }
+
+        private boolean isHeader(int start, int end) {
+            if (end > start && buffer.get(end - 1) == '\r') {
+                end--;
+            }
+            if (end - start != CSV_HEADER.length()) {
+                return false;
+            }
+            for (int i = 0; i < CSV_HEADER.length(); i++) {
+                if (buffer.get(start + i) != CSV_HEADER.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Parses the line [start, end); false if it is not a row
+         */
+        private boolean parse(int start, int end) {
+            if (end > start && buffer.get(end - 1) == '\r') {
+                end--;
+            }
+            expression.setLength(0);
+            int i = start;
+            if (i < end && buffer.get(i) == '"') {
+                // Quoted: "" stands for one quote
+                int from = ++i;
+                while (true) {
+                    if (i >= end) {
+                        return false; // No closing quote
+                    }
+                    if (buffer.get(i) == '"') {
+                        decodeUtf8(buffer, from, i, expression);
+                        if (i + 1 < end && buffer.get(i + 1) == '"') {
+                            expression.append('"');
+                            i += 2;
+                            from = i;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                i++; // Past the closing quote
+            } else {
+                int comma = end - 1;
+                while (comma >= start && buffer.get(comma) != ',') {
+                    comma--;
+                }
+                if (comma < start) {
+                    return false;
+                }
+                decodeUtf8(buffer, start, comma, expression);
+                i = comma;
+            }
+            if (i >= end || buffer.get(i) != ',') {
+                return false;
+            }
+
+            resultText.setLength(0);
+            for (int j = i + 1; j < end; j++) {
+                resultText.append((char) (buffer.get(j) & 0xFF));
+            }
+            result = parseResult();
+            return true;
+        }
+
+        /**
+         * Value of the result column; plain decimals such as "14.0" skip
+         * Double.parseDouble (see ExpressionEvaluator.numberValue), and
+         * "Error" or anything unreadable is NaN
+         */
+        private double parseResult() {
+            int length = resultText.length();
+            int from = length > 0 && resultText.charAt(0) == '-' ? 1 : 0;
+            boolean plain = length > from;
+            for (int j = from; j < length && plain; j++) {
+                char c = resultText.charAt(j);
+                plain = (c >= '0' && c <= '9') || c == '.';
+            }
+            try {
+                if (plain) {
+                    double value = ExpressionEvaluator.numberValue(resultText, from, length);
+                    return from == 1 ? -value : value;
+                }
+                return Double.parseDouble(resultText.toString());
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+
+        @Override
+        public CharSequence expression() {
+            return expression;
+        }
+
+        @Override
+        public double result() {
+            return result;
+        }
+    }
+
+    // ===== Columnar =====
+    /**
+     * Writes the rows in the columnar format
+     *
+     * The expression bytes go straight into the output; offsets and results
+     * are collected in temporary files next to it and appended with
+     * transferTo once the row count is known, so memory use does not depend
+     * on the number of rows.
+     *
+     * @param out Channel positioned at the start of an empty file
+     * @param tempDirectory Directory for the temporary column files
+     * @return The number of rows written
+     * @throws IOException If writing fails or there are more rows or
+     * expression bytes than the format holds
+     */
+    static int writeColumnar(Rows rows, FileChannel out, File tempDirectory) throws IOException {
+        File offsetsTemp = File.createTempFile("offsets", ".tmp", tempDirectory);
+        File resultsTemp = File.createTempFile("results", ".tmp", tempDirectory);
+        try (RandomAccessFile offsetsAccess = new RandomAccessFile(offsetsTemp, "rw");
+                RandomAccessFile resultsAccess = new RandomAccessFile(resultsTemp, "rw")) {
+            FileChannel offsetsFile = offsetsAccess.getChannel();
+            FileChannel resultsFile = resultsAccess.getChannel();
+            out.position(HEADER_SIZE);
+            Output expressions = new Output(out);
+            Output offsets = new Output(offsetsFile);
+            Output results = new Output(resultsFile);
+
+            int count = 0;
+            while (rows.next()) {
+                if (count == Integer.MAX_VALUE - 1) {
+                    throw new IOException("Too many rows");
+                }
+                offsets.putInt(offset(expressions.count()));
+                expressions.putUtf8(rows.expression(), false);
+                results.putDouble(rows.result());
+                count++;
+            }
+            long expressionLength = expressions.count();
+            offsets.putInt(offset(expressionLength));
+            expressions.padTo(8, HEADER_SIZE);
+            expressions.flush();
+            offsets.padTo(8, 0);
+            offsets.flush();
+            results.flush();
+
+            transferAll(offsetsFile, out);
+            transferAll(resultsFile, out);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            header.putLong(MAGIC).putInt(VERSION).putInt(count).putLong(expressionLength).flip();
+            while (header.hasRemaining()) {
+                out.write(header, header.position());
+            }
+            return count;
+        } finally {
+            offsetsTemp.delete();
+            resultsTemp.delete();
+        }
+    }
+
+    private static int offset(long position) throws IOException {
+        if (position > Integer.MAX_VALUE) {
+            throw new IOException("More than 2 GB of expressions");
+        }
+        return (int) position;
+    }
+
+    /**
+     * Appends the whole content of a file to the channel at its position
+     */
+    private static void transferAll(FileChannel from, FileChannel to) throws IOException {
+        long size = from.size();
+        long done = 0;
+        while (done < size) {
+            done += from.transferTo(done, size - done, to);
+        }
+    }
+
+    /**
+     * Whether the channel holds a columnar file (checked by its magic)
+     */
+    static boolean isColumnar(FileChannel in) throws IOException {
+        if (in.size() < HEADER_SIZE) {
+            return false;
+        }
+        ByteBuffer magic = ByteBuffer.allocate(8);
+        while (magic.hasRemaining() && in.read(magic, magic.position()) >= 0) {
+            // Read until full
+        }
+        return magic.getLong(0) == MAGIC;
+    }
+
+    /**
+     * Maps a columnar file for reading
+     *
+     * @throws IOException If the file is not a valid columnar file
+     */
+    static Columns readColumnar(FileChannel in) throws IOException {
+        if (!isColumnar(in)) {
+            throw new IOException("Not a columnar result file");
+        }
+        ByteBuffer header = in.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+        int version = header.getInt(8);
+        int count = header.getInt(12);
+        long expressionLength = header.getLong(16);
+        long offsetsPosition = align(HEADER_SIZE + expressionLength);
+        long resultsPosition = align(offsetsPosition + 4L * (count + 1));
+        if (version != VERSION || count < 0 || expressionLength < 0 || expressionLength > Integer.MAX_VALUE
+                || 8L * count > Integer.MAX_VALUE || resultsPosition + 8L * count > in.size()) {
+            throw new IOException("Damaged or unsupported columnar result file");
+        }
+        return new Columns(count,
+                in.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE, expressionLength),
+                in.map(FileChannel.MapMode.READ_ONLY, offsetsPosition, 4L * (count + 1)),
+                in.map(FileChannel.MapMode.READ_ONLY, resultsPosition, 8L * count));
+    }
+
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    /**
+     * A mapped columnar file: rows are read in place, by index or with a
+     * cursor, and stay valid after the channel is closed
+     */
+    static final class Columns {
+
+        private final int count;
+        private final ByteBuffer expressions;
+        private final ByteBuffer offsets;
+        private final ByteBuffer results;
+
+        private Columns(int count, ByteBuffer expressions, ByteBuffer offsets, ByteBuffer results) {
+            this.count = count;
+            this.expressions = expressions;
+            this.offsets = offsets;
+            this.results = results;
+        }
+
+        int size() {
+            return count;
+        }
+
+        double result(int row) {
+            return results.getDouble(8 * row);
+        }
+
+        String expression(int row) {
+            StringBuilder sb = new StringBuilder();
+            decodeUtf8(expressions, offsets.getInt(4 * row), offsets.getInt(4 * row + 4), sb);
+            return sb.toString();
+        }
+
+        /**
+         * Cursor over the rows from the given one on
+         */
+        Rows rows(int from) {
+            return new Rows() {
+                private final StringBuilder expression = new StringBuilder();
+                private int row = from - 1;
+
+                @Override
+                public boolean next() {
+                    if (row + 1 >= count) {
+                        return false;
+                    }
+                    row++;
+                    expression.setLength(0);
+                    decodeUtf8(expressions, offsets.getInt(4 * row), offsets.getInt(4 * row + 4), expression);
+                    return true;
+                }
+
+                @Override
+                public CharSequence expression() {
+                    return expression;
+                }
+
+                @Override
+                public double result() {
+                    return Columns.this.result(row);
+                }
+            };
+        }
+    }
+
+    /**
+     * Reads either format, telling them apart by the columnar magic
+     */
+    static Rows read(FileChannel in) throws IOException {
+        if (isColumnar(in)) {
+            return readColumnar(in).rows(0);
+        }
+        return readCsv(in);
+    }
+
+    // ===== Encoding =====
+    /**
+     * Appends the UTF-8 bytes [from, to) of the buffer as chars; malformed
+     * bytes become U+FFFD
+     */
+    static void decodeUtf8(ByteBuffer buffer, int from, int to, StringBuilder into) {
+        int i = from;
+        while (i < to) {
+            int b = buffer.get(i++) & 0xFF;
+            if (b < 0x80) {
+                into.append((char) b);
+                continue;
+            }
+            int extra = b >= 0xF0 ? 3 : b >= 0xE0 ? 2 : b >= 0xC0 ? 1 : -1;
+            if (extra < 0 || i + extra > to) {
+                into.append('�');
+                continue;
+            }
+            int codePoint = b & (0x3F >> extra);
+            boolean valid = true;
+            for (int k = 0; k < extra; k++) {
+                int next = buffer.get(i + k) & 0xFF;
+                valid &= (next & 0xC0) == 0x80;
+                codePoint = (codePoint << 6) | (next & 0x3F);
+            }
+            if (!valid || !Character.isValidCodePoint(codePoint)) {
+                into.append('�');
+                continue;
+            }
+            into.appendCodePoint(codePoint);
+            i += extra;
+        }
+    }
+
+    /**
+     * Buffered writer of primitives and UTF-8 text to a channel, counting
+     * the bytes written
+     */
+    private static final class Output {
+
+        private final WritableByteChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        private long flushed = 0;
+
+        Output(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        long count() {
+            return flushed + buffer.position();
+        }
+
+        void put(byte b) throws IOException {
+            ensure(1);
+            buffer.put(b);
+        }
+
+        void putInt(int value) throws IOException {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        void putDouble(double value) throws IOException {
+            ensure(8);
+            buffer.putDouble(value);
+        }
+
+        void putAscii(String text) throws IOException {
+            ensure(text.length());
+            for (int i = 0; i < text.length(); i++) {
+                buffer.put((byte) text.charAt(i));
+            }
+        }
+
+        /**
+         * Writes text as UTF-8; with csvQuoted, quotes are doubled
+         */
+        void putUtf8(CharSequence text, boolean csvQuoted) throws IOException {
+            int length = text.length();
+            for (int i = 0; i < length; i++) {
+                char c = text.charAt(i);
+                ensure(4);
+                if (c < 0x80) {
+                    buffer.put((byte) c);
+                    if (csvQuoted && c == '"') {
+                        buffer.put((byte) '"');
+                    }
+                } else if (c < 0x800) {
+                    buffer.put((byte) (0xC0 | c >> 6)).put((byte) (0x80 | c & 0x3F));
+                } else if (Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(text.charAt(i + 1))) {
+                    int codePoint = Character.toCodePoint(c, text.charAt(++i));
+                    buffer.put((byte) (0xF0 | codePoint >> 18)).put((byte) (0x80 | codePoint >> 12 & 0x3F))
+                            .put((byte) (0x80 | codePoint >> 6 & 0x3F)).put((byte) (0x80 | codePoint & 0x3F));
+                } else {
+                    if (Character.isSurrogate(c)) {
+                        c = '�'; // Unpaired surrogate
+                    }
+                    buffer.put((byte) (0xE0 | c >> 12)).put((byte) (0x80 | c >> 6 & 0x3F))
+                            .put((byte) (0x80 | c & 0x3F));
+                }
+            }
+        }
+
+        /**
+         * Writes zeros until the position relative to the channel's start,
+         * plus the given base, is a multiple of the alignment
+         */
+        void padTo(int alignment, long base) throws IOException {
+            while ((base + count()) % alignment != 0) {
+                put((byte) 0);
+            }
+        }
+
+        private void ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                flushed += channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package com.example.calculator;
+
+import java.util.Arrays;
+
+/**
+ * StreamingStatistics - one-pass accumulator set for the statistics mode
+ *
+ * Every value is folded into a fixed number of fields as it arrives, so
+ * memory stays constant no matter how many values are entered or pasted:
+ * - Count, mean and variance use Welford's update
+ * - Min and max are tracked directly
+ * - Quartiles use the P² estimator (five markers per quantile)
+ * - Linear regression keeps running means and co-moments of (x, y)
+ *
+ * Values entered without an x are regressed against their entry index
+ * (1, 2, 3, ...), which gives the trend of the data.
+ */
+final class StreamingStatistics {
+
+    // Quantiles tracked by the P² estimators
+    static final double[] QUANTILES = {0.25, 0.5, 0.75};
+
+    private long count = 0;          // Number of values seen
+    private double mean = 0;         // Running mean of y
+    private double m2 = 0;           // Sum of squared deviations of y
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    private double meanX = 0;        // Running mean of x
+    private double m2X = 0;          // Sum of squared deviations of x
+    private double coMoment = 0;     // Sum of (x - meanX) * (y - meanY)
+
+    private final P2Quantile[] quantiles = new P2Quantile[QUANTILES.length];
+
+    StreamingStatistics() {
+        for (int i = 0; i < quantiles.length; i++) {
+            quantiles[i] = new P2Quantile(QUANTILES[i]);
+        }
+    }
+
+    /**
+     * Adds a value, using its entry index as x for the regression
+     */
+    void add(double y) {
+        add(count + 1, y);
+    }
+
+    /**
+     * Adds an (x, y) pair; the univariate statistics describe y
+     */
+    void add(double x, double y) {
+        count++;
+        double dx = x - meanX;
+        double dy = y - mean;
+        meanX += dx / count;
+        mean += dy / count;
+        m2X += dx * (x - meanX);
+        m2 += dy * (y - mean);
+        coMoment += dx * (y - mean);
+
+        if (y < min) {
+            min = y;
+        }
+        if (y > max) {
+            max = y;
+        }
+        for (P2Quantile q : quantiles) {
+            q.add(y);
+        }
+    }
+
+    void clear() {
+        count = 0;
+        mean = m2 = 0;
+        meanX = m2X = coMoment = 0;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+        for (P2Quantile q : quantiles) {
+            q.clear();
+        }
+    }
+
+    long getCount() {
+        return count;
+    }
+
+    double getMean() {
+        return mean;
+    }
+
+    double getSum() {
+        return mean * count;
+    }
+
+    /**
+     * Sample variance (n - 1 denominator)
+     */
+    double getVariance() {
+        return count > 1 ? m2 / (count - 1) : 0;
+    }
+
+    double getStandardDeviation() {
+        return Math.sqrt(getVariance());
+    }
+
+    double getMin() {
+        return min;
+    }
+
+    double getMax() {
+        return max;
+    }
+
+    /**
+     * Estimated value of QUANTILES[index]
+     */
+    double getQuantile(int index) {
+        return quantiles[index].value();
+    }
+
+    /**
+     * Slope of the least-squares line y = slope * x + intercept
+     */
+    double getSlope() {
+        return m2X != 0 ? coMoment / m2X : Double.NaN;
+    }
+
+    double getIntercept() {
+        return mean - getSlope() * meanX;
+    }
+
+    /**
+     * Pearson correlation coefficient of x and y
+     */
+    double getCorrelation() {
+        return m2X != 0 && m2 != 0 ? coMoment / Math.sqrt(m2X * m2) : Double.NaN;
+    }
+
+    // ===== Persistence =====
+    /**
+     * Flattens the whole accumulator state into a fixed-size array
+     */
+    double[] toArray() {
+        double[] state = new double[8 + quantiles.length * P2Quantile.STATE_SIZE];
+        state[0] = count;
+        state[1] = mean;
+        state[2] = m2;
+        state[3] = min;
+        state[4] = max;
+        state[5] = meanX;
+        state[6] = m2X;
+        state[7] = coMoment;
+        for (int i = 0; i < quantiles.length; i++) {
+            quantiles[i].writeTo(state, 8 + i * P2Quantile.STATE_SIZE);
+        }
+        return state;
+    }
+
+    /**
+     * Restores state produced by toArray(); ignores arrays of the wrong size
+     */
+    void restore(double[] state) {
+        if (state.length != 8 + quantiles.length * P2Quantile.STATE_SIZE) {
+            return;
+        }
+        count = (long) state[0];
+        mean = state[1];
+        m2 = state[2];
+        min = state[3];
+        max = state[4];
+        meanX = state[5];
+        m2X = state[6];
+        coMoment = state[7];
+        for (int i = 0; i < quantiles.length; i++) {
+            quantiles[i].readFrom(state, 8 + i * P2Quantile.STATE_SIZE);
+        }
+    }
+
+    /**
+     * P² (Jain & Chlamtac) single-quantile estimator
+     *
+     * Keeps five markers whose heights approximate the minimum, p/2, p,
+     * (1+p)/2 quantiles and the maximum, adjusting them with a piecewise
+     * parabolic fit as values arrive. Exact until five values have been seen.
+     */
+    static final class P2Quantile {
+
+        static final int STATE_SIZE = 16; // count + 5 heights + 5 positions + 5 desired
+
+        private final double p;
+        private final double[] increments;
+        private final double[] heights = new double[5];
+        private final double[] positions = new double[5];
+        private final double[] desired = new double[5];
+        private int count = 0;
+
+        P2Quantile(double p) {
+            this.p = p;
+            this.increments = new double[]{0, p / 2, p, (1 + p) / 2, 1};
+            clear();
+        }
+
+        void clear() {
+            count = 0;
+            Arrays.fill(heights, 0);
+            for (int i = 0; i < 5; i++) {
+                positions[i] = i + 1;
+            }
+            desired[0] = 1;
+            desired[1] = 1 + 2 * p;
+            desired[2] = 1 + 4 * p;
+            desired[3] = 3 + 2 * p;
+            desired[4] = 5;
+        }
+
+        void add(double x) {
+            if (count < 5) {
+                heights[count++] = x;
+                if (count == 5) {
+                    Arrays.sort(heights);
+                }
+                return;
+            }
+            count++;
+
+            // Find the cell k containing x, extending the extremes if needed
+            int k;
+            if (x < heights[0]) {
+                heights[0] = x;
+                k = 0;
+            } else if (x >= heights[4]) {
+                heights[4] = Math.max(heights[4], x);
+                k = 3;
+            } else {
+                k = 0;
+                while (x >= heights[k + 1]) {
+                    k++;
+                }
+            }
+
+            for (int i = k + 1; i < 5; i++) {
+                positions[i]++;
+            }
+            for (int i = 0; i < 5; i++) {
+                desired[i] += increments[i];
+            }
+
+            // Move the three middle markers towards their desired positions
+            for (int i = 1; i <= 3; i++) {
+                double d = desired[i] - positions[i];
+                if ((d >= 1 && positions[i + 1] - positions[i] > 1)
+                        || (d <= -1 && positions[i - 1] - positions[i] < -1)) {
+                    int sign = d > 0 ? 1 : -1;
+                    double candidate = parabolic(i, sign);
+                    if (heights[i - 1] < candidate && candidate < heights[i + 1]) {
+                        heights[i] = candidate;
+                    } else {
+                        heights[i] = linear(i, sign);
+                    }
+                    positions[i] += sign;
+                }
+            }
+        }
+
+        double value() {
+            if (count == 0) {
+                return Double.NaN;
+            }
+            if (count < 5) {
+                // Exact quantile of the few values seen so far
+                double[] sorted = Arrays.copyOf(heights, count);
+                Arrays.sort(sorted);
+                int index = (int) Math.round(p * (count - 1));
+                return sorted[index];
+            }
+            return heights[2];
+        }
+
+        private double parabolic(int i, int sign) {
+            double nPrev = positions[i - 1];
+            double n = positions[i];
+            double nNext = positions[i + 1];
+            return heights[i] + sign / (nNext - nPrev)
+                    * ((n - nPrev + sign) * (heights[i + 1] - heights[i]) / (nNext - n)
+                    + (nNext - n - sign) * (heights[i] - heights[i - 1]) / (n - nPrev));
+        }
+
+        private double linear(int i, int sign) {
+            return heights[i] + sign * (heights[i + sign] - heights[i])
+                    / (positions[i + sign] - positions[i]);
+        }
+
+        void writeTo(double[] state, int offset) {
+            state[offset] = count;
+            System.arraycopy(heights, 0, state, offset + 1, 5);
+            System.arraycopy(positions, 0, state, offset + 6, 5);
+            System.arraycopy(desired, 0, state, offset + 11, 5);
+        }
+
+        void readFrom(double[] state, int offset) {
+            count = (int) state[offset];
+            System.arraycopy(state, offset + 1, heights, 0, 5);
+            System.arraycopy(state, offset + 6, positions, 0, 5);
+            System.arraycopy(state, offset + 11, desired, 0, 5);
+        }
+    }
+}
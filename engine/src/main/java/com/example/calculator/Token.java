@@ -0,0 +1,121 @@
+package com.example.calculator;
+
+/**
+ * Token - one element of an expression: a number, a memory register, an
+ * operator or a parenthesis
+ *
+ * The text is what the user typed and what the display shows; numbers also
+ * carry their parsed value so TokenEvaluator never has to read characters
+ * again. Tokens are immutable and shared between versions of a TokenList.
+ */
+final class Token {
+
+    // Token types
+    static final int NUMBER = 0;
+    static final int OPERATOR = 1;
+    static final int OPEN = 2;
+    static final int CLOSE = 3;
+    static final int REGISTER = 4;
+
+    static final Token OPEN_PARENTHESIS = new Token(OPEN, "(", '(', 0);
+    static final Token CLOSE_PARENTHESIS = new Token(CLOSE, ")", ')', 0);
+
+    final int type;
+    final String text;   // As typed and displayed, e.g. "12.5", "×", "("
+    final char symbol;   // Normalized operator: + - * / ^ (or the parenthesis)
+    final double value;  // Value of a NUMBER, NaN if the text is not a number
+    final int register;  // Register number of a REGISTER (see MemoryRegisters), else -1
+
+    private Token(int type, String text, char symbol, double value) {
+        this(type, text, symbol, value, -1);
+    }
+
+    private Token(int type, String text, char symbol, double value, int register) {
+        this.type = type;
+        this.text = text;
+        this.symbol = symbol;
+        this.value = value;
+        this.register = register;
+    }
+
+    /**
+     * Token for the given text; anything that is not an operator, a
+     * parenthesis or a register label ("M", "M1".."M9") is taken as a number
+     */
+    static Token of(String text) {
+        switch (text) {
+            case "(":
+                return OPEN_PARENTHESIS;
+            case ")":
+                return CLOSE_PARENTHESIS;
+            case "+":
+            case "-":
+            case "^":
+                return new Token(OPERATOR, text, text.charAt(0), 0);
+            case "×":
+            case "*":
+                return new Token(OPERATOR, text, '*', 0);
+            case "÷":
+            case "/":
+                return new Token(OPERATOR, text, '/', 0);
+            default:
+                int register = MemoryRegisters.parse(text);
+                if (register >= 0) {
+                    return new Token(REGISTER, text, '\0', Double.NaN, register);
+                }
+                return new Token(NUMBER, text, '\0', parseNumber(text));
+        }
+    }
+
+    boolean isOperator() {
+        return type == OPERATOR;
+    }
+
+    /**
+     * A number's text as it goes into an expression string: a fraction
+     * ("2/3") or negative number from a previous result is parenthesized, so
+     * "2/3" followed by "^ 2" still reads as (2/3)^2 when the text is parsed
+     * again
+     */
+    static String inExpression(String number) {
+        if (number.indexOf('/') > 0 || number.startsWith("-")) {
+            return "(" + number + ")";
+        }
+        return number;
+    }
+
+    /**
+     * Parses a number as the calculator leaves it in the display: decimal,
+     * a fraction "7/3" from fraction mode or "0xFF"/"0b101"/"0o17" from
+     * programmer mode
+     */
+    private static double parseNumber(String text) {
+        try {
+            int slash = text.indexOf('/');
+            if (slash > 0) {
+                return Double.parseDouble(text.substring(0, slash))
+                        / Double.parseDouble(text.substring(slash + 1));
+            }
+            if (text.length() > 2 && text.charAt(0) == '0') {
+                switch (text.charAt(1)) {
+                    case 'x':
+                        return Long.parseUnsignedLong(text.substring(2), 16);
+                    case 'b':
+                        return Long.parseUnsignedLong(text.substring(2), 2);
+                    case 'o':
+                        return Long.parseUnsignedLong(text.substring(2), 8);
+                    default:
+                        break;
+                }
+            }
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
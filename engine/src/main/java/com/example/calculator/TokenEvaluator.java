@@ -0,0 +1,93 @@
+package com.example.calculator;
+
+/**
+ * Evaluator for an expression that is already split into tokens
+ *
+ * Same grammar and precedence as ExpressionEvaluator, but it reads Tokens
+ * from a TokenList instead of characters from a String: numbers arrive
+ * parsed and operators normalized, so the display text is never tokenized
+ * again.
+ *
+ * The iterative parser is inherited from ExpressionEvaluator; only reading
+ * the input differs. Unlike ExpressionEvaluator, tokens left over after a
+ * complete expression are an error.
+ *
+ * Register tokens (M, M1..M9) read the MemoryRegisters given to the
+ * constructor; without registers they are an error.
+ */
+class TokenEvaluator extends ExpressionEvaluator {
+
+    private final Token[] tokens;
+
+    TokenEvaluator(TokenList expression) {
+        this(expression, null);
+    }
+
+    TokenEvaluator(TokenList expression, MemoryRegisters registers) {
+        this.tokens = expression.toArray();
+        this.registers = registers;
+    }
+
+    /**
+     * Main evaluation method
+     */
+    @Override
+    double evaluate() throws Exception {
+        double result = super.evaluate();
+        if (position < tokens.length) {
+            throw new Exception("Unexpected token: " + tokens[position]);
+        }
+        return result;
+    }
+
+    /**
+     * Compiles the tokens for repeated evaluation, e.g. by ExpressionCache
+     */
+    @Override
+    CompiledExpression compile() throws Exception {
+        CompiledExpression compiled = super.compile();
+        if (position < tokens.length) {
+            throw new Exception("Unexpected token: " + tokens[position]);
+        }
+        return compiled;
+    }
+
+    /**
+     * Reads the number or register token at the current position
+     */
+    @Override
+    void parseOperand() throws Exception {
+        if (position < tokens.length && tokens[position].type == Token.REGISTER) {
+            pushRegister(tokens[position++].register);
+            return;
+        }
+        super.parseOperand();
+    }
+
+    /**
+     * Reads the number token at the current position
+     */
+    @Override
+    double parseNumber() throws Exception {
+        if (position >= tokens.length || tokens[position].type != Token.NUMBER) {
+            throw new Exception("Invalid expression");
+        }
+        Token number = tokens[position++];
+        if (Double.isNaN(number.value)) {
+            throw new Exception("Invalid number: " + number.text);
+        }
+        return number.value;
+    }
+
+    /**
+     * Symbol of the current operator or parenthesis token without consuming
+     * it; '\0' for a number or at the end
+     */
+    @Override
+    char peek() {
+        if (position >= tokens.length) {
+            return '\0';
+        }
+        return tokens[position].symbol;
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.calculator;
+
+/**
+ * TokenList - persistent (immutable) list of expression tokens
+ *
+ * Stored as an AVL tree ordered by position, where every node knows the size
+ * of its subtree. Reading, inserting, removing or replacing the token at any
+ * index walks one root-to-leaf path, so each is O(log n). Updates copy only
+ * that path and share every other node, so older versions of the list stay
+ * valid and a snapshot is free, which the undo history relies on.
+ *
+ * Tokens are numbers, memory registers, operators (+ - × ÷ ^) and
+ * parentheses.
+ */
+final class TokenList {
+
+    static final TokenList EMPTY = new TokenList(null);
+
+    private final Node root;
+    final int size;
+
+    private TokenList(Node root) {
+        this.root = root;
+        this.size = size(root);
+    }
+
+    /**
+     * Builds a list from tokens in order, e.g. from a saved snapshot; the
+     * tree is built balanced in O(n)
+     */
+    static TokenList of(String[] texts) {
+        Token[] tokens = new Token[texts.length];
+        for (int i = 0; i < texts.length; i++) {
+            tokens[i] = Token.of(texts[i]);
+        }
+        return new TokenList(build(tokens, 0, tokens.length));
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    // ===== Positional Access and Editing =====
+    /**
+     * Token at the given index
+     */
+    Token get(int index) {
+        checkIndex(index, size);
+        Node node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index > leftSize) {
+                index -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node.token;
+            }
+        }
+    }
+
+    /**
+     * Inserts a token so that it ends up at the given index (0..size)
+     */
+    TokenList insert(int index, Token token) {
+        checkIndex(index, size + 1);
+        return new TokenList(insert(root, index, token));
+    }
+
+    /**
+     * Removes the token at the given index
+     */
+    TokenList remove(int index) {
+        checkIndex(index, size);
+        return new TokenList(remove(root, index));
+    }
+
+    /**
+     * Replaces the token at the given index
+     */
+    TokenList set(int index, Token token) {
+        checkIndex(index, size);
+        return new TokenList(set(root, index, token));
+    }
+
+    TokenList append(Token token) {
+        return insert(size, token);
+    }
+
+    TokenList append(String text) {
+        return append(Token.of(text));
+    }
+
+    /**
+     * The last token, or null if the list is empty
+     */
+    Token last() {
+        return isEmpty() ? null : get(size - 1);
+    }
+
+    // ===== Conversion =====
+    /**
+     * Tokens in order, first to last
+     */
+    Token[] toArray() {
+        Token[] tokens = new Token[size];
+        fill(root, tokens, 0);
+        return tokens;
+    }
+
+    /**
+     * Token texts in order, for saving a snapshot
+     */
+    String[] texts() {
+        String[] texts = new String[size];
+        int i = 0;
+        for (Token token : toArray()) {
+            texts[i++] = token.text;
+        }
+        return texts;
+    }
+
+    /**
+     * Texts of the tokens in [from, to), each followed by a space
+     */
+    void appendTo(StringBuilder sb, int from, int to) {
+        Token[] tokens = toArray();
+        for (int i = from; i < to; i++) {
+            Token token = tokens[i];
+            sb.append(token.type == Token.NUMBER ? Token.inExpression(token.text) : token.text).append(' ');
+        }
+    }
+
+    /**
+     * Tokens separated by spaces, with a trailing space when not empty so a
+     * number being typed can be appended ("12 + " then "12 + 5")
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(size * 4);
+        appendTo(sb, 0, size);
+        return sb.toString();
+    }
+
+    // ===== Tree Operations =====
+    private static Node insert(Node node, int index, Token token) {
+        if (node == null) {
+            return new Node(token, null, null);
+        }
+        int leftSize = size(node.left);
+        if (index <= leftSize) {
+            return balance(node.token, insert(node.left, index, token), node.right);
+        }
+        return balance(node.token, node.left, insert(node.right, index - leftSize - 1, token));
+    }
+
+    private static Node remove(Node node, int index) {
+        int leftSize = size(node.left);
+        if (index < leftSize) {
+            return balance(node.token, remove(node.left, index), node.right);
+        }
+        if (index > leftSize) {
+            return balance(node.token, node.left, remove(node.right, index - leftSize - 1));
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        // Replace with the first token of the right subtree
+        Node successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        return balance(successor.token, node.left, remove(node.right, 0));
+    }
+
+    private static Node set(Node node, int index, Token token) {
+        int leftSize = size(node.left);
+        if (index < leftSize) {
+            return new Node(node.token, set(node.left, index, token), node.right);
+        }
+        if (index > leftSize) {
+            return new Node(node.token, node.left, set(node.right, index - leftSize - 1, token));
+        }
+        return new Node(token, node.left, node.right);
+    }
+
+    private static Node build(Token[] tokens, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int middle = (from + to) >>> 1;
+        return new Node(tokens[middle], build(tokens, from, middle), build(tokens, middle + 1, to));
+    }
+
+    private static int fill(Node node, Token[] out, int index) {
+        if (node == null) {
+            return index;
+        }
+        index = fill(node.left, out, index);
+        out[index++] = node.token;
+        return fill(node.right, out, index);
+    }
+
+    /**
+     * Joins two subtrees under a token, rotating once or twice if their
+     * heights differ by more than one
+     */
+    private static Node balance(Token token, Node left, Node right) {
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+        if (leftHeight > rightHeight + 1) {
+            if (height(left.left) >= height(left.right)) {
+                return new Node(left.token, left.left, new Node(token, left.right, right));
+            }
+            Node pivot = left.right;
+            return new Node(pivot.token, new Node(left.token, left.left, pivot.left),
+                    new Node(token, pivot.right, right));
+        }
+        if (rightHeight > leftHeight + 1) {
+            if (height(right.right) >= height(right.left)) {
+                return new Node(right.token, new Node(token, left, right.left), right.right);
+            }
+            Node pivot = right.left;
+            return new Node(pivot.token, new Node(token, left, pivot.left),
+                    new Node(right.token, pivot.right, right.right));
+        }
+        return new Node(token, left, right);
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private void checkIndex(int index, int limit) {
+        if (index < 0 || index >= limit) {
+            throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+        }
+    }
+
+    /**
+     * Immutable tree node
+     */
+    private static final class Node {
+
+        final Token token;
+        final Node left;
+        final Node right;
+        final int size;    // Tokens in this subtree
+        final int height;  // Levels in this subtree
+
+        Node(Token token, Node left, Node right) {
+            this.token = token;
+            this.left = left;
+            this.right = right;
+            this.size = size(left) + size(right) + 1;
+            this.height = Math.max(height(left), height(right)) + 1;
+        }
+    }
+}
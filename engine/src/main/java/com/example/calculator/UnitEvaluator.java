@@ -0,0 +1,284 @@
+package com.example.calculator;
+
+/**
+ * Expression parser and evaluator for unit-aware expressions
+ *
+ * Same precedence structure as ExpressionEvaluator with Quantity values and
+ * one extra, lowest-precedence conversion: "expr in unit" (or "to unit").
+ * Examples: "5 km + 300 m in mi", "20 °C in F", "$12.50 + 3 EUR in GBP".
+ *
+ * Rules:
+ * - + and - need compatible units; the right side is scaled to the left
+ *   side's unit as a difference
+ * - A quantity can be multiplied or divided by a plain number; dividing two
+ *   compatible quantities gives a plain ratio
+ * - Exponents must be plain numbers
+ *
+ * Unlike the other evaluators, spaces are significant here ("300 m in mi"),
+ * so the expression is not stripped of whitespace first.
+ */
+class UnitEvaluator {
+
+    private String expression;
+    private int position = 0;
+
+    UnitEvaluator(String expr) {
+        this.expression = expr;
+    }
+
+    /**
+     * Main evaluation method - starts with the conversion (lowest
+     * precedence)
+     */
+    Quantity evaluate() throws Exception {
+        Quantity result = parseConversion();
+        if (peek() != '\0') {
+            throw new Exception("Unexpected character: " + peek());
+        }
+        return result;
+    }
+
+    /**
+     * Handles "expr in unit" / "expr to unit"
+     */
+    private Quantity parseConversion() throws Exception {
+        Quantity result = parseAdditionSubtraction();
+
+        while (isUnitStart(peek())) {
+            String keyword = readIdentifier();
+            if (!keyword.equals("in") && !keyword.equals("to")) {
+                throw new Exception("Expected 'in' or 'to'");
+            }
+            result = result.to(readUnit());
+        }
+        return result;
+    }
+
+    /**
+     * Handles addition and subtraction
+     */
+    private Quantity parseAdditionSubtraction() throws Exception {
+        Quantity result = parseMultiplicationDivision();
+
+        while (peek() == '+' || peek() == '-') {
+            char operator = expression.charAt(position++);
+            Quantity right = parseMultiplicationDivision();
+
+            if (result.hasUnit() != right.hasUnit()) {
+                throw new Exception("Incompatible units");
+            }
+            double rightValue = right.value;
+            if (right.hasUnit()) {
+                if (!UnitRegistry.compatible(right.unit, result.unit)) {
+                    throw new Exception("Incompatible units");
+                }
+                // The right side acts as a difference, so "20 °C + 10 K" is 30 °C
+                rightValue *= UnitRegistry.scale(right.unit, result.unit);
+            }
+            result = new Quantity(operator == '+' ? result.value + rightValue
+                    : result.value - rightValue, result.unit);
+        }
+        return result;
+    }
+
+    /**
+     * Handles multiplication and division
+     */
+    private Quantity parseMultiplicationDivision() throws Exception {
+        Quantity result = parseExponentiation();
+
+        while (peek() == '*' || peek() == '/') {
+            char operator = expression.charAt(position++);
+            Quantity right = parseExponentiation();
+
+            if (operator == '*') {
+                if (result.hasUnit() && right.hasUnit()) {
+                    throw new Exception("Cannot multiply two units");
+                }
+                result = new Quantity(result.value * right.value,
+                        result.hasUnit() ? result.unit : right.unit);
+            } else {
+                if (right.value == 0) {
+                    throw new Exception("Division by zero");
+                }
+                if (right.hasUnit()) {
+                    if (!result.hasUnit()) {
+                        throw new Exception("Cannot divide by a unit");
+                    }
+                    // Ratio of two compatible quantities is a plain number
+                    result = new Quantity(result.value / right.to(result.unit).value, Quantity.NO_UNIT);
+                } else {
+                    result = new Quantity(result.value / right.value, result.unit);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Handles exponentiation (right-associative, plain numbers only)
+     */
+    private Quantity parseExponentiation() throws Exception {
+        Quantity result = parseUnary();
+
+        if (peek() == '^') {
+            position++; // consume '^'
+            Quantity right = parseExponentiation(); // Right-associative
+            if (result.hasUnit() || right.hasUnit()) {
+                throw new Exception("Exponents need plain numbers");
+            }
+            result = new Quantity(Math.pow(result.value, right.value), Quantity.NO_UNIT);
+        }
+        return result;
+    }
+
+    /**
+     * Handles unary operations (negative numbers)
+     */
+    private Quantity parseUnary() throws Exception {
+        if (peek() == '-') {
+            position++;
+            Quantity operand = parseUnary();
+            return new Quantity(-operand.value, operand.unit);
+        }
+        if (peek() == '+') {
+            position++;
+            return parseUnary();
+        }
+        return parsePrimary();
+    }
+
+    /**
+     * Handles parentheses, numbers with an optional unit suffix and currency
+     * symbols written in front of the number ($5)
+     */
+    private Quantity parsePrimary() throws Exception {
+        if (peek() == '(') {
+            position++; // consume '('
+            Quantity result = parseConversion();
+            if (peek() != ')') {
+                throw new Exception("Mismatched parentheses");
+            }
+            position++; // consume ')'
+            return attachUnit(result);
+        }
+
+        char c = peek();
+        if (c == '$' || c == '€' || c == '£' || c == '¥') {
+            int unit = readUnit();
+            return new Quantity(parseNumber(), unit);
+        }
+        return attachUnit(new Quantity(parseNumber(), Quantity.NO_UNIT));
+    }
+
+    /**
+     * Reads a unit written after a plain number, e.g. the "km" in "5 km"
+     *
+     * "in" directly followed by another unit name is the conversion keyword,
+     * not inches, so it is left for parseConversion; followed by the keyword
+     * itself ("5 in to cm", "5 in in cm") it is inches.
+     */
+    private Quantity attachUnit(Quantity operand) throws Exception {
+        if (operand.hasUnit() || !isUnitStart(peek())) {
+            return operand;
+        }
+        int mark = position;
+        String name = readIdentifier();
+        if (name.equals("to") || (name.equals("in") && isUnitStart(peek()) && !isKeywordNext())) {
+            position = mark;
+            return operand;
+        }
+        position = mark;
+        return new Quantity(operand.value, readUnit());
+    }
+
+    /**
+     * Whether the next identifier is "in" or "to", without consuming it
+     */
+    private boolean isKeywordNext() throws Exception {
+        int mark = position;
+        String next = readIdentifier();
+        position = mark;
+        return next.equals("in") || next.equals("to");
+    }
+
+    /**
+     * Reads a unit name and returns its index; accepts compound names such
+     * as km/h and m/s
+     */
+    private int readUnit() throws Exception {
+        String name = readIdentifier();
+
+        // Try "name/other" as one unit before treating '/' as division
+        if (peek() == '/') {
+            int mark = position;
+            position++;
+            if (isUnitStart(peek())) {
+                int compound = UnitRegistry.find(name + "/" + readIdentifier());
+                if (compound >= 0) {
+                    return compound;
+                }
+            }
+            position = mark;
+        }
+
+        int unit = UnitRegistry.find(name);
+        if (unit < 0) {
+            throw new Exception("Unknown unit: " + name);
+        }
+        return unit;
+    }
+
+    /**
+     * Reads a run of unit characters (letters, °, currency symbols)
+     */
+    private String readIdentifier() throws Exception {
+        peek(); // skip leading spaces
+        int start = position;
+        while (position < expression.length() && isUnitStart(expression.charAt(position))) {
+            position++;
+        }
+        if (position == start) {
+            throw new Exception("Expected a unit");
+        }
+        return expression.substring(start, position);
+    }
+
+    private static boolean isUnitStart(char c) {
+        return Character.isLetter(c) || c == '°' || c == '$' || c == '€' || c == '£' || c == '¥';
+    }
+
+    /**
+     * Parses a number (integer or decimal)
+     */
+    private double parseNumber() throws Exception {
+        peek(); // skip leading spaces
+        int start = position;
+        while (position < expression.length()) {
+            char c = expression.charAt(position);
+            if ((c < '0' || c > '9') && c != '.') {
+                break;
+            }
+            position++;
+        }
+
+        if (position == start) {
+            throw new Exception("Invalid expression");
+        }
+
+        return Double.parseDouble(expression.substring(start, position));
+    }
+
+    /**
+     * Skips spaces and peeks at the next character without consuming it
+     */
+    private char peek() {
+        while (position < expression.length() && Character.isWhitespace(expression.charAt(position))) {
+            position++;
+        }
+        if (position >= expression.length()) {
+            return '\0';
+        }
+        return expression.charAt(position);
+    }
+}
@@ -0,0 +1,272 @@
+package com.example.calculator;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * UnitRegistry - known units and their precomputed conversions
+ *
+ * Units are declared as a graph: each edge says how to turn a value in one
+ * unit into another as an affine map (to = from * scale + offset). The
+ * offset is only non-zero for temperatures. When the class is loaded, a
+ * breadth-first search from every unit composes the edges along the
+ * shortest path. The result is flattened into dense n x n scale and offset
+ * matrices, so a conversion at evaluation time is one lookup and one
+ * multiply-add, with no path search.
+ *
+ * Currency rates come from the offline table below (units per 1 EUR).
+ */
+final class UnitRegistry {
+
+    // Dimensions; units convert only within the same dimension
+    static final int LENGTH = 0;
+    static final int MASS = 1;
+    static final int TIME = 2;
+    static final int VOLUME = 3;
+    static final int SPEED = 4;
+    static final int TEMPERATURE = 5;
+    static final int CURRENCY = 6;
+
+    private static final Map<String, Integer> INDEX = new HashMap<>(); // Unit name → index
+    private static String[] symbols = new String[64];                  // Display symbol by index
+    private static int[] dimensions = new int[64];                      // Dimension by index
+    private static int count = 0;
+
+    // Graph edges collected before flattening: from, to, scale, offset
+    private static int[] edgeFrom = new int[64];
+    private static int[] edgeTo = new int[64];
+    private static double[] edgeScale = new double[64];
+    private static double[] edgeOffset = new double[64];
+    private static int edgeCount = 0;
+
+    // Flattened conversion matrices, row = from, column = to
+    private static final double[] SCALE;
+    private static final double[] OFFSET;
+
+    static {
+        // Length
+        unit("m", LENGTH, "meter", "meters");
+        unit("km", LENGTH, "kilometer", "kilometers");
+        unit("cm", LENGTH, "centimeter", "centimeters");
+        unit("mm", LENGTH, "millimeter", "millimeters");
+        unit("mi", LENGTH, "mile", "miles");
+        unit("yd", LENGTH, "yard", "yards");
+        unit("ft", LENGTH, "foot", "feet");
+        unit("in", LENGTH, "inch", "inches");
+        unit("nmi", LENGTH);
+        edge("km", "m", 1000);
+        edge("m", "cm", 100);
+        edge("cm", "mm", 10);
+        edge("in", "cm", 2.54);
+        edge("ft", "in", 12);
+        edge("yd", "ft", 3);
+        edge("mi", "yd", 1760);
+        edge("nmi", "m", 1852);
+
+        // Mass
+        unit("kg", MASS, "kilogram", "kilograms");
+        unit("g", MASS, "gram", "grams");
+        unit("mg", MASS, "milligram", "milligrams");
+        unit("t", MASS, "tonne", "tonnes");
+        unit("lb", MASS, "lbs", "pound", "pounds");
+        unit("oz", MASS, "ounce", "ounces");
+        unit("st", MASS, "stone");
+        edge("t", "kg", 1000);
+        edge("kg", "g", 1000);
+        edge("g", "mg", 1000);
+        edge("lb", "kg", 0.45359237);
+        edge("lb", "oz", 16);
+        edge("st", "lb", 14);
+
+        // Time
+        unit("s", TIME, "sec", "second", "seconds");
+        unit("ms", TIME);
+        unit("min", TIME, "minute", "minutes");
+        unit("h", TIME, "hr", "hour", "hours");
+        unit("d", TIME, "day", "days");
+        unit("wk", TIME, "week", "weeks");
+        edge("s", "ms", 1000);
+        edge("min", "s", 60);
+        edge("h", "min", 60);
+        edge("d", "h", 24);
+        edge("wk", "d", 7);
+
+        // Volume
+        unit("L", VOLUME, "l", "liter", "liters", "litre", "litres");
+        unit("mL", VOLUME, "ml");
+        unit("gal", VOLUME, "gallon", "gallons");
+        unit("qt", VOLUME, "quart", "quarts");
+        unit("pt", VOLUME, "pint", "pints");
+        unit("cup", VOLUME, "cups");
+        unit("floz", VOLUME);
+        edge("L", "mL", 1000);
+        edge("gal", "L", 3.785411784);
+        edge("gal", "qt", 4);
+        edge("qt", "pt", 2);
+        edge("pt", "cup", 2);
+        edge("cup", "floz", 8);
+
+        // Speed
+        unit("m/s", SPEED, "mps");
+        unit("km/h", SPEED, "kmh", "kph");
+        unit("mph", SPEED);
+        unit("kn", SPEED, "knot", "knots");
+        edge("m/s", "km/h", 3.6);
+        edge("mph", "km/h", 1.609344);
+        edge("kn", "km/h", 1.852);
+
+        // Temperature (affine)
+        unit("°C", TEMPERATURE, "C", "celsius");
+        unit("°F", TEMPERATURE, "F", "fahrenheit");
+        unit("K", TEMPERATURE, "kelvin");
+        edge("°C", "K", 1, 273.15);
+        edge("°C", "°F", 1.8, 32);
+
+        // Currency (offline rates, units per 1 EUR)
+        unit("EUR", CURRENCY, "€", "eur");
+        unit("USD", CURRENCY, "$", "usd");
+        unit("GBP", CURRENCY, "£", "gbp");
+        unit("JPY", CURRENCY, "¥", "jpy");
+        unit("CHF", CURRENCY, "chf");
+        unit("CAD", CURRENCY, "cad");
+        unit("AUD", CURRENCY, "aud");
+        unit("CNY", CURRENCY, "cny");
+        unit("SEK", CURRENCY, "sek");
+        edge("EUR", "USD", 1.08);
+        edge("EUR", "GBP", 0.85);
+        edge("EUR", "JPY", 162.0);
+        edge("EUR", "CHF", 0.95);
+        edge("EUR", "CAD", 1.47);
+        edge("EUR", "AUD", 1.64);
+        edge("EUR", "CNY", 7.80);
+        edge("EUR", "SEK", 11.40);
+
+        SCALE = new double[count * count];
+        OFFSET = new double[count * count];
+        flatten();
+
+        // The graph is only needed at startup
+        edgeFrom = null;
+        edgeTo = null;
+        edgeScale = null;
+        edgeOffset = null;
+        symbols = Arrays.copyOf(symbols, count);
+        dimensions = Arrays.copyOf(dimensions, count);
+    }
+
+    private UnitRegistry() {
+    }
+
+    // ===== Lookup =====
+    /**
+     * Index of the unit with the given name or alias, or -1 if unknown
+     */
+    static int find(String name) {
+        Integer index = INDEX.get(name);
+        return index == null ? -1 : index;
+    }
+
+    static String symbol(int unit) {
+        return symbols[unit];
+    }
+
+    static int dimension(int unit) {
+        return dimensions[unit];
+    }
+
+    static boolean compatible(int from, int to) {
+        return dimensions[from] == dimensions[to];
+    }
+
+    /**
+     * Converts a value between two units of the same dimension
+     */
+    static double convert(double value, int from, int to) {
+        int cell = from * count + to;
+        return value * SCALE[cell] + OFFSET[cell];
+    }
+
+    /**
+     * Converts a difference between two values (ignores temperature offsets)
+     */
+    static double scale(int from, int to) {
+        return SCALE[from * count + to];
+    }
+
+    // ===== Graph Construction =====
+    private static void unit(String symbol, int dimension, String... aliases) {
+        if (count == symbols.length) {
+            symbols = Arrays.copyOf(symbols, count * 2);
+            dimensions = Arrays.copyOf(dimensions, count * 2);
+        }
+        symbols[count] = symbol;
+        dimensions[count] = dimension;
+        INDEX.put(symbol, count);
+        for (String alias : aliases) {
+            INDEX.put(alias, count);
+        }
+        count++;
+    }
+
+    private static void edge(String from, String to, double scale) {
+        edge(from, to, scale, 0);
+    }
+
+    /**
+     * Declares to = from * scale + offset, and its inverse
+     */
+    private static void edge(String from, String to, double scale, double offset) {
+        addEdge(INDEX.get(from), INDEX.get(to), scale, offset);
+        addEdge(INDEX.get(to), INDEX.get(from), 1 / scale, -offset / scale);
+    }
+
+    private static void addEdge(int from, int to, double scale, double offset) {
+        if (edgeCount == edgeFrom.length) {
+            int capacity = edgeCount * 2;
+            edgeFrom = Arrays.copyOf(edgeFrom, capacity);
+            edgeTo = Arrays.copyOf(edgeTo, capacity);
+            edgeScale = Arrays.copyOf(edgeScale, capacity);
+            edgeOffset = Arrays.copyOf(edgeOffset, capacity);
+        }
+        edgeFrom[edgeCount] = from;
+        edgeTo[edgeCount] = to;
+        edgeScale[edgeCount] = scale;
+        edgeOffset[edgeCount] = offset;
+        edgeCount++;
+    }
+
+    /**
+     * Fills SCALE/OFFSET by a breadth-first search from every unit,
+     * composing affine maps along the way. Unreachable pairs stay NaN.
+     */
+    private static void flatten() {
+        Arrays.fill(SCALE, Double.NaN);
+        Arrays.fill(OFFSET, Double.NaN);
+        ArrayDeque<Integer> queue = new ArrayDeque<>();
+
+        for (int source = 0; source < count; source++) {
+            int row = source * count;
+            SCALE[row + source] = 1;
+            OFFSET[row + source] = 0;
+            queue.add(source);
+
+            while (!queue.isEmpty()) {
+                int current = queue.poll();
+                double a = SCALE[row + current];
+                double b = OFFSET[row + current];
+                for (int e = 0; e < edgeCount; e++) {
+                    int next = edgeTo[e];
+                    if (edgeFrom[e] != current || !Double.isNaN(SCALE[row + next])) {
+                        continue;
+                    }
+                    // next = (source * a + b) * scale + offset
+                    SCALE[row + next] = a * edgeScale[e];
+                    OFFSET[row + next] = b * edgeScale[e] + edgeOffset[e];
+                    queue.add(next);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,365 @@
+package com.example.calculator;
+
+import java.util.Arrays;
+
+/**
+ * Expression parser and evaluator for the vector/matrix mode
+ *
+ * Follows the same recursive descent structure as ExpressionEvaluator but
+ * every value is a Matrix. Supported syntax:
+ * - Vector literals: [1,2,3]
+ * - Matrix literals: [[1,2],[3,4]]
+ * - Element-wise +, -, *, /, ^ (a scalar operand is broadcast)
+ * - Functions: sum, mean, min, max, len, dot(a,b), matmul(a,b), transpose(a)
+ *
+ * As in ExpressionEvaluator, dividing by zero is an error, whether the
+ * divisor is a scalar or an element of a vector.
+ */
+class VectorEvaluator {
+
+    private String expression;
+    private int position = 0;
+
+    VectorEvaluator(String expr) {
+        this.expression = expr;
+    }
+
+    /**
+     * Main evaluation method - starts with lowest precedence
+     * (addition/subtraction)
+     */
+    Matrix evaluate() throws Exception {
+        Matrix result = parseAdditionSubtraction();
+        if (position < expression.length()) {
+            throw new Exception("Unexpected character: " + peek());
+        }
+        return result;
+    }
+
+    /**
+     * Handles addition and subtraction (lowest precedence)
+     */
+    private Matrix parseAdditionSubtraction() throws Exception {
+        Matrix result = parseMultiplicationDivision();
+
+        while (position < expression.length() && (peek() == '+' || peek() == '-')) {
+            char operator = expression.charAt(position++);
+            Matrix right = parseMultiplicationDivision();
+            result = elementWise(operator, result, right);
+        }
+        return result;
+    }
+
+    /**
+     * Handles element-wise multiplication and division (medium precedence)
+     */
+    private Matrix parseMultiplicationDivision() throws Exception {
+        Matrix result = parseExponentiation();
+
+        while (position < expression.length() && (peek() == '*' || peek() == '/')) {
+            char operator = expression.charAt(position++);
+            Matrix right = parseExponentiation();
+            result = elementWise(operator, result, right);
+        }
+        return result;
+    }
+
+    /**
+     * Handles element-wise exponentiation (higher precedence,
+     * right-associative)
+     */
+    private Matrix parseExponentiation() throws Exception {
+        Matrix result = parseUnary();
+
+        if (position < expression.length() && peek() == '^') {
+            position++; // consume '^'
+            Matrix right = parseExponentiation(); // Right-associative
+            result = elementWise('^', result, right);
+        }
+        return result;
+    }
+
+    /**
+     * Handles unary operations (negation)
+     */
+    private Matrix parseUnary() throws Exception {
+        if (position < expression.length() && peek() == '-') {
+            position++;
+            Matrix operand = parseUnary();
+            double[] out = new double[operand.size()];
+            VectorMath.negate(operand.data, out);
+            return new Matrix(operand.rows, operand.cols, out);
+        }
+        if (position < expression.length() && peek() == '+') {
+            position++;
+            return parseUnary();
+        }
+        return parsePrimary();
+    }
+
+    /**
+     * Handles parentheses, array literals, function calls and numbers
+     * (highest precedence)
+     */
+    private Matrix parsePrimary() throws Exception {
+        if (position < expression.length() && peek() == '(') {
+            position++; // consume '('
+            Matrix result = parseAdditionSubtraction();
+            expect(')');
+            return result;
+        }
+        if (position < expression.length() && peek() == '[') {
+            return parseArrayLiteral();
+        }
+        if (position < expression.length() && Character.isLetter(peek())) {
+            return parseFunction();
+        }
+        return Matrix.scalar(parseNumber());
+    }
+
+    /**
+     * Parses [a,b,c] into a row vector or [[a,b],[c,d]] into a matrix
+     *
+     * Elements are collected straight into a growable primitive array so a
+     * pasted list of many values is never boxed.
+     */
+    private Matrix parseArrayLiteral() throws Exception {
+        position++; // consume '['
+        double[] values = new double[16];
+        int count = 0;
+        int rows = 0;
+        int cols = -1;
+        boolean nested = peek() == '[';
+
+        while (true) {
+            Matrix element = parseAdditionSubtraction();
+            if (nested) {
+                // Every nested row must be a row vector of the same width
+                if (element.rows != 1 || (cols != -1 && element.cols != cols)) {
+                    throw new Exception("Ragged matrix");
+                }
+                cols = element.cols;
+                rows++;
+            } else if (!element.isScalar()) {
+                throw new Exception("Vector elements must be numbers");
+            }
+
+            if (count + element.size() > values.length) {
+                values = Arrays.copyOf(values,
+                        Math.max(values.length * 2, count + element.size()));
+            }
+            System.arraycopy(element.data, 0, values, count, element.size());
+            count += element.size();
+
+            if (peek() == ',') {
+                position++;
+                continue;
+            }
+            expect(']');
+            break;
+        }
+
+        double[] data = count == values.length ? values : Arrays.copyOf(values, count);
+        return nested ? new Matrix(rows, cols, data) : Matrix.rowVector(data);
+    }
+
+    /**
+     * Parses name(arg[,arg]) and applies the named function; dot and matmul
+     * take two arguments, the others one
+     */
+    private Matrix parseFunction() throws Exception {
+        int start = position;
+        while (position < expression.length() && Character.isLetter(peek())) {
+            position++;
+        }
+        String name = expression.substring(start, position);
+
+        expect('(');
+        Matrix first = parseAdditionSubtraction();
+        Matrix second = null;
+        if (peek() == ',') {
+            position++;
+            second = parseAdditionSubtraction();
+        }
+        if (peek() == ',') {
+            throw new Exception(name + " takes at most two arguments");
+        }
+        expect(')');
+        if (second != null && !name.equals("dot") && !name.equals("matmul")) {
+            throw new Exception(name + " takes one argument");
+        }
+
+        switch (name) {
+            case "sum":
+                return Matrix.scalar(VectorMath.sum(first.data));
+            case "mean":
+                return Matrix.scalar(VectorMath.sum(first.data) / first.size());
+            case "min":
+                return Matrix.scalar(VectorMath.min(first.data));
+            case "max":
+                return Matrix.scalar(VectorMath.max(first.data));
+            case "len":
+                return Matrix.scalar(first.size());
+            case "transpose": {
+                double[] out = new double[first.size()];
+                VectorMath.transpose(first.data, out, first.rows, first.cols);
+                return new Matrix(first.cols, first.rows, out);
+            }
+            case "dot":
+                requireSecond(name, second);
+                if (!first.isVector() || !second.isVector() || first.size() != second.size()) {
+                    throw new Exception("dot needs two vectors of equal length");
+                }
+                return Matrix.scalar(VectorMath.dot(first.data, second.data));
+            case "matmul": {
+                requireSecond(name, second);
+                if (first.cols != second.rows) {
+                    throw new Exception("Matrix dimensions do not match");
+                }
+                double[] out = new double[first.rows * second.cols];
+                VectorMath.multiplyBlocked(first.data, second.data, out,
+                        first.rows, first.cols, second.cols);
+                return new Matrix(first.rows, second.cols, out);
+            }
+            default:
+                throw new Exception("Unknown function: " + name);
+        }
+    }
+
+    /**
+     * Applies an element-wise operator, broadcasting a scalar operand over
+     * the other side
+     */
+    private Matrix elementWise(char operator, Matrix left, Matrix right) throws Exception {
+        if (left.isScalar() && right.isScalar()) {
+            double a = left.data[0];
+            double b = right.data[0];
+            switch (operator) {
+                case '+':
+                    return Matrix.scalar(a + b);
+                case '-':
+                    return Matrix.scalar(a - b);
+                case '*':
+                    return Matrix.scalar(a * b);
+                case '/':
+                    if (b == 0) {
+                        throw new Exception("Division by zero");
+                    }
+                    return Matrix.scalar(a / b);
+                default:
+                    return Matrix.scalar(Math.pow(a, b));
+            }
+        }
+
+        Matrix shape = left.isScalar() ? right : left;
+        double[] out = new double[shape.size()];
+
+        if (right.isScalar() && (operator == '+' || operator == '-' || operator == '*' || operator == '/')) {
+            double s = right.data[0];
+            switch (operator) {
+                case '+':
+                    VectorMath.addScalar(left.data, s, out);
+                    break;
+                case '-':
+                    VectorMath.addScalar(left.data, -s, out);
+                    break;
+                case '*':
+                    VectorMath.scale(left.data, s, out);
+                    break;
+                default:
+                    if (s == 0) {
+                        throw new Exception("Division by zero");
+                    }
+                    VectorMath.divideScalar(left.data, s, out);
+                    break;
+            }
+            return new Matrix(shape.rows, shape.cols, out);
+        }
+        if (left.isScalar() && (operator == '+' || operator == '*')) {
+            double s = left.data[0];
+            if (operator == '+') {
+                VectorMath.addScalar(right.data, s, out);
+            } else {
+                VectorMath.scale(right.data, s, out);
+            }
+            return new Matrix(shape.rows, shape.cols, out);
+        }
+
+        // General case: expand a scalar side so both operands have one shape
+        double[] a = left.isScalar() ? filled(left.data[0], out.length) : left.data;
+        double[] b = right.isScalar() ? filled(right.data[0], out.length) : right.data;
+        if (!left.isScalar() && !right.isScalar() && !left.sameShape(right)) {
+            throw new Exception("Shape mismatch");
+        }
+        switch (operator) {
+            case '+':
+                VectorMath.add(a, b, out);
+                break;
+            case '-':
+                VectorMath.subtract(a, b, out);
+                break;
+            case '*':
+                VectorMath.multiply(a, b, out);
+                break;
+            case '/':
+                if (VectorMath.containsZero(b)) {
+                    throw new Exception("Division by zero");
+                }
+                VectorMath.divide(a, b, out);
+                break;
+            default:
+                VectorMath.power(a, b, out);
+                break;
+        }
+        return new Matrix(shape.rows, shape.cols, out);
+    }
+
+    private static double[] filled(double value, int length) {
+        double[] array = new double[length];
+        Arrays.fill(array, value);
+        return array;
+    }
+
+    private static void requireSecond(String name, Matrix second) throws Exception {
+        if (second == null) {
+            throw new Exception(name + " needs two arguments");
+        }
+    }
+
+    /**
+     * Parses a number (integer or decimal)
+     */
+    private double parseNumber() throws Exception {
+        int start = position;
+        while (position < expression.length()
+                && ((peek() >= '0' && peek() <= '9') || peek() == '.')) {
+            position++;
+        }
+
+        if (position == start) {
+            throw new Exception("Invalid expression");
+        }
+
+        return Double.parseDouble(expression.substring(start, position));
+    }
+
+    /**
+     * Consumes the expected character or fails
+     */
+    private void expect(char c) throws Exception {
+        if (position >= expression.length() || peek() != c) {
+            throw new Exception("Expected '" + c + "'");
+        }
+        position++;
+    }
+
+    /**
+     * Peeks at the current character without consuming it
+     */
+    private char peek() {
+        if (position >= expression.length()) {
+            return '\0';
+        }
+        return expression.charAt(position);
+    }
+}
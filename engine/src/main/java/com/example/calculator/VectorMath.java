@@ -0,0 +1,188 @@
+package com.example.calculator;
+
+/**
+ * VectorMath - primitive double[] kernels for the vector evaluation mode
+ *
+ * All loops run over plain arrays with no boxing and no per-element method
+ * calls. Reductions keep four independent accumulators so the additions do
+ * not form one long dependency chain, and the element-wise loops are simple
+ * counted loops that the JIT/ART compiler can unroll and vectorize.
+ */
+final class VectorMath {
+
+    // Tile edge for the blocked matrix multiply: 3 tiles of 64x64 doubles fit in L2
+    private static final int BLOCK = 64;
+
+    private VectorMath() {
+    }
+
+    // ===== Element-wise Operations =====
+    static void add(double[] a, double[] b, double[] out) {
+        for (int i = 0; i < out.length; i++) {
+            out[i] = a[i] + b[i];
+        }
+    }
+
+    static void subtract(double[] a, double[] b, double[] out) {
+        for (int i = 0; i < out.length; i++) {
+            out[i] = a[i] - b[i];
+        }
+    }
+
+    static void multiply(double[] a, double[] b, double[] out) {
+        for (int i = 0; i < out.length; i++) {
+            out[i] = a[i] * b[i];
+        }
+    }
+
+    static void divide(double[] a, double[] b, double[] out) {
+        for (int i = 0; i < out.length; i++) {
+            out[i] = a[i] / b[i];
+        }
+    }
+
+    static void power(double[] a, double[] b, double[] out) {
+        for (int i = 0; i < out.length; i++) {
+            out[i] = Math.pow(a[i], b[i]);
+        }
+    }
+
+    // ===== Scalar Broadcast Operations =====
+    static void addScalar(double[] a, double s, double[] out) {
+        for (int i = 0; i < out.length; i++) {
+            out[i] = a[i] + s;
+        }
+    }
+
+    static void scale(double[] a, double s, double[] out) {
+        for (int i = 0; i < out.length; i++) {
+            out[i] = a[i] * s;
+        }
+    }
+
+    /**
+     * Divides every element by s; not scale(a, 1 / s), which rounds twice
+     */
+    static void divideScalar(double[] a, double s, double[] out) {
+        for (int i = 0; i < out.length; i++) {
+            out[i] = a[i] / s;
+        }
+    }
+
+    static void negate(double[] a, double[] out) {
+        for (int i = 0; i < out.length; i++) {
+            out[i] = -a[i];
+        }
+    }
+
+    // ===== Reductions =====
+    /**
+     * Sums all elements using four interleaved accumulators
+     */
+    static double sum(double[] a) {
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        int limit = a.length - 3;
+        for (; i < limit; i += 4) {
+            s0 += a[i];
+            s1 += a[i + 1];
+            s2 += a[i + 2];
+            s3 += a[i + 3];
+        }
+        for (; i < a.length; i++) {
+            s0 += a[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    /**
+     * Dot product of two equally sized arrays using four interleaved
+     * accumulators
+     */
+    static double dot(double[] a, double[] b) {
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        int limit = a.length - 3;
+        for (; i < limit; i += 4) {
+            s0 += a[i] * b[i];
+            s1 += a[i + 1] * b[i + 1];
+            s2 += a[i + 2] * b[i + 2];
+            s3 += a[i + 3] * b[i + 3];
+        }
+        for (; i < a.length; i++) {
+            s0 += a[i] * b[i];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    static double min(double[] a) {
+        double m = a[0];
+        for (int i = 1; i < a.length; i++) {
+            m = Math.min(m, a[i]);
+        }
+        return m;
+    }
+
+    static double max(double[] a) {
+        double m = a[0];
+        for (int i = 1; i < a.length; i++) {
+            m = Math.max(m, a[i]);
+        }
+        return m;
+    }
+
+    /**
+     * Whether any element is exactly zero
+     */
+    static boolean containsZero(double[] a) {
+        for (double value : a) {
+            if (value == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ===== Matrix Operations =====
+    /**
+     * Multiplies an (n x k) matrix by a (k x m) matrix, all row-major
+     *
+     * Works tile by tile so the rows of b being streamed stay in cache, and
+     * uses i-k-j loop order so the innermost loop walks b and out
+     * contiguously.
+     */
+    static void multiplyBlocked(double[] a, double[] b, double[] out, int n, int k, int m) {
+        for (int ii = 0; ii < n; ii += BLOCK) {
+            int iEnd = Math.min(ii + BLOCK, n);
+            for (int kk = 0; kk < k; kk += BLOCK) {
+                int kEnd = Math.min(kk + BLOCK, k);
+                for (int jj = 0; jj < m; jj += BLOCK) {
+                    int jEnd = Math.min(jj + BLOCK, m);
+                    for (int i = ii; i < iEnd; i++) {
+                        int outRow = i * m;
+                        int aRow = i * k;
+                        for (int p = kk; p < kEnd; p++) {
+                            double aip = a[aRow + p];
+                            int bRow = p * m;
+                            for (int j = jj; j < jEnd; j++) {
+                                out[outRow + j] += aip * b[bRow + j];
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Transposes a (rows x cols) row-major matrix into out (cols x rows)
+     */
+    static void transpose(double[] a, double[] out, int rows, int cols) {
+        for (int i = 0; i < rows; i++) {
+            int row = i * cols;
+            for (int j = 0; j < cols; j++) {
+                out[j * rows + i] = a[row + j];
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.calculator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests for BulkEvaluator: lines are expressions or rows of columns, and a
+ * line the evaluator cannot read to the end is an error
+ */
+public class BulkEvaluatorTest {
+
+    @Test
+    public void expressionsAndColumns() {
+        BulkEvaluator.Result result = BulkEvaluator.evaluate("12 × 3 + 1\n1.5\t2\t3\n\n4,5;6\n");
+        assertEquals(3, result.lineCount);
+        assertEquals(0, result.errorCount);
+        assertEquals(37, result.results[0], 0);
+        assertEquals(6.5, result.results[1], 0);
+        assertEquals(15, result.results[2], 0);
+        assertEquals(3, result.columnCount);
+        assertEquals(42.5, result.columnTotals[0], 0);
+    }
+
+    @Test
+    public void spacesBetweenNumbersSeparateColumns() {
+        BulkEvaluator.Result result = BulkEvaluator.evaluate("1 2\n10  20 30\n2 + 3 4\n1. 5");
+        assertEquals(3, result.results[0], 0);
+        assertEquals(60, result.results[1], 0);
+        assertEquals(9, result.results[2], 0);
+        assertEquals(6, result.results[3], 0);
+        assertEquals(3, result.columnCount);
+
+        // The same text gives the same numbers in statistics mode
+        StreamingStatistics statistics = new StreamingStatistics();
+        BulkEvaluator.addStatistics("1 2", statistics);
+        assertEquals(2, statistics.getCount());
+        assertEquals(3, statistics.getSum(), 0);
+    }
+
+    @Test
+    public void partlyParsedLinesAreErrors() {
+        BulkEvaluator.Result result = BulkEvaluator.evaluate("12abc\n3)4\n1e3\n2,3");
+        assertEquals(4, result.lineCount);
+        assertEquals(3, result.errorCount);
+        for (int line = 0; line < 3; line++) {
+            assertTrue("line " + line, result.isError(line));
+        }
+        assertEquals(5, result.total, 0);
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.calculator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+/**
+ * Tests for ExpressionCache: results match uncached evaluation, memory stays
+ * within the budget, recently used entries survive eviction, and many
+ * threads can share one cache
+ */
+public class ExpressionCacheTest {
+
+    @Test
+    public void cachedResultsMatchEvaluation() throws Exception {
+        ExpressionCache cache = new ExpressionCache(1 << 20);
+        ExpressionFuzzer fuzzer = new ExpressionFuzzer(7);
+        for (int i = 0; i < 2_000; i++) {
+            ExpressionFuzzer.Case c = fuzzer.next(1 + i % 6);
+            for (int round = 0; round < 2; round++) {
+                try {
+                    double value = cache.get(c.text).value();
+                    assertTrue("should fail: " + c.text, !c.fails);
+                    assertEquals(c.text, Double.doubleToLongBits(c.expected), Double.doubleToLongBits(value));
+                } catch (Exception e) {
+                    assertTrue(c + ": " + e.getMessage(), c.fails);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void tokenAndTextKeysDoNotCollide() throws Exception {
+        ExpressionCache cache = new ExpressionCache(1 << 20);
+        assertEquals(14, cache.evaluate(TokenList.of(new String[] {"2", "+", "3", "×", "4"}), null), 0);
+        assertEquals(14, cache.get("2+3*4").value(), 0);
+        assertEquals(2, cache.size());
+        assertSame(cache.get("2+3*4"), cache.get("2+3*4"));
+    }
+
+    @Test
+    public void registerResultsAreNotCached() throws Exception {
+        ExpressionCache cache = new ExpressionCache(1 << 20);
+        MemoryRegisters registers = new MemoryRegisters();
+        TokenList tokens = TokenList.of(new String[] {"M1", "×", "(", "2", "+", "M", ")"});
+        registers.set(1, 3);
+        registers.set(0, 1);
+        assertEquals(9, cache.evaluate(tokens, registers), 0);
+        registers.add(0, 1);
+        assertEquals(12, cache.evaluate(tokens, registers), 0);
+        assertEquals(12, new TokenEvaluator(tokens, registers).evaluate(), 0);
+        assertEquals(1, cache.size());
+
+        registers.clear(1);
+        try {
+            cache.evaluate(tokens, registers);
+            fail("M1 is empty");
+        } catch (Exception e) {
+            assertEquals("Memory M1 is empty", e.getMessage());
+        }
+    }
+
+    @Test
+    public void errorsAreRememberedAndParseFailuresNotCached() throws Exception {
+        ExpressionCache cache = new ExpressionCache(1 << 20);
+        for (int i = 0; i < 2; i++) {
+            try {
+                cache.get("1/0").value();
+                fail("1/0 should fail");
+            } catch (Exception e) {
+                assertEquals("Division by zero", e.getMessage());
+            }
+        }
+        try {
+            cache.get("(1+2");
+            fail("(1+2 should not parse");
+        } catch (Exception e) {
+            assertEquals(1, cache.size());
+        }
+        try {
+            cache.get("2)3");
+            fail("2)3 should not parse");
+        } catch (Exception e) {
+            assertEquals("Unexpected character: )", e.getMessage());
+            assertEquals(1, cache.size());
+        }
+    }
+
+    @Test
+    public void memoryStaysWithinBudget() throws Exception {
+        long budget = 64 << 10;
+        ExpressionCache cache = new ExpressionCache(budget);
+        ExpressionCache.Entry hot = cache.get("1+1");
+        for (int i = 0; i < 20_000; i++) {
+            cache.get(i + "*" + i + "+1");
+            assertSame("recently used entry was evicted", hot, cache.get("1+1"));
+            assertTrue("over budget: " + cache.usedBytes(), cache.usedBytes() <= budget);
+        }
+        assertTrue(cache.size() < 20_000);
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.usedBytes());
+    }
+
+    @Test
+    public void threadsShareOneCache() throws Exception {
+        ExpressionCache cache = new ExpressionCache(32 << 10);
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int seed = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    for (int i = 0; i < 50_000; i++) {
+                        int n = (i * 31 + seed) % 2_000;
+                        double value = cache.get(n + "+" + n).value();
+                        if (value != 2.0 * n) {
+                            throw new AssertionError(n + "+" + n + " = " + value);
+                        }
+                    }
+                } catch (Throwable e) {
+                    error.compareAndSet(null, e);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (error.get() != null) {
+            throw new AssertionError(error.get());
+        }
+        assertTrue("over budget: " + cache.usedBytes(), cache.usedBytes() <= 32 << 10);
+    }
+}
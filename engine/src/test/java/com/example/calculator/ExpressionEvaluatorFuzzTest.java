@@ -0,0 +1,274 @@
+package com.example.calculator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+/**
+ * Differential and performance tests for the expression evaluators
+ *
+ * ExpressionEvaluator, CompiledExpression and TokenEvaluator are run on
+ * random expressions from ExpressionFuzzer and must agree bit for bit with
+ * its reference result (or all fail on division by zero). Every evaluation
+ * is timed and the slowest cases are printed. Inputs whose cost grows
+ * faster than their length fail, and so do deep inputs that exhaust a
+ * small thread stack: the evaluators must not recurse per nesting level.
+ *
+ * More cases: ./gradlew :engine:test -Dcalculator.fuzz.cases=1000000
+ */
+public class ExpressionEvaluatorFuzzTest {
+
+    private static final int CASES = Integer.getInteger("calculator.fuzz.cases", 20_000);
+    private static final long SEED = Long.getLong("calculator.fuzz.seed", 20261019L);
+    private static final long SLOW_CASE_NANOS = 250_000_000L; // Any single random case slower is a bug
+    private static final double MAX_GROWTH = 4;               // Cost per character, large input / small
+    private static final long SMALL_STACK = 256L << 10;        // Smaller than any thread stack on Android
+    private static final int MAX_DEPTH = 100_000;
+
+    /**
+     * How one evaluation ended
+     */
+    private static final class Outcome {
+
+        final double value;
+        final Throwable failure; // null on success
+        final long nanos;
+
+        Outcome(double value, Throwable failure, long nanos) {
+            this.value = value;
+            this.failure = failure;
+            this.nanos = nanos;
+        }
+
+        boolean overflowed() {
+            return failure instanceof StackOverflowError;
+        }
+    }
+
+    private interface Evaluator {
+        double evaluate(String text) throws Exception;
+    }
+
+    private static final String[] NAMES = {"ExpressionEvaluator", "CompiledExpression", "TokenEvaluator"};
+    private static final Evaluator[] EVALUATORS = {
+        text -> new ExpressionEvaluator(text).evaluate(),
+        text -> CompiledExpression.compile(text).evaluate(),
+        text -> new TokenEvaluator(TokenList.of(ExpressionFuzzer.tokenTexts(text))).evaluate(),
+    };
+
+    private static Outcome run(Evaluator evaluator, String text) {
+        long start = System.nanoTime();
+        try {
+            double value = evaluator.evaluate(text);
+            return new Outcome(value, null, System.nanoTime() - start);
+        } catch (Exception | StackOverflowError e) {
+            return new Outcome(Double.NaN, e, System.nanoTime() - start);
+        }
+    }
+
+    // ===== Differential Tests =====
+    @Test
+    public void randomExpressionsMatchReference() {
+        ExpressionFuzzer fuzzer = new ExpressionFuzzer(SEED);
+        List<String> slowest = new ArrayList<>();
+        long[] slowestNanos = new long[5];
+        int failures = 0;
+
+        for (int i = 0; i < CASES; i++) {
+            ExpressionFuzzer.Case c = fuzzer.next(1 + i % 8);
+            if (c.fails) {
+                failures++;
+            }
+            for (int e = 0; e < EVALUATORS.length; e++) {
+                Outcome outcome = run(EVALUATORS[e], c.text);
+                assertMatches(NAMES[e], c, outcome);
+                assertTrue(NAMES[e] + " took " + outcome.nanos / 1_000_000 + " ms for " + c.text,
+                        outcome.nanos < SLOW_CASE_NANOS);
+                trackSlowest(slowest, slowestNanos, NAMES[e] + " " + c.text, outcome.nanos);
+            }
+        }
+
+        System.out.println(CASES + " random cases, seed " + SEED + ", "
+                + failures + " with division by zero; slowest:");
+        for (int i = 0; i < slowest.size(); i++) {
+            System.out.printf(Locale.ROOT, "  %8.1f us  %s%n", slowestNanos[i] / 1e3, slowest.get(i));
+        }
+    }
+
+    @Test
+    public void grammarCorners() {
+        assertValue("--3", 3);
+        assertValue("---3", -3);
+        assertValue("2--3", 5);
+        assertValue("2*-3", -6);
+        assertValue("+-+3", -3);
+        assertValue("2^3^2", 512);     // Right-associative
+        assertValue("(2^3)^2", 64);
+        assertValue("-2^2", 4);        // Unary minus binds tighter than ^
+        assertValue("2^-1", 0.5);
+        assertValue("2+3*4", 14);
+        assertValue("10-4-3", 3);      // Left-associative
+        assertValue("8/4/2", 1);
+        assertValue(".5+5.", 5.5);
+        assertValue("0.1+0.2", 0.1 + 0.2);
+        assertValue("12345678901234567890", 12345678901234567890.0);
+        assertValue("0/5", 0);
+
+        assertFails("1/0");
+        assertFails("1/(2-2)");
+        assertFails("1/-0");
+        assertFails("0/0");
+        assertFails("(1+2");
+        assertFails("");
+        assertFails("*3");
+        assertFails("1..2");
+        assertFails("\u0663+1");      // Arabic-Indic 3: not a digit here
+        assertFails("2*\uFF12");       // Fullwidth 2
+    }
+
+    private static void assertValue(String text, double expected) {
+        for (int e = 0; e < EVALUATORS.length; e++) {
+            assertMatches(NAMES[e], new ExpressionFuzzer.Case(text, expected, false), run(EVALUATORS[e], text));
+        }
+    }
+
+    private static void assertFails(String text) {
+        for (int e = 0; e < EVALUATORS.length; e++) {
+            Outcome outcome = run(EVALUATORS[e], text);
+            assertTrue(NAMES[e] + " should fail on \"" + text + "\" but gave " + outcome.value,
+                    outcome.failure instanceof Exception);
+        }
+    }
+
+    private static void assertMatches(String name, ExpressionFuzzer.Case c, Outcome outcome) {
+        if (outcome.failure != null && !(outcome.failure instanceof Exception)) {
+            fail(name + " threw " + outcome.failure + " on " + c.text);
+        }
+        if (c.fails) {
+            assertTrue(name + " should fail on " + c.text + " but gave " + outcome.value,
+                    outcome.failure != null);
+            return;
+        }
+        if (outcome.failure != null) {
+            fail(name + " failed on " + c + ": " + outcome.failure.getMessage());
+        }
+        assertEquals(name + " on " + c.text, Double.doubleToLongBits(c.expected),
+                Double.doubleToLongBits(outcome.value));
+    }
+
+    private static void trackSlowest(List<String> slowest, long[] slowestNanos, String label, long nanos) {
+        int at = slowest.size();
+        while (at > 0 && slowestNanos[at - 1] < nanos) {
+            at--;
+        }
+        if (at >= slowestNanos.length) {
+            return;
+        }
+        slowest.add(at, label);
+        if (slowest.size() > slowestNanos.length) {
+            slowest.remove(slowest.size() - 1);
+        }
+        System.arraycopy(slowestNanos, at, slowestNanos, at + 1, slowestNanos.length - at - 1);
+        slowestNanos[at] = nanos;
+    }
+
+    // ===== Pathological Inputs =====
+    /**
+     * Evaluation cost per character must not grow with the input size
+     */
+    @Test
+    public void costGrowsLinearly() {
+        assertLinear("flat sum", ExpressionFuzzer.flatSum(1_000), ExpressionFuzzer.flatSum(16_000));
+        assertLinear("minus chain", ExpressionFuzzer.minusChain(1_000), ExpressionFuzzer.minusChain(16_000));
+        assertLinear("power tower", ExpressionFuzzer.powerTower(1_000), ExpressionFuzzer.powerTower(16_000));
+        assertLinear("nesting", ExpressionFuzzer.nested(1_000), ExpressionFuzzer.nested(16_000));
+        assertLinear("deep nesting", ExpressionFuzzer.nested(MAX_DEPTH / 16), ExpressionFuzzer.nested(MAX_DEPTH));
+    }
+
+    private static void assertLinear(String shape, ExpressionFuzzer.Case small, ExpressionFuzzer.Case large) {
+        for (int e = 0; e < EVALUATORS.length; e++) {
+            double smallCost = bestNanosPerChar(EVALUATORS[e], small);
+            double largeCost = bestNanosPerChar(EVALUATORS[e], large);
+            double growth = largeCost / smallCost;
+            System.out.printf(Locale.ROOT, "%-19s %-12s %6.1f ns/char -> %6.1f ns/char (x%.1f)%n",
+                    NAMES[e], shape, smallCost, largeCost, growth);
+            assertTrue(NAMES[e] + ": cost per character of " + shape + " grew x" + growth,
+                    growth < MAX_GROWTH);
+        }
+    }
+
+    /**
+     * Best time of several runs, after warming up the JIT
+     */
+    private static double bestNanosPerChar(Evaluator evaluator, ExpressionFuzzer.Case c) {
+        int repeats = Math.max(1, 200_000 / c.text.length());
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < 12; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < repeats; i++) {
+                Outcome outcome = run(evaluator, c.text);
+                if (outcome.failure != null || outcome.value != c.expected) {
+                    throw new AssertionError("Wrong result for " + c.text.length() + " chars: " + outcome.failure);
+                }
+            }
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return (double) best / repeats / c.text.length();
+    }
+
+    /**
+     * Deep nesting and long chains evaluate correctly on a small stack
+     */
+    @Test
+    public void deepInputsDoNotOverflow() throws Exception {
+        for (int depth = 10; depth <= MAX_DEPTH; depth *= 10) {
+            assertEvaluatesOnSmallStack("nesting", ExpressionFuzzer.nested(depth), depth);
+            assertEvaluatesOnSmallStack("minus chain", ExpressionFuzzer.minusChain(depth), depth);
+            assertEvaluatesOnSmallStack("power tower", ExpressionFuzzer.powerTower(depth), depth);
+        }
+    }
+
+    private static void assertEvaluatesOnSmallStack(String shape, ExpressionFuzzer.Case c, int depth)
+            throws Exception {
+        for (int e = 0; e < EVALUATORS.length; e++) {
+            Evaluator evaluator = EVALUATORS[e];
+            Outcome outcome = onSmallStack(() -> run(evaluator, c.text));
+            assertTrue(NAMES[e] + " runs out of stack on " + shape + " of depth " + depth,
+                    !outcome.overflowed());
+            assertMatches(NAMES[e], c, outcome);
+        }
+    }
+
+    // ===== Threads =====
+    private interface Task<T> {
+        T call() throws Exception;
+    }
+
+    private static <T> T onSmallStack(Task<T> task) throws Exception {
+        AtomicReference<T> result = new AtomicReference<>();
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread thread = new Thread(null, () -> {
+            try {
+                result.set(task.call());
+            } catch (Throwable t) {
+                error.set(t);
+            }
+        }, "fuzz", SMALL_STACK);
+        thread.start();
+        thread.join();
+        if (error.get() instanceof Exception) {
+            throw (Exception) error.get();
+        }
+        if (error.get() != null) {
+            throw new AssertionError(error.get());
+        }
+        return result.get();
+    }
+}
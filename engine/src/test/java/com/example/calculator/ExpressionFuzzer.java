@@ -0,0 +1,271 @@
+package com.example.calculator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * ExpressionFuzzer - random expressions with a known correct result
+ *
+ * Each case is generated as a syntax tree and then printed in evaluator
+ * syntax, with parentheses only where the grammar needs them (plus some
+ * redundant ones). The expected result comes from evaluating the tree
+ * directly, with the same double operations in the same order as the
+ * evaluators, so a correct evaluator matches it bit for bit. This makes
+ * the tree the reference implementation: it shares no parsing code with
+ * the evaluators under test.
+ *
+ * The grammar corners are generated on purpose:
+ * - unary minus chains such as "--3" and "2--3"
+ * - "^" is right-associative and binds looser than unary minus, so
+ *   "2^3^2" is 512 and "-2^2" is 4
+ * - division by zero anywhere makes the whole expression fail
+ * - numbers that take the parser's fast path and ones that do not
+ *   ("0.1", ".5", "5.", 20-digit integers)
+ */
+final class ExpressionFuzzer {
+
+    // Precedence levels, as in ExpressionEvaluator
+    private static final int ADDITION = 1;
+    private static final int MULTIPLICATION = 2;
+    private static final int POWER = 3;
+    private static final int UNARY = 4;
+    private static final int PRIMARY = 5;
+
+    private final Random random;
+
+    ExpressionFuzzer(long seed) {
+        this.random = new Random(seed);
+    }
+
+    /**
+     * One generated expression and its expected result
+     */
+    static final class Case {
+
+        final String text;       // Evaluator syntax: no spaces, * and /
+        final double expected;   // Meaningless when fails is set
+        final boolean fails;     // Division by zero somewhere
+
+        Case(String text, double expected, boolean fails) {
+            this.text = text;
+            this.expected = expected;
+            this.fails = fails;
+        }
+
+        @Override
+        public String toString() {
+            return text + " = " + (fails ? "error" : Double.toString(expected));
+        }
+    }
+
+    /**
+     * A random expression with up to the given tree depth
+     */
+    Case next(int maxDepth) {
+        Node node = node(maxDepth);
+        return new Case(node.text, node.value, node.fails);
+    }
+
+    /**
+     * n opening parentheses, a number and n closing ones: "((1))"
+     */
+    static Case nested(int depth) {
+        StringBuilder sb = new StringBuilder(2 * depth + 1);
+        for (int i = 0; i < depth; i++) {
+            sb.append('(');
+        }
+        sb.append('7');
+        for (int i = 0; i < depth; i++) {
+            sb.append(')');
+        }
+        return new Case(sb.toString(), 7, false);
+    }
+
+    /**
+     * A chain of n unary minus signs before a number: "---3"
+     */
+    static Case minusChain(int length) {
+        StringBuilder sb = new StringBuilder(length + 1);
+        for (int i = 0; i < length; i++) {
+            sb.append('-');
+        }
+        sb.append('3');
+        return new Case(sb.toString(), length % 2 == 0 ? 3 : -3, false);
+    }
+
+    /**
+     * n terms added left to right: "1+2+3+..."
+     */
+    static Case flatSum(int terms) {
+        StringBuilder sb = new StringBuilder(terms * 3);
+        double sum = 0;
+        for (int i = 0; i < terms; i++) {
+            if (i > 0) {
+                sb.append('+');
+            }
+            int term = i % 10;
+            sb.append(term);
+            sum += term;
+        }
+        return new Case(sb.toString(), sum, false);
+    }
+
+    /**
+     * n ones raised to each other: "1^1^1..." (right-associative)
+     */
+    static Case powerTower(int height) {
+        StringBuilder sb = new StringBuilder(height * 2);
+        for (int i = 0; i < height; i++) {
+            if (i > 0) {
+                sb.append('^');
+            }
+            sb.append('1');
+        }
+        return new Case(sb.toString(), 1, false);
+    }
+
+    /**
+     * Splits evaluator syntax into token texts for TokenEvaluator
+     */
+    static String[] tokenTexts(String text) {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < text.length()) {
+            int start = i;
+            while (i < text.length() && (Character.isDigit(text.charAt(i)) || text.charAt(i) == '.')) {
+                i++;
+            }
+            if (i == start) {
+                i++;
+            }
+            tokens.add(text.substring(start, i));
+        }
+        return tokens.toArray(new String[0]);
+    }
+
+    // ===== Tree Generation =====
+    /**
+     * A generated subtree: its text, its value and the level of its
+     * outermost operator
+     */
+    private static final class Node {
+
+        final String text;
+        final double value;
+        final boolean fails;
+        final int level;
+
+        Node(String text, double value, boolean fails, int level) {
+            this.text = text;
+            this.value = value;
+            this.fails = fails;
+            this.level = level;
+        }
+    }
+
+    private Node node(int depth) {
+        if (depth <= 0 || random.nextInt(4) == 0) {
+            return number();
+        }
+        switch (random.nextInt(10)) {
+            case 0:
+                return negate(node(depth - 1));
+            case 1:
+                return group(node(depth - 1));
+            case 2:
+            case 3:
+                return binary('+', node(depth - 1), node(depth - 1));
+            case 4:
+                return binary('-', node(depth - 1), node(depth - 1));
+            case 5:
+            case 6:
+                return binary('*', node(depth - 1), node(depth - 1));
+            case 7:
+                return binary('/', node(depth - 1), node(depth - 1));
+            default:
+                // Small exponents keep most results finite
+                return binary('^', node(depth - 1), random.nextInt(3) == 0 ? negate(number()) : number());
+        }
+    }
+
+    private Node number() {
+        String text;
+        switch (random.nextInt(12)) {
+            case 0:
+                text = "0";
+                break;
+            case 1:
+                text = "." + random.nextInt(100);
+                break;
+            case 2:
+                text = random.nextInt(100) + ".";
+                break;
+            case 3:
+                // More digits than the fast path handles
+                text = Long.toString((random.nextLong() >>> 1) | 1_000_000_000_000_000L) + random.nextInt(10);
+                break;
+            case 4:
+                text = random.nextInt(10_000) + "." + random.nextInt(1_000_000_000) + random.nextInt(1_000_000_000);
+                break;
+            case 5:
+            case 6:
+                text = random.nextInt(1000) + "." + random.nextInt(1000);
+                break;
+            default:
+                text = Integer.toString(random.nextInt(20));
+                break;
+        }
+        return new Node(text, Double.parseDouble(text), false, PRIMARY);
+    }
+
+    private static Node negate(Node operand) {
+        Node child = atLeast(operand, UNARY);
+        return new Node("-" + child.text, -child.value, child.fails, UNARY);
+    }
+
+    private static Node group(Node inner) {
+        return new Node("(" + inner.text + ")", inner.value, inner.fails, PRIMARY);
+    }
+
+    private static Node binary(char operator, Node left, Node right) {
+        int level;
+        double value;
+        boolean fails = left.fails || right.fails;
+        switch (operator) {
+            case '+':
+            case '-':
+                level = ADDITION;
+                left = atLeast(left, ADDITION);
+                right = atLeast(right, MULTIPLICATION);
+                value = operator == '+' ? left.value + right.value : left.value - right.value;
+                break;
+            case '*':
+            case '/':
+                level = MULTIPLICATION;
+                left = atLeast(left, MULTIPLICATION);
+                right = atLeast(right, POWER);
+                if (operator == '/' && right.value == 0) {
+                    fails = true;
+                }
+                value = operator == '*' ? left.value * right.value : left.value / right.value;
+                break;
+            default:
+                // Right-associative, and the base is a unary expression
+                level = POWER;
+                left = atLeast(left, UNARY);
+                right = atLeast(right, POWER);
+                value = Math.pow(left.value, right.value);
+                break;
+        }
+        return new Node(left.text + operator + right.text, value, fails, level);
+    }
+
+    /**
+     * Wraps a subtree in parentheses if its operator binds looser than the
+     * position needs
+     */
+    private static Node atLeast(Node node, int level) {
+        return node.level >= level ? node : group(node);
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.calculator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+/**
+ * Tests for FractionEvaluator: exact results, and input the parser cannot
+ * read to the end is an error like in decimal mode
+ */
+public class FractionEvaluatorTest {
+
+    @Test
+    public void exactResults() throws Exception {
+        assertFraction("1/3*3", "1");
+        assertFraction("0.1+0.2", "3/10");
+        assertFraction("(1/2)*(1/3)", "1/6");
+        assertFraction("(2/3)^2", "4/9");
+        assertFraction("-(1/2)^2", "1/4");    // Unary minus binds tighter than ^
+    }
+
+    @Test
+    public void trailingInputIsRejected() {
+        // Input and the first character that cannot continue it
+        String[][] cases = {{"(2)3", "3"}, {"(1/2)(1/3)", "("}, {"1/2M1", "M"}, {"2)", ")"}, {"1+2abc", "a"}};
+        for (String[] c : cases) {
+            try {
+                Rational result = new FractionEvaluator(c[0]).evaluate();
+                fail(c[0] + " should fail but gave " + result);
+            } catch (Exception e) {
+                assertEquals(c[0], "Unexpected character: " + c[1], e.getMessage());
+            }
+        }
+    }
+
+    private static void assertFraction(String text, String expected) throws Exception {
+        assertEquals(text, expected, new FractionEvaluator(text).evaluate().toString());
+    }
+}
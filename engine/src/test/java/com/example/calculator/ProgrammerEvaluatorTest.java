@@ -0,0 +1,47 @@
+package com.example.calculator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+/**
+ * Tests for ProgrammerEvaluator: powers are not XOR, and radix prefixes are
+ * honoured whatever the default radix
+ */
+public class ProgrammerEvaluatorTest {
+
+    @Test
+    public void powerAndXor() throws Exception {
+        assertValue("2**3", 10, 8);
+        assertValue("2^3", 10, 1);          // XOR
+        assertValue("2**3**2", 10, 512);    // Right-associative
+        assertValue("3*2**2", 10, 12);
+        assertValue("-2**2", 10, 4);        // Unary minus binds tighter
+        assertValue("2**64", 10, 0);        // Wraps like the other operators
+        assertValue("5**0", 10, 1);
+        try {
+            new ProgrammerEvaluator("2**-1", 10).evaluate();
+            fail("negative exponent");
+        } catch (Exception e) {
+            assertEquals("Negative exponent", e.getMessage());
+        }
+    }
+
+    @Test
+    public void prefixesInEveryRadix() throws Exception {
+        for (int radix : new int[] {2, 8, 10, 16}) {
+            assertValue("0b101", radix, 5);
+            assertValue("0x1F", radix, 31);
+            assertValue("0o17", radix, 15);
+        }
+        assertValue("0b101+10", 16, 21);
+        assertValue("0B1", 16, 0xB1);       // Uppercase B stays a hex digit
+        assertValue("0B1", 10, 1);
+        assertValue("0xFFFFFFFFFFFFFFFF", 10, -1);
+    }
+
+    private static void assertValue(String text, int radix, long expected) throws Exception {
+        assertEquals(text + " in radix " + radix, expected, new ProgrammerEvaluator(text, radix).evaluate());
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.calculator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.Test;
+
+/**
+ * Tests for ResultArchive: rows survive a round trip through CSV and the
+ * columnar format, including quotes, non-ASCII text and errors, and large
+ * exports stream without holding the rows
+ */
+public class ResultArchiveTest {
+
+    private static final String[] EXPRESSIONS = {
+        "2+3×4", "1/0", "say \"hi\", then 1", "√(16)−π", "𝜋×2", "", "1,5+2"
+    };
+    private static final double[] RESULTS = {
+        14, Double.NaN, 1, 4 - Math.PI, 2 * Math.PI, 0, -3.5e-300
+    };
+
+    @Test
+    public void csvRoundTrip() throws Exception {
+        Path file = Files.createTempFile("archive", ".csv");
+        try {
+            try (FileChannel out = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                assertEquals(EXPRESSIONS.length, ResultArchive.writeCsv(arrayRows(), out));
+            }
+            try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+                assertFalse(ResultArchive.isColumnar(in));
+                assertRows(ResultArchive.read(in), 0, EXPRESSIONS.length);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void columnarRoundTrip() throws Exception {
+        Path file = Files.createTempFile("archive", ".calc");
+        try {
+            try (FileChannel out = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                assertEquals(EXPRESSIONS.length, ResultArchive.writeColumnar(arrayRows(), out, file.getParent().toFile()));
+            }
+            try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+                assertTrue(ResultArchive.isColumnar(in));
+                ResultArchive.Columns columns = ResultArchive.readColumnar(in);
+                assertEquals(EXPRESSIONS.length, columns.size());
+                for (int i = 0; i < EXPRESSIONS.length; i++) {
+                    assertEquals(EXPRESSIONS[i], columns.expression(i));
+                    assertEquals(Double.doubleToLongBits(RESULTS[i]), Double.doubleToLongBits(columns.result(i)));
+                }
+                assertRows(columns.rows(3), 3, EXPRESSIONS.length);
+                assertRows(ResultArchive.read(in), 0, EXPRESSIONS.length);
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void csvSkipsHeaderBlankAndMalformedLines() throws Exception {
+        String csv = "expression,result\r\n\n1+1,2.0\r\nno comma\n\"unclosed,3\n2*2,Error\n3*3,9";
+        ResultArchive.Rows rows = ResultArchive.readCsv(channel(csv));
+        assertTrue(rows.next());
+        assertEquals("1+1", rows.expression().toString());
+        assertEquals(2, rows.result(), 0);
+        assertTrue(rows.next());
+        assertEquals("2*2", rows.expression().toString());
+        assertTrue(Double.isNaN(rows.result()));
+        assertTrue(rows.next());
+        assertEquals("3*3", rows.expression().toString());
+        assertEquals(9, rows.result(), 0);
+        assertFalse(rows.next());
+    }
+
+    @Test
+    public void largeExportsStream() throws Exception {
+        int count = 300_000;
+        Path csv = Files.createTempFile("archive", ".csv");
+        Path columnar = Files.createTempFile("archive", ".calc");
+        try {
+            try (FileChannel out = FileChannel.open(csv, StandardOpenOption.WRITE)) {
+                assertEquals(count, ResultArchive.writeCsv(generatedRows(count), out));
+            }
+            // CSV back into columnar, one row at a time
+            try (FileChannel in = FileChannel.open(csv, StandardOpenOption.READ);
+                    FileChannel out = FileChannel.open(columnar, StandardOpenOption.WRITE)) {
+                assertEquals(count, ResultArchive.writeColumnar(ResultArchive.read(in), out, columnar.getParent().toFile()));
+            }
+            try (FileChannel in = FileChannel.open(columnar, StandardOpenOption.READ)) {
+                ResultArchive.Columns columns = ResultArchive.readColumnar(in);
+                assertEquals(count, columns.size());
+                ResultArchive.Rows expected = generatedRows(count);
+                ResultArchive.Rows actual = columns.rows(0);
+                while (expected.next()) {
+                    assertTrue(actual.next());
+                    assertEquals(expected.expression().toString(), actual.expression().toString());
+                    assertEquals(Double.doubleToLongBits(expected.result()), Double.doubleToLongBits(actual.result()));
+                }
+                assertFalse(actual.next());
+            }
+        } finally {
+            Files.delete(csv);
+            Files.delete(columnar);
+        }
+    }
+
+    private static void assertRows(ResultArchive.Rows rows, int from, int to) throws IOException {
+        for (int i = from; i < to; i++) {
+            assertTrue("missing row " + i, rows.next());
+            assertEquals(EXPRESSIONS[i], rows.expression().toString());
+            assertEquals(EXPRESSIONS[i], Double.doubleToLongBits(RESULTS[i]), Double.doubleToLongBits(rows.result()));
+        }
+        assertFalse(rows.next());
+    }
+
+    private static ResultArchive.Rows arrayRows() {
+        return new ResultArchive.Rows() {
+            private int row = -1;
+
+            @Override
+            public boolean next() {
+                return ++row < EXPRESSIONS.length;
+            }
+
+            @Override
+            public CharSequence expression() {
+                return EXPRESSIONS[row];
+            }
+
+            @Override
+            public double result() {
+                return RESULTS[row];
+            }
+        };
+    }
+
+    /**
+     * Rows made up on the fly, as a history store would supply them
+     */
+    private static ResultArchive.Rows generatedRows(int count) {
+        return new ResultArchive.Rows() {
+            private final StringBuilder expression = new StringBuilder();
+            private int row = -1;
+
+            @Override
+            public boolean next() {
+                if (++row >= count) {
+                    return false;
+                }
+                expression.setLength(0);
+                expression.append(row).append('×').append(row % 97).append("÷7");
+                return true;
+            }
+
+            @Override
+            public CharSequence expression() {
+                return expression;
+            }
+
+            @Override
+            public double result() {
+                return row % 1000 == 0 ? Double.NaN : row * (double) (row % 97) / 7;
+            }
+        };
+    }
+
+    private static ReadableByteChannel channel(String text) {
+        ByteBuffer bytes = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        return new ReadableByteChannel() {
+            @Override
+            public int read(ByteBuffer dst) {
+                if (!bytes.hasRemaining()) {
+                    return -1;
+                }
+                // A few bytes at a time, so lines span reads
+                int n = Math.min(Math.min(dst.remaining(), bytes.remaining()), 5);
+                for (int i = 0; i < n; i++) {
+                    dst.put(bytes.get());
+                }
+                return n;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return true;
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.calculator;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+/**
+ * Tests for UnitEvaluator: conversions with "in" and "to", including inches
+ * as the unit being converted
+ */
+public class UnitEvaluatorTest {
+
+    @Test
+    public void conversions() throws Exception {
+        assertQuantity("5 km + 300 m in m", 5300, "m");
+        assertQuantity("10 cm to in", 10 / 2.54, "in");
+        assertQuantity("10 cm in in", 10 / 2.54, "in");
+        assertQuantity("5 in", 5, "in");
+        assertQuantity("2 ft in in", 24, "in");
+    }
+
+    @Test
+    public void inchesCanBeConverted() throws Exception {
+        assertQuantity("5 in to cm", 12.7, "cm");
+        assertQuantity("5 in in cm", 12.7, "cm");
+        assertQuantity("5 in + 1 ft in in", 17, "in");
+        assertQuantity("(5 in) in cm", 12.7, "cm");
+    }
+
+    @Test
+    public void unknownUnitsFail() {
+        try {
+            new UnitEvaluator("5 in to parsecs").evaluate();
+            fail("parsecs is not a unit");
+        } catch (Exception e) {
+            assertEquals("Unknown unit: parsecs", e.getMessage());
+        }
+    }
+
+    private static void assertQuantity(String text, double value, String unit) throws Exception {
+        Quantity result = new UnitEvaluator(text).evaluate();
+        assertEquals(text, value, result.value, 1e-9);
+        assertEquals(text, UnitRegistry.find(unit), result.unit);
+    }
+}
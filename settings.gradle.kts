@@ -21,3 +21,6 @@ dependencyResolutionManagement {
 
 rootProject.name = "Calculator"
 include(":app")
+include(":benchmark")
+include(":engine")
+include(":cli")